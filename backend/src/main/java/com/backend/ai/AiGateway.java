@@ -0,0 +1,324 @@
+package com.backend.ai;
+
+import com.backend.config.AiProperties;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.MonoSink;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Supplier;
+
+/**
+ * 大模型调用网关
+ * 限制全局和单个用户同时进行的模型调用数，超出的请求进入有界等待队列；
+ * 队列按到达时间排序，会员等级越高相当于到达得越早（加权公平），低等级请求等待足够久后仍会被调度。
+ * 队列已满、单用户排队过多、预计等待超过期限或实际等待超时的请求直接拒绝，避免打满服务商的限流后拖慢所有用户。
+ */
+@Component
+public class AiGateway {
+
+    private static final Comparator<Waiter> QUEUE_ORDER =
+            Comparator.comparingLong(Waiter::priority).thenComparingLong(Waiter::sequence);
+
+    /**
+     * 平均调用时长的指数滑动平均系数
+     */
+    private static final double SERVICE_TIME_ALPHA = 0.2;
+
+    private final AiProperties.Gateway properties;
+
+    /**
+     * 发起模型调用的线程池：排队的请求在上一个调用结束时获得许可，许可分配发生在该调用的 I/O 线程上，
+     * 而发起调用要先同步执行读取记忆、检索知识库等顾问，不能占用 I/O 线程
+     */
+    private final Scheduler callScheduler;
+
+    private final Object lock = new Object();
+    private final TreeSet<Waiter> queue = new TreeSet<>(QUEUE_ORDER);
+    private final Map<String, Integer> activeByUser = new HashMap<>();
+    private final Map<String, Integer> queuedByUser = new HashMap<>();
+    private int active;
+    private long sequence;
+    private double avgServiceNanos;
+
+    private final Timer waitTimer;
+    private final Counter queueFullCounter;
+    private final Counter userLimitCounter;
+    private final Counter deadlineCounter;
+
+    @Autowired
+    public AiGateway(AiProperties aiProperties, MeterRegistry meterRegistry) {
+        this(aiProperties, meterRegistry, Schedulers.boundedElastic());
+    }
+
+    AiGateway(AiProperties aiProperties, MeterRegistry meterRegistry, Scheduler callScheduler) {
+        this.properties = aiProperties.getGateway();
+        this.callScheduler = callScheduler;
+        Gauge.builder("smartair.ai.gateway.queue", this, gateway -> gateway.queueSize())
+                .description("等待模型调用的请求数").register(meterRegistry);
+        Gauge.builder("smartair.ai.gateway.active", this, gateway -> gateway.activeCount())
+                .description("正在进行的模型调用数").register(meterRegistry);
+        this.waitTimer = Timer.builder("smartair.ai.gateway.wait")
+                .description("请求获得调用许可前的排队时间")
+                .publishPercentiles(0.5, 0.95, 0.99)
+                .register(meterRegistry);
+        this.queueFullCounter = rejectedCounter(meterRegistry, "queue_full");
+        this.userLimitCounter = rejectedCounter(meterRegistry, "user_limit");
+        this.deadlineCounter = rejectedCounter(meterRegistry, "deadline");
+    }
+
+    /**
+     * 获得调用许可后在弹性线程池上订阅模型流，流结束、出错或被取消时归还许可
+     *
+     * @param userKey     用于单用户限流的标识
+     * @param memberLevel 会员等级，决定排队优先级，未知时传 0
+     * @param call        实际的模型调用
+     */
+    public <T> Flux<T> stream(String userKey, int memberLevel, Supplier<Flux<T>> call) {
+        return Flux.usingWhen(acquire(userKey, memberLevel),
+                permit -> Flux.defer(call).subscribeOn(callScheduler),
+                permit -> Mono.fromRunnable(permit::release));
+    }
+
+    private Mono<Permit> acquire(String userKey, int memberLevel) {
+        return Mono.create(sink -> {
+            long now = System.nanoTime();
+            Waiter waiter = new Waiter(userKey, now - memberLevel * properties.getLevelBoost().toNanos(), now, sink);
+            // 先注册取消回调：无论取消发生在排队前、排队中还是许可分配之后，都由 cancel 在锁内统一处理
+            sink.onCancel(() -> cancel(waiter));
+            Permit immediate = null;
+            AiGatewayRejectedException rejection = null;
+            synchronized (lock) {
+                if (waiter.cancelled) {
+                    return;
+                }
+                // 每次归还许可后都会调度队列，队列中剩下的请求只可能卡在全局上限或自己的单用户上限上；
+                // 因此本用户还有名额时直接放行，不会越过能用这个名额的排队者，也不会被其他用户的排队者阻塞
+                if (hasCapacity(userKey)) {
+                    immediate = grant(waiter, now);
+                } else {
+                    rejection = checkAdmission(userKey);
+                    if (rejection == null) {
+                        waiter.sequence = sequence++;
+                        queue.add(waiter);
+                        queuedByUser.merge(userKey, 1, Integer::sum);
+                        // 在锁内设置超时：expire 和 dispatch 都要先拿锁，看到的一定是已设置的定时器
+                        waiter.timeout = Schedulers.parallel().schedule(() -> expire(waiter),
+                                properties.getMaxWait().toNanos(), TimeUnit.NANOSECONDS);
+                    }
+                }
+            }
+
+            if (immediate != null) {
+                waitTimer.record(0, TimeUnit.NANOSECONDS);
+                sink.success(immediate);
+            } else if (rejection != null) {
+                sink.error(rejection);
+            }
+        });
+    }
+
+    /**
+     * 判断请求能否进入等待队列，返回 null 表示可以排队
+     */
+    private AiGatewayRejectedException checkAdmission(String userKey) {
+        if (queue.size() >= properties.getMaxQueue()) {
+            queueFullCounter.increment();
+            return new AiGatewayRejectedException("queue_full", "排队人数已满");
+        }
+        if (queuedByUser.getOrDefault(userKey, 0) >= properties.getMaxPerUser()) {
+            userLimitCounter.increment();
+            return new AiGatewayRejectedException("user_limit", "同一用户排队的请求过多");
+        }
+        // 按平均调用时长估算排到的时间，明显超过期限时立即拒绝，不让用户白等
+        double estimatedWait = (queue.size() + 1) * avgServiceNanos / Math.max(1, properties.getMaxConcurrent());
+        if (estimatedWait > properties.getMaxWait().toNanos()) {
+            deadlineCounter.increment();
+            return new AiGatewayRejectedException("deadline", "预计等待时间超过上限");
+        }
+        return null;
+    }
+
+    private boolean hasCapacity(String userKey) {
+        return active < properties.getMaxConcurrent()
+                && activeByUser.getOrDefault(userKey, 0) < properties.getMaxPerUser();
+    }
+
+    /**
+     * 分配许可并记录在等待者上，只能在持有锁时调用；取消回调据此归还已分配但未被使用的许可
+     */
+    private Permit grant(Waiter waiter, long now) {
+        active++;
+        activeByUser.merge(waiter.userKey, 1, Integer::sum);
+        waiter.granted = new Permit(waiter.userKey, now);
+        return waiter.granted;
+    }
+
+    private void release(Permit permit) {
+        List<Grant> grants;
+        synchronized (lock) {
+            active--;
+            activeByUser.computeIfPresent(permit.userKey, (key, count) -> count > 1 ? count - 1 : null);
+            long serviceNanos = System.nanoTime() - permit.grantedAt;
+            avgServiceNanos = avgServiceNanos == 0 ? serviceNanos
+                    : avgServiceNanos + SERVICE_TIME_ALPHA * (serviceNanos - avgServiceNanos);
+            grants = dispatch();
+        }
+        emit(grants);
+    }
+
+    /**
+     * 按队列顺序把空出的许可分给第一个未超过单用户上限的请求，只能在持有锁时调用
+     */
+    private List<Grant> dispatch() {
+        List<Grant> grants = new ArrayList<>();
+        Iterator<Waiter> iterator = queue.iterator();
+        while (active < properties.getMaxConcurrent() && iterator.hasNext()) {
+            Waiter waiter = iterator.next();
+            if (activeByUser.getOrDefault(waiter.userKey, 0) >= properties.getMaxPerUser()) {
+                continue;
+            }
+            iterator.remove();
+            dequeued(waiter);
+            long now = System.nanoTime();
+            grants.add(new Grant(waiter, grant(waiter, now), now - waiter.enqueuedAt));
+        }
+        return grants;
+    }
+
+    private void emit(List<Grant> grants) {
+        for (Grant grant : grants) {
+            grant.waiter().timeout.dispose();
+            waitTimer.record(grant.waitNanos(), TimeUnit.NANOSECONDS);
+            grant.waiter().sink.success(grant.permit());
+            // 在出锁到推送之间被取消时，sink 会丢弃许可；cancel 已经或即将归还，这里再归还一次保证不泄漏
+            if (grant.waiter().cancelled) {
+                grant.permit().release();
+            }
+        }
+    }
+
+    private void expire(Waiter waiter) {
+        synchronized (lock) {
+            if (!queue.remove(waiter)) {
+                return;
+            }
+            dequeued(waiter);
+        }
+        deadlineCounter.increment();
+        waiter.sink.error(new AiGatewayRejectedException("deadline", "排队超时"));
+    }
+
+    /**
+     * 客户端在排队期间断开：仍在队列中则移出；许可已分配但未被使用则归还
+     */
+    private void cancel(Waiter waiter) {
+        boolean removed;
+        Permit granted;
+        synchronized (lock) {
+            waiter.cancelled = true;
+            removed = queue.remove(waiter);
+            if (removed) {
+                dequeued(waiter);
+            }
+            granted = waiter.granted;
+        }
+        if (removed) {
+            waiter.timeout.dispose();
+        } else if (granted != null) {
+            granted.release();
+        }
+    }
+
+    private void dequeued(Waiter waiter) {
+        queuedByUser.computeIfPresent(waiter.userKey, (key, count) -> count > 1 ? count - 1 : null);
+    }
+
+    private int queueSize() {
+        synchronized (lock) {
+            return queue.size();
+        }
+    }
+
+    private int activeCount() {
+        synchronized (lock) {
+            return active;
+        }
+    }
+
+    private static Counter rejectedCounter(MeterRegistry meterRegistry, String reason) {
+        return Counter.builder("smartair.ai.gateway.rejected")
+                .description("被网关拒绝的模型调用数")
+                .tag("reason", reason)
+                .register(meterRegistry);
+    }
+
+    /**
+     * 调用许可，重复归还只生效一次
+     */
+    private final class Permit {
+        private final String userKey;
+        private final long grantedAt;
+        private final AtomicBoolean released = new AtomicBoolean();
+
+        private Permit(String userKey, long grantedAt) {
+            this.userKey = userKey;
+            this.grantedAt = grantedAt;
+        }
+
+        private void release() {
+            if (released.compareAndSet(false, true)) {
+                AiGateway.this.release(this);
+            }
+        }
+    }
+
+    private static final class Waiter {
+        private final String userKey;
+        private final long priority;
+        private final long enqueuedAt;
+        private final MonoSink<Permit> sink;
+        /**
+         * 以下字段只在持有锁时写入
+         */
+        private long sequence;
+        private Disposable timeout;
+        private volatile Permit granted;
+        private volatile boolean cancelled;
+
+        private Waiter(String userKey, long priority, long enqueuedAt, MonoSink<Permit> sink) {
+            this.userKey = userKey;
+            this.priority = priority;
+            this.enqueuedAt = enqueuedAt;
+            this.sink = sink;
+        }
+
+        private long priority() {
+            return priority;
+        }
+
+        private long sequence() {
+            return sequence;
+        }
+    }
+
+    private record Grant(Waiter waiter, Permit permit, long waitNanos) {
+    }
+}
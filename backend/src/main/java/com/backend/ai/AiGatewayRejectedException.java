@@ -0,0 +1,20 @@
+package com.backend.ai;
+
+import lombok.Getter;
+
+/**
+ * 模型调用被网关拒绝（排队已满、用户并发超限或预计等待超过期限）
+ */
+@Getter
+public class AiGatewayRejectedException extends RuntimeException {
+
+    /**
+     * 拒绝原因，同时作为监控指标的标签：queue_full / user_limit / deadline
+     */
+    private final String reason;
+
+    public AiGatewayRejectedException(String reason, String message) {
+        super(message);
+        this.reason = reason;
+    }
+}
@@ -0,0 +1,227 @@
+package com.backend.ai;
+
+import com.backend.config.AiProperties;
+import io.micrometer.context.ContextSnapshotFactory;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+import java.lang.reflect.Method;
+import java.time.Duration;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * AI 工具函数执行器
+ * 工具函数中的 MyBatis/JDBC 调用在独立的有界执行器上运行（JDK 21+ 使用虚拟线程，否则使用专用的有界弹性线程池），
+ * 并发数受许可数限制，不会占满其他用户共用的线程和连接池。
+ * <p>
+ * 这里做不到与模型流线程的完全隔离：Spring AI 的工具函数是同步接口，模型流所在的线程仍然阻塞等待工具结果，
+ * 执行器只是把阻塞时长限制在超时时间内，并让 JDBC 调用运行在单独的线程上。
+ * <p>
+ * 只读工具用 {@link #execute} 执行：超时或所属对话轮次被取消（客户端断开）时中断执行线程，尚未开始的工具不再执行。
+ * 有副作用且不可重复执行的工具（退订等）用 {@link #executeToCompletion} 执行：一旦开始就不超时、不中断，
+ * 等待真实结果再返回，避免操作已提交却告诉用户“执行超时”，或中断到一半的事务。
+ */
+@Slf4j
+@Component
+public class AiToolExecutor {
+
+    private final AiProperties.Tools properties;
+    private final MeterRegistry meterRegistry;
+    private final Semaphore permits;
+    private final Executor executor;
+    private final Runnable shutdown;
+    private final ContextSnapshotFactory snapshotFactory = ContextSnapshotFactory.builder().build();
+
+    public AiToolExecutor(AiProperties aiProperties, MeterRegistry meterRegistry) {
+        this.properties = aiProperties.getTools();
+        this.meterRegistry = meterRegistry;
+        int maxConcurrent = Math.max(1, properties.getMaxConcurrent());
+        this.permits = new Semaphore(maxConcurrent);
+
+        ExecutorService virtualThreads = properties.isVirtualThreads() ? virtualThreadExecutor() : null;
+        if (virtualThreads != null) {
+            this.executor = virtualThreads;
+            this.shutdown = virtualThreads::shutdownNow;
+            log.info("AI 工具函数使用虚拟线程执行，并发上限: {}", maxConcurrent);
+        } else {
+            // 并发已由信号量限制，线程池队列只需容纳信号量放行的任务
+            Scheduler scheduler = Schedulers.newBoundedElastic(maxConcurrent, maxConcurrent, "ai-tool");
+            this.executor = scheduler::schedule;
+            this.shutdown = scheduler::dispose;
+            log.info("AI 工具函数使用有界弹性线程池执行，并发上限: {}", maxConcurrent);
+        }
+    }
+
+    /**
+     * 在工具执行器上运行工具函数并等待结果，当前对话轮次等线程上下文会一并传递
+     *
+     * @param tool 工具函数名，用于查找超时配置和打点
+     * @param body 工具函数逻辑
+     * @return 工具函数返回值
+     * @throws RuntimeException 工具函数抛出的异常原样抛出；排队或执行超时时抛出带中文说明的异常
+     */
+    public <T> T execute(String tool, Callable<T> body) {
+        return execute(tool, body, true);
+    }
+
+    /**
+     * 执行不可中断的工具函数：只在排队阶段受超时限制，开始执行后等待其真正结束；
+     * 对话轮次被取消时不会中断，调用线程自身被中断时工具仍在后台执行完毕
+     *
+     * @param tool 工具函数名，用于查找排队超时配置和打点
+     * @param body 工具函数逻辑
+     * @return 工具函数返回值
+     */
+    public <T> T executeToCompletion(String tool, Callable<T> body) {
+        return execute(tool, body, false);
+    }
+
+    private <T> T execute(String tool, Callable<T> body, boolean interruptible) {
+        long start = System.nanoTime();
+        long timeoutNanos = properties.getTimeouts().getOrDefault(tool, properties.getTimeout()).toNanos();
+        String outcome = "success";
+        AiTurn turn = AiTurnContext.current();
+        FutureTask<T> task = null;
+        try {
+            if (turn != null && turn.isCancelled()) {
+                outcome = "cancelled";
+                throw new RuntimeException("对话已取消，工具 " + tool + " 不再执行");
+            }
+            if (!permits.tryAcquire(timeoutNanos, TimeUnit.NANOSECONDS)) {
+                outcome = "rejected";
+                throw new RuntimeException("工具 " + tool + " 繁忙，请稍后再试");
+            }
+            task = newTask(body);
+            try {
+                executor.execute(task);
+            } catch (RejectedExecutionException e) {
+                task.cancel(false);
+                outcome = "rejected";
+                throw new RuntimeException("工具 " + tool + " 繁忙，请稍后再试", e);
+            }
+            if (!interruptible) {
+                return awaitCompletion(tool, task);
+            }
+            if (turn != null) {
+                turn.trackTool(task);
+            }
+            try {
+                return task.get(timeoutNanos - (System.nanoTime() - start), TimeUnit.NANOSECONDS);
+            } catch (TimeoutException e) {
+                // 中断执行线程；JDBC 查询本身不一定响应中断，许可在任务真正结束后才归还
+                task.cancel(true);
+                outcome = "timeout";
+                log.warn("工具 {} 执行超时（{}ms）", tool, TimeUnit.NANOSECONDS.toMillis(timeoutNanos));
+                throw new RuntimeException("工具 " + tool + " 执行超时", e);
+            } catch (CancellationException e) {
+                // 客户端断开后本轮被取消
+                outcome = "cancelled";
+                throw new RuntimeException("对话已取消，工具 " + tool + " 已中断", e);
+            } catch (ExecutionException e) {
+                outcome = "error";
+                if (e.getCause() instanceof RuntimeException runtimeException) {
+                    throw runtimeException;
+                }
+                throw new RuntimeException(e.getCause());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            outcome = "interrupted";
+            throw new RuntimeException("工具 " + tool + " 执行被中断", e);
+        } catch (RuntimeException e) {
+            if ("success".equals(outcome)) {
+                outcome = "error";
+            }
+            throw e;
+        } finally {
+            if (turn != null && task != null) {
+                turn.untrackTool(task);
+            }
+            Timer.builder("smartair.ai.tool")
+                    .description("AI 工具函数执行耗时（含排队）")
+                    .tag("tool", tool)
+                    .tag("outcome", outcome)
+                    .register(meterRegistry)
+                    .record(Duration.ofNanos(System.nanoTime() - start));
+        }
+    }
+
+    /**
+     * 等待不可中断的工具函数结束；等待中的调用线程被中断时不取消任务，只记录日志
+     */
+    private <T> T awaitCompletion(String tool, FutureTask<T> task) throws InterruptedException {
+        try {
+            return task.get();
+        } catch (InterruptedException e) {
+            log.warn("等待工具 {} 时调用线程被中断，工具将在后台继续执行完毕", tool);
+            throw e;
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw new RuntimeException(e.getCause());
+        }
+    }
+
+    /**
+     * 包装工具函数：传递线程上下文，函数真正结束时归还许可；任务在开始前被取消时由 done 归还
+     */
+    private <T> FutureTask<T> newTask(Callable<T> body) {
+        Callable<T> wrapped = snapshotFactory.captureAll().wrap(body);
+        AtomicBoolean started = new AtomicBoolean();
+        AtomicBoolean released = new AtomicBoolean();
+        Runnable release = () -> {
+            if (released.compareAndSet(false, true)) {
+                permits.release();
+            }
+        };
+        return new FutureTask<>(() -> {
+            started.set(true);
+            try {
+                return wrapped.call();
+            } finally {
+                release.run();
+            }
+        }) {
+            @Override
+            protected void done() {
+                if (!started.get()) {
+                    release.run();
+                }
+            }
+        };
+    }
+
+    @PreDestroy
+    public void close() {
+        shutdown.run();
+    }
+
+    /**
+     * 通过反射获取虚拟线程执行器，项目以 JDK 17 编译，运行在 21+ 上时才可用
+     */
+    private static ExecutorService virtualThreadExecutor() {
+        try {
+            Method factory = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            return (ExecutorService) factory.invoke(null);
+        } catch (ReflectiveOperationException e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,98 @@
+package com.backend.ai;
+
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.time.LocalDate;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 一轮 AI 对话的状态
+ * 在控制器中创建，通过 Reactor 上下文传递到模型调用和工具函数所在的线程
+ */
+@Getter
+public class AiTurn {
+
+    private final String question;
+
+    /**
+     * 问题的归一化向量，语义缓存查询时计算，写入缓存时复用
+     */
+    @Setter
+    private volatile float[] questionEmbedding;
+
+    /**
+     * 查询语义缓存时的知识库版本，写入缓存时使用，避免生成期间知识变更后仍写入旧版本的回答
+     */
+    @Setter
+    private volatile long cacheGeneration = -1;
+
+    /**
+     * 查询语义缓存时的日期，回答中的“今天”以此为准，跨天后不再写入缓存
+     */
+    @Setter
+    private volatile LocalDate cacheDate;
+
+    /**
+     * 本轮是否调用过工具函数（订单查询、退订等），调用过的回答与用户相关，不能缓存
+     */
+    private volatile boolean toolInvoked;
+
+    /**
+     * 本轮调用工具函数的次数
+     */
+    @Getter(AccessLevel.NONE)
+    private final AtomicInteger toolCalls = new AtomicInteger();
+
+    /**
+     * 客户端已断开，本轮结果不再有人接收
+     */
+    private volatile boolean cancelled;
+
+    /**
+     * 正在执行的工具函数，本轮取消时一并中断
+     */
+    @Getter(AccessLevel.NONE)
+    private final Set<Future<?>> runningTools = ConcurrentHashMap.newKeySet();
+
+    public AiTurn(String question) {
+        this.question = question;
+    }
+
+    public void markToolInvoked() {
+        this.toolInvoked = true;
+        toolCalls.incrementAndGet();
+    }
+
+    public int getToolCalls() {
+        return toolCalls.get();
+    }
+
+    /**
+     * 登记正在执行的工具函数；本轮已取消时立即中断它
+     */
+    public void trackTool(Future<?> tool) {
+        runningTools.add(tool);
+        if (cancelled) {
+            tool.cancel(true);
+        }
+    }
+
+    public void untrackTool(Future<?> tool) {
+        runningTools.remove(tool);
+    }
+
+    /**
+     * 取消本轮：中断正在执行的工具函数，之后的工具调用不再执行
+     */
+    public void cancel() {
+        cancelled = true;
+        for (Future<?> tool : runningTools) {
+            tool.cancel(true);
+        }
+    }
+}
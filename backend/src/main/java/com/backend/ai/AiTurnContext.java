@@ -0,0 +1,48 @@
+package com.backend.ai;
+
+import io.micrometer.context.ContextRegistry;
+import jakarta.annotation.PostConstruct;
+import org.springframework.stereotype.Component;
+import reactor.util.context.Context;
+
+/**
+ * 当前 AI 对话轮次的线程上下文
+ * 控制器把 {@link AiTurn} 写入 Reactor Context，开启自动上下文传递后，
+ * 模型流中的工具函数等同步代码可以通过 {@link #current()} 拿到所属轮次
+ */
+@Component
+public class AiTurnContext {
+
+    public static final String KEY = "smartair.ai.turn";
+
+    private static final ThreadLocal<AiTurn> CURRENT = new ThreadLocal<>();
+
+    @PostConstruct
+    public void register() {
+        ContextRegistry.getInstance().registerThreadLocalAccessor(KEY, CURRENT);
+    }
+
+    /**
+     * @return 当前线程所属的对话轮次，不在对话流中时返回 null
+     */
+    public static AiTurn current() {
+        return CURRENT.get();
+    }
+
+    /**
+     * 标记当前轮次调用了工具函数
+     */
+    public static void markToolInvoked() {
+        AiTurn turn = CURRENT.get();
+        if (turn != null) {
+            turn.markToolInvoked();
+        }
+    }
+
+    /**
+     * 用于 contextWrite 的上下文
+     */
+    public static Context of(AiTurn turn) {
+        return Context.of(KEY, turn);
+    }
+}
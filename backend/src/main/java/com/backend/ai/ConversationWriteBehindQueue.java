@@ -0,0 +1,212 @@
+package com.backend.ai;
+
+import com.backend.config.AiProperties;
+import com.backend.dao.mapper.ConversationIndexMapper;
+import com.backend.entity.ConversationDocument;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * AI 回复的异步批量写入队列
+ * 模型流结束后把完整回复放入队列立即返回，后台线程按批写入：
+ * MongoDB 会话文档用一次 bulkWrite 为每个会话 $push 新消息，MySQL 会话索引每个会话只更新一次最后消息。
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class ConversationWriteBehindQueue {
+
+    private static final String ASSISTANT = "assistant";
+
+    private final MongoTemplate mongoTemplate;
+    private final ConversationIndexMapper conversationIndexMapper;
+    private final AiProperties aiProperties;
+    private final MeterRegistry meterRegistry;
+
+    private BlockingQueue<PendingReply> queue;
+    private Thread writerThread;
+    private volatile boolean running;
+
+    private Counter queuedCounter;
+    private Counter overflowDroppedCounter;
+    private Counter failedDroppedCounter;
+    private Counter flushedCounter;
+
+    @PostConstruct
+    public void start() {
+        AiProperties.ReplyPersistence properties = aiProperties.getReplyPersistence();
+        queuedCounter = Counter.builder("smartair.ai.reply.queued")
+                .description("进入写入队列的 AI 回复数").register(meterRegistry);
+        overflowDroppedCounter = droppedCounter("overflow");
+        failedDroppedCounter = droppedCounter("error");
+        flushedCounter = Counter.builder("smartair.ai.reply.flushed")
+                .description("成功写入的 AI 回复数").register(meterRegistry);
+
+        if (!properties.isEnabled()) {
+            log.info("AI 回复服务端持久化未启用");
+            return;
+        }
+
+        queue = new ArrayBlockingQueue<>(Math.max(1, properties.getCapacity()));
+        Gauge.builder("smartair.ai.reply.pending", queue, BlockingQueue::size)
+                .description("等待写入的 AI 回复数").register(meterRegistry);
+
+        running = true;
+        writerThread = new Thread(this::runWriter, "conversation-writer");
+        writerThread.setDaemon(true);
+        writerThread.start();
+        log.info("AI 回复异步写入已启动，容量: {}，批量: {}", properties.getCapacity(), properties.getBatchSize());
+    }
+
+    /**
+     * @return 是否由服务端持久化 AI 回复
+     */
+    public boolean isEnabled() {
+        return queue != null;
+    }
+
+    /**
+     * 提交一条完整的 AI 回复，不阻塞调用线程
+     *
+     * @param conversationUuid 会话UUID
+     * @param text             回复内容
+     */
+    public void submit(String conversationUuid, String text) {
+        if (queue == null || !StringUtils.hasText(conversationUuid) || !StringUtils.hasText(text)) {
+            return;
+        }
+        if (queue.offer(new PendingReply(conversationUuid, text, new Date()))) {
+            queuedCounter.increment();
+        } else {
+            overflowDroppedCounter.increment();
+            log.warn("AI 回复写入队列已满，丢弃会话 {} 的回复", conversationUuid);
+        }
+    }
+
+    /**
+     * 后台写入线程：取到第一条回复后在刷新间隔内继续攒批，攒满或到时即写入
+     */
+    private void runWriter() {
+        AiProperties.ReplyPersistence properties = aiProperties.getReplyPersistence();
+        int batchSize = Math.max(1, properties.getBatchSize());
+        long flushIntervalNanos = properties.getFlushInterval().toNanos();
+        List<PendingReply> batch = new ArrayList<>(batchSize);
+
+        while (running) {
+            try {
+                PendingReply first = queue.poll(flushIntervalNanos, TimeUnit.NANOSECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                long deadline = System.nanoTime() + flushIntervalNanos;
+                while (batch.size() < batchSize) {
+                    queue.drainTo(batch, batchSize - batch.size());
+                    long remaining = deadline - System.nanoTime();
+                    if (batch.size() >= batchSize || remaining <= 0) {
+                        break;
+                    }
+                    PendingReply next = queue.poll(remaining, TimeUnit.NANOSECONDS);
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                running = false;
+            }
+            if (!batch.isEmpty()) {
+                flush(batch);
+            }
+        }
+    }
+
+    private void flush(List<PendingReply> batch) {
+        // 同一会话的多条回复合并为一次更新，保持入队顺序
+        Map<String, List<ConversationDocument.Message>> messagesByConversation = new LinkedHashMap<>();
+        for (PendingReply reply : batch) {
+            messagesByConversation.computeIfAbsent(reply.conversationUuid(), key -> new ArrayList<>())
+                    .add(new ConversationDocument.Message(ASSISTANT, reply.text(), reply.timestamp()));
+        }
+        try {
+            writeMessages(messagesByConversation);
+            for (Map.Entry<String, List<ConversationDocument.Message>> entry : messagesByConversation.entrySet()) {
+                List<ConversationDocument.Message> messages = entry.getValue();
+                conversationIndexMapper.updateLastMessageByUuid(entry.getKey(), messages.get(messages.size() - 1).getText());
+            }
+            flushedCounter.increment(batch.size());
+        } catch (Exception e) {
+            failedDroppedCounter.increment(batch.size());
+            log.warn("批量写入 AI 回复失败，丢弃 {} 条: {}", batch.size(), e.getMessage());
+        } finally {
+            batch.clear();
+        }
+    }
+
+    private void writeMessages(Map<String, List<ConversationDocument.Message>> messagesByConversation) {
+        BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, ConversationDocument.class);
+        for (Map.Entry<String, List<ConversationDocument.Message>> entry : messagesByConversation.entrySet()) {
+            List<ConversationDocument.Message> messages = entry.getValue();
+            Update update = new Update()
+                    .push("messages").each(messages.toArray())
+                    .set("metadata.session_end", messages.get(messages.size() - 1).getTimestamp());
+            bulk.updateOne(new Query(Criteria.where("conversation_uuid").is(entry.getKey())), update);
+        }
+        bulk.execute();
+    }
+
+    /**
+     * 应用关闭时停止后台线程并写完队列中剩余的回复
+     */
+    @PreDestroy
+    public void shutdown() {
+        if (queue == null) {
+            return;
+        }
+        running = false;
+        try {
+            writerThread.join(aiProperties.getReplyPersistence().getShutdownTimeout().toMillis());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+
+        int batchSize = Math.max(1, aiProperties.getReplyPersistence().getBatchSize());
+        List<PendingReply> batch = new ArrayList<>(batchSize);
+        while (queue.drainTo(batch, batchSize) > 0) {
+            flush(batch);
+        }
+        log.info("AI 回复异步写入已停止");
+    }
+
+    private Counter droppedCounter(String reason) {
+        return Counter.builder("smartair.ai.reply.dropped")
+                .description("未写入的 AI 回复数")
+                .tag("reason", reason)
+                .register(meterRegistry);
+    }
+
+    private record PendingReply(String conversationUuid, String text, Date timestamp) {
+    }
+}
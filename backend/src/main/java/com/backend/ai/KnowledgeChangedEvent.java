@@ -0,0 +1,9 @@
+package com.backend.ai;
+
+/**
+ * 知识文档新增、修改或删除后发布的事件
+ *
+ * @param documentId 知识文档ID
+ */
+public record KnowledgeChangedEvent(String documentId) {
+}
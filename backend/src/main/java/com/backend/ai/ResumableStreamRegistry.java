@@ -0,0 +1,396 @@
+package com.backend.ai;
+
+import com.backend.config.AiProperties;
+import com.backend.dao.redis.RedisDao;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import reactor.core.Disposable;
+import reactor.core.Disposables;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.FluxSink;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+import reactor.core.scheduler.Schedulers;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 可续传的 AI 回复流
+ * 每轮生成与客户端连接解耦：生成结果按序号记录在有界的回放日志中，连接只是日志的订阅者。
+ * 客户端网络抖动后带 Last-Event-ID 重连时从日志续传，不会重新调用模型；
+ * 所有连接断开超过宽限期仍无人重连时才取消生成。可选把日志同步到 Redis，供重连落到其他节点时续传：
+ * 其他节点轮询 Redis 期间定时刷新心跳键，生成所在节点宽限期到期时看到心跳仍在就继续生成；
+ * 生成失败、日志不可用或已过期时续传流以错误结束，客户端重连后重新生成，不会把截断的回答当作完整回答。
+ */
+@Slf4j
+@Component
+public class ResumableStreamRegistry {
+
+    private static final String KEY_PREFIX = "ai:stream:";
+    private static final String STATE_SUFFIX = ":state";
+    private static final String TAIL_SUFFIX = ":tail";
+    private static final String STATE_RUNNING = "running";
+    private static final String STATE_DONE = "done";
+    private static final String STATE_FAILED = "failed";
+    private static final String STATE_UNAVAILABLE = "unavailable";
+
+    private final AiProperties.Replay properties;
+    private final RedisDao redisDao;
+    private final Map<String, ReplayLog> logs = new ConcurrentHashMap<>();
+
+    private final Counter localResumeCounter;
+    private final Counter redisResumeCounter;
+    private final Counter missResumeCounter;
+
+    public ResumableStreamRegistry(AiProperties aiProperties, RedisDao redisDao, MeterRegistry meterRegistry) {
+        this.properties = aiProperties.getReplay();
+        this.redisDao = redisDao;
+        Gauge.builder("smartair.ai.stream.replay.logs", logs, Map::size)
+                .description("内存中的回放日志数").register(meterRegistry);
+        this.localResumeCounter = resumeCounter(meterRegistry, "local");
+        this.redisResumeCounter = resumeCounter(meterRegistry, "redis");
+        this.missResumeCounter = resumeCounter(meterRegistry, "miss");
+    }
+
+    /**
+     * 回放日志中的一个分片，序号从 1 开始，作为 SSE 事件 ID
+     */
+    public record StreamChunk(long id, String text) {
+    }
+
+    /**
+     * 开始一轮生成并返回第一个连接的分片流，生成在第一个连接订阅时才开始
+     *
+     * @param streamId    本轮的流ID，客户端重连时携带
+     * @param resumable   是否允许续传；不可续传的流在连接断开时立即取消生成
+     * @param reply       实际的回复流
+     * @param onAbandoned 所有连接断开且超过宽限期、生成被取消时的回调
+     */
+    public Flux<StreamChunk> start(String streamId, boolean resumable, Flux<String> reply, Runnable onAbandoned) {
+        boolean keep = resumable && properties.isEnabled() && logs.size() < properties.getMaxStreams();
+        ReplayLog replayLog = new ReplayLog(streamId, keep, reply, onAbandoned);
+        if (keep) {
+            ReplayLog existing = logs.putIfAbsent(streamId, replayLog);
+            if (existing != null) {
+                // 同一轮的并发请求（如客户端重复提交）共用已有的生成
+                return existing.attach(0);
+            }
+        }
+        return replayLog.attach(0);
+    }
+
+    /**
+     * 从回放日志续传
+     *
+     * @param streamId    流ID
+     * @param lastEventId 客户端收到的最后一个事件ID
+     * @return 续传的分片流；本节点和 Redis 中都没有可用日志时为空，调用方应重新生成
+     */
+    public Optional<Flux<StreamChunk>> resume(String streamId, long lastEventId) {
+        if (!properties.isEnabled()) {
+            return Optional.empty();
+        }
+        ReplayLog replayLog = logs.get(streamId);
+        if (replayLog != null) {
+            Flux<StreamChunk> chunks = replayLog.resume(lastEventId);
+            if (chunks != null) {
+                localResumeCounter.increment();
+                return Optional.of(chunks);
+            }
+        }
+        if (properties.isRedisEnabled()) {
+            try {
+                String state = redisDao.getString(stateKey(streamId));
+                if (STATE_RUNNING.equals(state) || STATE_DONE.equals(state)) {
+                    redisResumeCounter.increment();
+                    return Optional.of(tailRedis(streamId, lastEventId));
+                }
+            } catch (Exception e) {
+                log.warn("读取 Redis 回放日志失败，流: {}，原因: {}", streamId, e.getMessage());
+            }
+        }
+        missResumeCounter.increment();
+        return Optional.empty();
+    }
+
+    /**
+     * 生成在其他节点上：轮询 Redis 中的日志直到生成结束，最长轮询保留时间，超时仍未结束时以错误结束
+     */
+    private Flux<StreamChunk> tailRedis(String streamId, long lastEventId) {
+        AtomicLong next = new AtomicLong(lastEventId);
+        AtomicLong lastHeartbeat = new AtomicLong();
+        long maxPolls = Math.max(1, properties.getRetention().toMillis() / Math.max(1, properties.getPollInterval().toMillis()));
+        return Mono.fromCallable(() -> readRedis(streamId, next, lastHeartbeat))
+                .subscribeOn(Schedulers.boundedElastic())
+                .repeatWhen(repeat -> repeat.delayElements(properties.getPollInterval()))
+                .take(maxPolls)
+                .concatWith(Mono.error(() -> new IllegalStateException("续传超时，生成仍未结束")))
+                .takeUntil(RemoteBatch::finished)
+                .concatMapIterable(RemoteBatch::chunks);
+    }
+
+    private RemoteBatch readRedis(String streamId, AtomicLong next, AtomicLong lastHeartbeat) {
+        // 先读状态再读列表：读到 done 时列表已包含全部分片
+        String state = redisDao.getString(stateKey(streamId));
+        if (!STATE_RUNNING.equals(state) && !STATE_DONE.equals(state)) {
+            // failed / unavailable 时列表已被删除，键过期时也无法判断回答是否完整
+            throw new IllegalStateException("回放日志不可用，状态: " + state);
+        }
+        if (STATE_RUNNING.equals(state)) {
+            heartbeat(streamId, lastHeartbeat);
+        }
+        List<String> values = redisDao.getListRange(KEY_PREFIX + streamId, next.get(), -1);
+        List<StreamChunk> chunks = new ArrayList<>(values.size());
+        for (String value : values) {
+            chunks.add(new StreamChunk(next.incrementAndGet(), value));
+        }
+        return new RemoteBatch(chunks, STATE_DONE.equals(state));
+    }
+
+    /**
+     * 刷新远程续传的心跳键，每个宽限期内刷新几次即可，不必每次轮询都写
+     */
+    private void heartbeat(String streamId, AtomicLong lastHeartbeat) {
+        long graceMillis = properties.getDetachGrace().toMillis();
+        long now = System.currentTimeMillis();
+        if (graceMillis <= 0 || now - lastHeartbeat.get() < graceMillis / 3) {
+            return;
+        }
+        redisDao.setString(tailKey(streamId), "1", graceMillis, TimeUnit.MILLISECONDS);
+        lastHeartbeat.set(now);
+    }
+
+    private record RemoteBatch(List<StreamChunk> chunks, boolean finished) {
+    }
+
+    private static String stateKey(String streamId) {
+        return KEY_PREFIX + streamId + STATE_SUFFIX;
+    }
+
+    private static String tailKey(String streamId) {
+        return KEY_PREFIX + streamId + TAIL_SUFFIX;
+    }
+
+    private static Counter resumeCounter(MeterRegistry meterRegistry, String result) {
+        return Counter.builder("smartair.ai.stream.resume")
+                .description("客户端重连续传次数")
+                .tag("result", result)
+                .register(meterRegistry);
+    }
+
+    /**
+     * 单轮生成的回放日志，生成回调与连接的订阅、断开可能在不同线程，统一在对象锁内处理
+     */
+    private final class ReplayLog {
+        private final String streamId;
+        private final Flux<String> reply;
+        private final Runnable onAbandoned;
+        private final List<String> chunks = new ArrayList<>();
+        private final List<FluxSink<StreamChunk>> listeners = new ArrayList<>();
+        private final Disposable.Swap generation = Disposables.swap();
+        private Sinks.Many<String> redisSink;
+        private boolean recording;
+        private boolean started;
+        private boolean done;
+        private Throwable failure;
+        private long lastId;
+        private Disposable graceTimer;
+
+        private ReplayLog(String streamId, boolean recording, Flux<String> reply, Runnable onAbandoned) {
+            this.streamId = streamId;
+            this.recording = recording;
+            this.reply = reply;
+            this.onAbandoned = onAbandoned;
+        }
+
+        /**
+         * @return 续传的分片流；日志已溢出不再记录时返回 null
+         */
+        private synchronized Flux<StreamChunk> resume(long lastEventId) {
+            return recording ? attach(lastEventId) : null;
+        }
+
+        private Flux<StreamChunk> attach(long lastEventId) {
+            return Flux.create(sink -> {
+                boolean subscribeUpstream = false;
+                synchronized (this) {
+                    if (graceTimer != null) {
+                        graceTimer.dispose();
+                        graceTimer = null;
+                    }
+                    for (int i = (int) Math.max(0, lastEventId); i < chunks.size(); i++) {
+                        sink.next(new StreamChunk(i + 1, chunks.get(i)));
+                    }
+                    if (done) {
+                        sink.complete();
+                        return;
+                    }
+                    if (failure != null) {
+                        sink.error(failure);
+                        return;
+                    }
+                    listeners.add(sink);
+                    if (!started) {
+                        started = true;
+                        subscribeUpstream = true;
+                        if (recording && properties.isRedisEnabled()) {
+                            redisSink = startRedisWriter();
+                        }
+                    }
+                }
+                sink.onDispose(() -> detach(sink));
+                if (subscribeUpstream) {
+                    generation.update(reply.subscribe(this::append, this::fail, this::complete));
+                }
+            });
+        }
+
+        private synchronized void append(String text) {
+            long id = ++lastId;
+            if (recording) {
+                if (chunks.size() >= properties.getMaxEvents()) {
+                    // 超出单个日志的上限后不再记录，之后的重连改为重新生成
+                    stopRecording();
+                } else {
+                    chunks.add(text);
+                    if (redisSink != null) {
+                        redisSink.tryEmitNext(text);
+                    }
+                }
+            }
+            StreamChunk chunk = new StreamChunk(id, text);
+            for (FluxSink<StreamChunk> listener : List.copyOf(listeners)) {
+                listener.next(chunk);
+            }
+        }
+
+        private synchronized void complete() {
+            done = true;
+            List<FluxSink<StreamChunk>> current = List.copyOf(listeners);
+            listeners.clear();
+            current.forEach(FluxSink::complete);
+            if (redisSink != null) {
+                redisSink.tryEmitComplete();
+            }
+            // 完成后保留一段时间，供最后几个分片没收到的客户端续传
+            Schedulers.parallel().schedule(() -> logs.remove(streamId, this),
+                    properties.getRetention().toMillis(), TimeUnit.MILLISECONDS);
+        }
+
+        private synchronized void fail(Throwable error) {
+            failure = error;
+            List<FluxSink<StreamChunk>> current = List.copyOf(listeners);
+            listeners.clear();
+            current.forEach(listener -> listener.error(error));
+            if (redisSink != null) {
+                redisSink.tryEmitError(error);
+            }
+            logs.remove(streamId, this);
+        }
+
+        private void detach(FluxSink<StreamChunk> sink) {
+            synchronized (this) {
+                if (!listeners.remove(sink) || !listeners.isEmpty() || done || failure != null) {
+                    return;
+                }
+                if (recording && !properties.getDetachGrace().isZero()) {
+                    graceTimer = scheduleGrace();
+                    return;
+                }
+            }
+            abandonIfIdle();
+        }
+
+        private Disposable scheduleGrace() {
+            return Schedulers.boundedElastic().schedule(this::graceExpired,
+                    properties.getDetachGrace().toMillis(), TimeUnit.MILLISECONDS);
+        }
+
+        /**
+         * 宽限期到期：客户端重连到其他节点、正在从 Redis 续传时继续生成，再等一个宽限期
+         */
+        private void graceExpired() {
+            if (tailedRemotely()) {
+                synchronized (this) {
+                    if (listeners.isEmpty() && !done && failure == null && recording) {
+                        graceTimer = scheduleGrace();
+                    }
+                }
+                return;
+            }
+            abandonIfIdle();
+        }
+
+        private boolean tailedRemotely() {
+            if (!properties.isRedisEnabled()) {
+                return false;
+            }
+            try {
+                return redisDao.getString(tailKey(streamId)) != null;
+            } catch (Exception e) {
+                log.warn("读取远程续传心跳失败，流: {}，原因: {}", streamId, e.getMessage());
+                return false;
+            }
+        }
+
+        private void abandonIfIdle() {
+            synchronized (this) {
+                if (!listeners.isEmpty() || done || failure != null) {
+                    return;
+                }
+                done = true;
+                graceTimer = null;
+                stopRecording();
+            }
+            logs.remove(streamId, this);
+            generation.dispose();
+            onAbandoned.run();
+        }
+
+        private void stopRecording() {
+            if (!recording) {
+                return;
+            }
+            recording = false;
+            chunks.clear();
+            logs.remove(streamId, this);
+            if (redisSink != null) {
+                redisSink.tryEmitError(new IllegalStateException(STATE_UNAVAILABLE));
+            }
+        }
+
+        /**
+         * 分片按序攒批写入 Redis 列表，结束后写入状态；写入在弹性线程上进行，不阻塞生成
+         */
+        private Sinks.Many<String> startRedisWriter() {
+            Sinks.Many<String> sink = Sinks.many().unicast().onBackpressureBuffer();
+            String listKey = KEY_PREFIX + streamId;
+            String stateKey = stateKey(streamId);
+            long ttlSeconds = Math.max(1, properties.getRetention().toSeconds() + properties.getDetachGrace().toSeconds());
+            Mono.fromRunnable(() -> redisDao.setString(stateKey, STATE_RUNNING, ttlSeconds, TimeUnit.SECONDS))
+                    .thenMany(sink.asFlux().bufferTimeout(32, Duration.ofMillis(100)))
+                    .publishOn(Schedulers.boundedElastic())
+                    .concatMap(batch -> Mono.fromRunnable(() -> redisDao.appendToCappedList(listKey, batch,
+                            properties.getMaxEvents(), ttlSeconds, TimeUnit.SECONDS)))
+                    .then(Mono.fromRunnable(() -> redisDao.setString(stateKey, STATE_DONE, ttlSeconds, TimeUnit.SECONDS)))
+                    .onErrorResume(error -> Mono.fromRunnable(() -> {
+                        String state = STATE_UNAVAILABLE.equals(error.getMessage()) ? STATE_UNAVAILABLE : STATE_FAILED;
+                        redisDao.setString(stateKey, state, ttlSeconds, TimeUnit.SECONDS);
+                        redisDao.delete(listKey);
+                    }))
+                    .subscribeOn(Schedulers.boundedElastic())
+                    .subscribe(null, error -> log.warn("写入 Redis 回放日志失败，流: {}，原因: {}", streamId, error.getMessage()));
+            return sink;
+        }
+    }
+}
@@ -0,0 +1,193 @@
+package com.backend.ai;
+
+import com.backend.config.AiProperties;
+import com.backend.dao.redis.RedisDao;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.ai.embedding.EmbeddingModel;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+import reactor.core.publisher.Flux;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Pattern;
+
+/**
+ * 常见问题语义缓存
+ * 问题向量化后与已回答过的问题比较余弦相似度，超过阈值直接回放缓存的回答，不再调用大模型。
+ * 只缓存未调用工具函数的通用问答；知识文档变更时递增 Redis 中的版本号，所有实例上的旧条目随之失效。
+ * 回答可能引用系统提示中的当天日期，条目只在生成当天有效。
+ * 追问的含义依赖会话上文，调用方只应对会话的第一轮问题查询缓存。
+ */
+@Slf4j
+@Component
+public class SemanticAnswerCache {
+
+    private static final String GENERATION_KEY = "ai:answer-cache:generation";
+
+    /**
+     * 含有连续数字（订单号、手机号、证件号等）的问题视为与个人相关
+     */
+    private static final Pattern PERSONAL_PATTERN = Pattern.compile("\\d{4,}");
+
+    private final EmbeddingModel embeddingModel;
+    private final RedisDao redisDao;
+    private final AiProperties.AnswerCache properties;
+    private final Cache<String, Entry> entries;
+    private final AtomicLong localGeneration = new AtomicLong();
+    private final Counter hitCounter;
+    private final Counter missCounter;
+
+    public SemanticAnswerCache(EmbeddingModel embeddingModel, RedisDao redisDao, AiProperties aiProperties,
+                               MeterRegistry meterRegistry) {
+        this.embeddingModel = embeddingModel;
+        this.redisDao = redisDao;
+        this.properties = aiProperties.getAnswerCache();
+        this.entries = Caffeine.newBuilder()
+                .maximumSize(properties.getMaxEntries())
+                .expireAfterWrite(properties.getTtl())
+                .build();
+        this.hitCounter = Counter.builder("smartair.ai.answer-cache")
+                .description("语义缓存查询次数").tag("result", "hit").register(meterRegistry);
+        this.missCounter = Counter.builder("smartair.ai.answer-cache")
+                .description("语义缓存查询次数").tag("result", "miss").register(meterRegistry);
+    }
+
+    /**
+     * 查询与问题语义相近的已缓存回答，同时把问题向量和知识库版本记录到本轮对话中供写入时使用
+     *
+     * @return 命中时返回缓存的回答
+     */
+    public Optional<String> lookup(AiTurn turn) {
+        if (!isCacheable(turn.getQuestion())) {
+            return Optional.empty();
+        }
+        float[] query;
+        try {
+            query = normalize(embeddingModel.embed(turn.getQuestion().strip()));
+        } catch (Exception e) {
+            log.warn("语义缓存向量化失败: {}", e.getMessage());
+            return Optional.empty();
+        }
+        long generation = currentGeneration();
+        LocalDate today = LocalDate.now();
+        turn.setQuestionEmbedding(query);
+        turn.setCacheGeneration(generation);
+        turn.setCacheDate(today);
+
+        Entry best = null;
+        double bestSimilarity = properties.getSimilarityThreshold();
+        for (Entry entry : entries.asMap().values()) {
+            if (entry.generation() != generation || !today.equals(entry.date())
+                    || entry.vector().length != query.length) {
+                continue;
+            }
+            double similarity = dot(query, entry.vector());
+            if (similarity >= bestSimilarity) {
+                best = entry;
+                bestSimilarity = similarity;
+            }
+        }
+        if (best == null) {
+            missCounter.increment();
+            return Optional.empty();
+        }
+        hitCounter.increment();
+        log.debug("语义缓存命中，相似度: {}，问题: {}，缓存问题: {}", bestSimilarity, turn.getQuestion(), best.question());
+        return Optional.of(best.answer());
+    }
+
+    /**
+     * 对话正常结束后写入缓存，调用过工具函数或问题不可缓存时忽略
+     */
+    public void store(AiTurn turn, String answer) {
+        if (turn.isToolInvoked() || turn.getQuestionEmbedding() == null || !StringUtils.hasText(answer)) {
+            return;
+        }
+        if (turn.getCacheGeneration() != currentGeneration() || !LocalDate.now().equals(turn.getCacheDate())) {
+            return;
+        }
+        entries.put(turn.getQuestion().strip(), new Entry(turn.getQuestion(), turn.getQuestionEmbedding(), answer,
+                turn.getCacheGeneration(), turn.getCacheDate()));
+    }
+
+    /**
+     * 把缓存的回答切成小段按流式返回，前端的逐段渲染逻辑不需要区分是否命中缓存
+     */
+    public Flux<String> replay(String answer) {
+        int chunkSize = Math.max(1, properties.getReplayChunkSize());
+        List<String> chunks = new ArrayList<>();
+        int start = 0;
+        while (start < answer.length()) {
+            int end = answer.offsetByCodePoints(start, Math.min(chunkSize, answer.codePointCount(start, answer.length())));
+            chunks.add(answer.substring(start, end));
+            start = end;
+        }
+        return Flux.fromIterable(chunks);
+    }
+
+    @EventListener
+    public void onKnowledgeChanged(KnowledgeChangedEvent event) {
+        localGeneration.incrementAndGet();
+        entries.invalidateAll();
+        try {
+            redisDao.increment(GENERATION_KEY);
+        } catch (Exception e) {
+            log.warn("更新语义缓存版本失败，其他实例的缓存将在过期后失效: {}", e.getMessage());
+        }
+    }
+
+    private boolean isCacheable(String question) {
+        return properties.isEnabled()
+                && StringUtils.hasText(question)
+                && question.length() <= properties.getMaxQuestionLength()
+                && !PERSONAL_PATTERN.matcher(question).find();
+    }
+
+    /**
+     * 当前知识库版本，优先读取 Redis 以便多实例一致，Redis 不可用时使用本地版本
+     */
+    private long currentGeneration() {
+        try {
+            String value = redisDao.getString(GENERATION_KEY);
+            return value != null ? Long.parseLong(value) : 0L;
+        } catch (Exception e) {
+            return -1 - localGeneration.get();
+        }
+    }
+
+    private static float[] normalize(float[] vector) {
+        double norm = 0;
+        for (float value : vector) {
+            norm += value * value;
+        }
+        norm = Math.sqrt(norm);
+        float[] normalized = new float[vector.length];
+        if (norm == 0) {
+            return normalized;
+        }
+        for (int i = 0; i < vector.length; i++) {
+            normalized[i] = (float) (vector[i] / norm);
+        }
+        return normalized;
+    }
+
+    private static double dot(float[] a, float[] b) {
+        double sum = 0;
+        for (int i = 0; i < a.length; i++) {
+            sum += a[i] * b[i];
+        }
+        return sum;
+    }
+
+    private record Entry(String question, float[] vector, String answer, long generation, LocalDate date) {
+    }
+}
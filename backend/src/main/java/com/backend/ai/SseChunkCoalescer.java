@@ -0,0 +1,127 @@
+package com.backend.ai;
+
+import com.backend.config.AiProperties;
+import org.springframework.stereotype.Component;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.FluxSink;
+import reactor.core.scheduler.Schedulers;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * SSE 分片合并
+ * 模型每个 token 单独推送会产生大量小帧和刷新；这里把 token 在一个很短的时间窗口内或攒到一定字节数后合并为一帧。
+ * 第一个分片总是立即推送，不增加首字延迟；流结束或出错前会先推送缓冲中的内容。
+ */
+@Component
+public class SseChunkCoalescer {
+
+    private final AiProperties.Coalesce properties;
+
+    public SseChunkCoalescer(AiProperties aiProperties) {
+        this.properties = aiProperties.getCoalesce();
+    }
+
+    /**
+     * @param tokens 模型输出的分片流
+     * @return 合并后的分片流，拼接结果与原流相同
+     */
+    public Flux<String> coalesce(Flux<String> tokens) {
+        if (!properties.isEnabled() || properties.getWindow().isZero()) {
+            return tokens;
+        }
+        return Flux.create(sink -> {
+            Buffer buffer = new Buffer(sink, properties.getWindow().toNanos(), properties.getMaxBytes());
+            Disposable upstream = tokens
+                    .contextWrite(context -> context.putAll(sink.contextView()))
+                    .subscribe(buffer::add, buffer::error, buffer::complete);
+            sink.onDispose(() -> {
+                upstream.dispose();
+                buffer.cancelTimer();
+            });
+        });
+    }
+
+    /**
+     * 单个流的合并缓冲区，上游回调与定时刷新可能在不同线程，统一在对象锁内处理
+     */
+    private static final class Buffer {
+        private final FluxSink<String> sink;
+        private final long windowNanos;
+        private final int maxBytes;
+        private final StringBuilder pending = new StringBuilder();
+        private int pendingBytes;
+        private boolean first = true;
+        private Disposable timer;
+
+        private Buffer(FluxSink<String> sink, long windowNanos, int maxBytes) {
+            this.sink = sink;
+            this.windowNanos = windowNanos;
+            this.maxBytes = maxBytes;
+        }
+
+        private synchronized void add(String token) {
+            if (first) {
+                first = false;
+                sink.next(token);
+                return;
+            }
+            pending.append(token);
+            pendingBytes += utf8Length(token);
+            if (pendingBytes >= maxBytes) {
+                flush();
+            } else if (timer == null) {
+                timer = Schedulers.parallel().schedule(this::flushOnTimer, windowNanos, TimeUnit.NANOSECONDS);
+            }
+        }
+
+        private synchronized void flushOnTimer() {
+            timer = null;
+            flush();
+        }
+
+        private synchronized void error(Throwable error) {
+            flush();
+            sink.error(error);
+        }
+
+        private synchronized void complete() {
+            flush();
+            sink.complete();
+        }
+
+        private synchronized void cancelTimer() {
+            if (timer != null) {
+                timer.dispose();
+                timer = null;
+            }
+        }
+
+        private void flush() {
+            cancelTimer();
+            if (pending.isEmpty()) {
+                return;
+            }
+            sink.next(pending.toString());
+            pending.setLength(0);
+            pendingBytes = 0;
+        }
+
+        private static int utf8Length(String text) {
+            int bytes = 0;
+            for (int i = 0; i < text.length(); i++) {
+                char c = text.charAt(i);
+                if (c < 0x80) {
+                    bytes++;
+                } else if (c < 0x800 || Character.isSurrogate(c)) {
+                    // 代理对两个 char 合计 4 字节
+                    bytes += 2;
+                } else {
+                    bytes += 3;
+                }
+            }
+            return bytes;
+        }
+    }
+}
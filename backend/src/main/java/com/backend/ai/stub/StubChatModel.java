@@ -0,0 +1,210 @@
+package com.backend.ai.stub;
+
+import com.backend.config.AiProperties;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.ai.chat.messages.Message;
+import org.springframework.ai.chat.messages.MessageType;
+import org.springframework.ai.chat.metadata.ChatResponseMetadata;
+import org.springframework.ai.chat.metadata.Usage;
+import org.springframework.ai.chat.model.ChatModel;
+import org.springframework.ai.chat.model.ChatResponse;
+import org.springframework.ai.chat.model.Generation;
+import org.springframework.ai.chat.prompt.ChatOptions;
+import org.springframework.ai.chat.prompt.ChatOptionsBuilder;
+import org.springframework.ai.chat.prompt.Prompt;
+import org.springframework.beans.factory.config.ConfigurableListableBeanFactory;
+import org.springframework.core.ResolvableType;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Function;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * 本地模拟对话模型，用于离线压测
+ * 回复内容由用户输入的哈希决定，相同输入得到相同回复；首字延迟和输出速率按配置模拟。
+ * 用户输入命中脚本规则时，按规则组装参数并调用 AiToolsConfig 中真实的工具函数，工具结果写入回复，
+ * 工具执行器、轮次上下文等路径与真实模型调用时一致。
+ */
+@Slf4j
+public class StubChatModel implements ChatModel {
+
+    public static final String MODEL = "smartair-stub";
+
+    /**
+     * 拼接回复用的句子，按输入哈希选择起始位置
+     */
+    private static final List<String> PHRASES = List.of(
+            "感谢您选择 SmartAir。",
+            "关于您咨询的问题，",
+            "请以航班订单中的信息为准。",
+            "退改签规则与舱位等级和购票时间有关。",
+            "托运行李额度以客票上的说明为准。",
+            "会员可在值机和登机时享受优先服务。",
+            "如需进一步帮助，请随时告诉我。",
+            "祝您旅途愉快！"
+    );
+
+    private final AiProperties.Stub properties;
+    private final ConfigurableListableBeanFactory beanFactory;
+    private final ObjectMapper objectMapper;
+    private final List<CompiledRule> rules;
+    private final Map<String, Class<?>> inputTypes = new ConcurrentHashMap<>();
+
+    public StubChatModel(AiProperties.Stub properties, ConfigurableListableBeanFactory beanFactory,
+                         ObjectMapper objectMapper) {
+        this.properties = properties;
+        this.beanFactory = beanFactory;
+        this.objectMapper = objectMapper;
+        this.rules = properties.getToolRules().stream()
+                .map(rule -> new CompiledRule(Pattern.compile(rule.getPattern()), rule.getFunction(), rule.getArguments()))
+                .toList();
+    }
+
+    @Override
+    public ChatResponse call(Prompt prompt) {
+        LockSupport.parkNanos(properties.getTimeToFirstToken().toNanos());
+        String answer = answer(userText(prompt));
+        return new ChatResponse(List.of(new Generation(answer)),
+                metadata(estimateTokens(prompt.getContents()), tokenize(answer).size()));
+    }
+
+    @Override
+    public Flux<ChatResponse> stream(Prompt prompt) {
+        String question = userText(prompt);
+        long promptTokens = estimateTokens(prompt.getContents());
+        // 工具函数会阻塞调用线程，放到弹性线程池执行，不占用定时器线程；handle 中会恢复轮次上下文
+        return Mono.delay(properties.getTimeToFirstToken())
+                .publishOn(Schedulers.boundedElastic())
+                .<String>handle((tick, sink) -> sink.next(answer(question)))
+                .flatMapMany(answer -> {
+                    List<String> tokens = tokenize(answer);
+                    int last = tokens.size() - 1;
+                    Flux<Integer> indexes = properties.getTokensPerSecond() > 0
+                            ? Flux.interval(Duration.ZERO, Duration.ofNanos(1_000_000_000L / properties.getTokensPerSecond()))
+                                    .take(tokens.size())
+                                    .map(Long::intValue)
+                            : Flux.range(0, tokens.size());
+                    // 与 DashScope 一致，用量随最后一个分片返回
+                    return indexes.map(i -> i == last
+                            ? new ChatResponse(List.of(new Generation(tokens.get(i))), metadata(promptTokens, tokens.size()))
+                            : new ChatResponse(List.of(new Generation(tokens.get(i)))));
+                });
+    }
+
+    @Override
+    public ChatOptions getDefaultOptions() {
+        return ChatOptionsBuilder.builder().build();
+    }
+
+    /**
+     * 取最后一条用户消息，检索增强注入的知识片段也在其中，不影响规则匹配
+     */
+    private static String userText(Prompt prompt) {
+        List<Message> messages = prompt.getInstructions();
+        for (int i = messages.size() - 1; i >= 0; i--) {
+            if (messages.get(i).getMessageType() == MessageType.USER) {
+                return messages.get(i).getContent();
+            }
+        }
+        return "";
+    }
+
+    private String answer(String question) {
+        StringBuilder answer = new StringBuilder("【模拟回复】");
+        for (CompiledRule rule : rules) {
+            Matcher matcher = rule.pattern().matcher(question);
+            if (matcher.find()) {
+                answer.append("已为您调用 ").append(rule.function()).append("，结果：")
+                        .append(invoke(rule, matcher)).append("。");
+            }
+        }
+        int target = answer.length() + properties.getAnswerLength();
+        int index = Math.floorMod(question.hashCode(), PHRASES.size());
+        while (answer.length() < target) {
+            answer.append(PHRASES.get(index++ % PHRASES.size()));
+        }
+        answer.setLength(target);
+        return answer.toString();
+    }
+
+    /**
+     * 按规则组装参数并调用工具函数，与框架的函数回调一样把结果序列化为 JSON
+     */
+    @SuppressWarnings("unchecked")
+    private String invoke(CompiledRule rule, Matcher matcher) {
+        String arguments = rule.arguments();
+        // 从大到小替换，避免 $1 先替换掉 $10 的前缀
+        for (int group = matcher.groupCount(); group >= 1; group--) {
+            String value = matcher.group(group);
+            arguments = arguments.replace("$" + group, value != null ? value : "");
+        }
+        try {
+            Function<Object, Object> function = (Function<Object, Object>) beanFactory.getBean(rule.function(), Function.class);
+            Object result = function.apply(objectMapper.readValue(arguments, inputType(rule.function())));
+            return result instanceof String text ? text : objectMapper.writeValueAsString(result);
+        } catch (JsonProcessingException e) {
+            throw new RuntimeException("模拟工具调用参数错误：" + rule.function() + " " + arguments, e);
+        }
+    }
+
+    /**
+     * 从 Bean 定义的泛型中解析工具函数的入参类型
+     */
+    private Class<?> inputType(String function) {
+        return inputTypes.computeIfAbsent(function, name -> {
+            ResolvableType type = beanFactory.getMergedBeanDefinition(name).getResolvableType().as(Function.class);
+            Class<?> inputType = type.getGeneric(0).resolve();
+            if (inputType == null) {
+                throw new RuntimeException("无法解析工具函数的入参类型：" + name);
+            }
+            return inputType;
+        });
+    }
+
+    private List<String> tokenize(String answer) {
+        int size = Math.max(1, properties.getCharsPerToken());
+        List<String> tokens = new ArrayList<>((answer.length() + size - 1) / size);
+        for (int i = 0; i < answer.length(); i += size) {
+            tokens.add(answer.substring(i, Math.min(answer.length(), i + size)));
+        }
+        return tokens;
+    }
+
+    private long estimateTokens(String text) {
+        int size = Math.max(1, properties.getCharsPerToken());
+        return text == null ? 0 : (text.length() + size - 1) / size;
+    }
+
+    private static ChatResponseMetadata metadata(long promptTokens, long generationTokens) {
+        return ChatResponseMetadata.builder()
+                .withModel(MODEL)
+                .withUsage(new StubUsage(promptTokens, generationTokens))
+                .build();
+    }
+
+    private record CompiledRule(Pattern pattern, String function, String arguments) {
+    }
+
+    private record StubUsage(long promptTokens, long generationTokens) implements Usage {
+        @Override
+        public Long getPromptTokens() {
+            return promptTokens;
+        }
+
+        @Override
+        public Long getGenerationTokens() {
+            return generationTokens;
+        }
+    }
+}
@@ -0,0 +1,92 @@
+package com.backend.ai.stub;
+
+import org.springframework.ai.document.Document;
+import org.springframework.ai.embedding.Embedding;
+import org.springframework.ai.embedding.EmbeddingModel;
+import org.springframework.ai.embedding.EmbeddingRequest;
+import org.springframework.ai.embedding.EmbeddingResponse;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * 本地模拟向量模型，用于离线压测
+ * 把文本的单字和相邻两字哈希到固定维度上累加后归一化（特征哈希），结果只由文本决定；
+ * 字面相近的文本得到相近的向量，知识库检索和语义缓存的命中行为与真实模型大致相当。
+ */
+public class StubEmbeddingModel implements EmbeddingModel {
+
+    private final int dimensions;
+
+    public StubEmbeddingModel(int dimensions) {
+        this.dimensions = dimensions;
+    }
+
+    @Override
+    public EmbeddingResponse call(EmbeddingRequest request) {
+        List<String> texts = request.getInstructions();
+        List<Embedding> embeddings = new ArrayList<>(texts.size());
+        for (int i = 0; i < texts.size(); i++) {
+            embeddings.add(new Embedding(embed(texts.get(i)), i));
+        }
+        return new EmbeddingResponse(embeddings);
+    }
+
+    @Override
+    public float[] embed(String text) {
+        float[] vector = new float[dimensions];
+        int[] codePoints = text == null ? new int[0] : text.toLowerCase(Locale.ROOT).codePoints()
+                .filter(c -> !Character.isWhitespace(c))
+                .toArray();
+        for (int i = 0; i < codePoints.length; i++) {
+            add(vector, mix(codePoints[i]));
+            if (i + 1 < codePoints.length) {
+                add(vector, mix(codePoints[i] * 31 + codePoints[i + 1] + 0x9E3779B9));
+            }
+        }
+        double norm = 0;
+        for (float value : vector) {
+            norm += value * value;
+        }
+        if (norm == 0) {
+            // 空文本固定为第一个维度上的单位向量，避免余弦相似度出现 NaN
+            vector[0] = 1;
+            return vector;
+        }
+        float scale = (float) (1 / Math.sqrt(norm));
+        for (int i = 0; i < vector.length; i++) {
+            vector[i] *= scale;
+        }
+        return vector;
+    }
+
+    @Override
+    public float[] embed(Document document) {
+        return embed(document.getContent());
+    }
+
+    @Override
+    public int dimensions() {
+        return dimensions;
+    }
+
+    /**
+     * 哈希的低位决定维度，最高位决定符号，减少哈希冲突带来的系统性偏差
+     */
+    private void add(float[] vector, int hash) {
+        vector[Math.floorMod(hash, dimensions)] += hash < 0 ? -1 : 1;
+    }
+
+    /**
+     * MurmurHash3 的 32 位终混函数
+     */
+    private static int mix(int h) {
+        h ^= h >>> 16;
+        h *= 0x85EBCA6B;
+        h ^= h >>> 13;
+        h *= 0xC2B2AE35;
+        h ^= h >>> 16;
+        return h;
+    }
+}
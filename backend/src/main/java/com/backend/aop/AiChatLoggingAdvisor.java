@@ -1,17 +0,0 @@
-package com.backend.aop;
-
-import org.springframework.ai.chat.client.AdvisedRequest;
-import org.springframework.ai.chat.client.RequestResponseAdvisor;
-
-import java.util.Map;
-
-public class AiChatLoggingAdvisor implements RequestResponseAdvisor {
-
-    @Override
-    public AdvisedRequest adviseRequest(AdvisedRequest request, Map<String, Object> context) {
-        // 日志记录逻辑
-        System.out.println("Request: " + request);
-        // 返回原始请求
-        return request;
-    }
-}
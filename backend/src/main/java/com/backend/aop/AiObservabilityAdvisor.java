@@ -0,0 +1,201 @@
+package com.backend.aop;
+
+import com.backend.ai.AiTurn;
+import com.backend.ai.AiTurnContext;
+import com.backend.config.AiProperties;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.ai.chat.client.AdvisedRequest;
+import org.springframework.ai.chat.client.RequestResponseAdvisor;
+import org.springframework.ai.chat.metadata.Usage;
+import org.springframework.ai.chat.model.ChatResponse;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.SignalType;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * AI 对话观测顾问
+ * 按轮次记录首字延迟、总生成时长、输入/输出 token 数、输出速率和工具调用次数，以 endpoint、outcome 为标签输出直方图；
+ * 单个工具的耗时由 AiToolExecutor 记录在 smartair.ai.tool 中。
+ * 提示词和回复只按采样率写入日志，且截断到配置的长度。
+ */
+@Slf4j
+@Component
+public class AiObservabilityAdvisor implements RequestResponseAdvisor {
+
+    /**
+     * 顾问参数：本轮所属接口，作为指标的 endpoint 标签
+     */
+    public static final String ENDPOINT_KEY = "smartair_observability_endpoint";
+
+    private static final String START_KEY = "smartair_observability_start";
+    private static final String TURN_KEY = "smartair_observability_turn";
+    private static final String SAMPLED_KEY = "smartair_observability_sampled";
+    private static final String DEFAULT_ENDPOINT = "chat";
+
+    private final MeterRegistry meterRegistry;
+    private final AiProperties.Observability properties;
+
+    public AiObservabilityAdvisor(MeterRegistry meterRegistry, AiProperties aiProperties) {
+        this.meterRegistry = meterRegistry;
+        this.properties = aiProperties.getObservability();
+    }
+
+    @Override
+    public AdvisedRequest adviseRequest(AdvisedRequest request, Map<String, Object> context) {
+        context.put(START_KEY, System.nanoTime());
+        AiTurn turn = AiTurnContext.current();
+        if (turn != null) {
+            context.put(TURN_KEY, turn);
+        }
+        if (ThreadLocalRandom.current().nextDouble() < properties.getSampleRate()) {
+            context.put(SAMPLED_KEY, Boolean.TRUE);
+            log.info("AI 对话采样 请求 endpoint={}, 系统提示长度={}, 用户输入={}",
+                    endpoint(context), request.systemText() != null ? request.systemText().length() : 0,
+                    truncate(request.userText()));
+        }
+        return request;
+    }
+
+    @Override
+    public ChatResponse adviseResponse(ChatResponse response, Map<String, Object> context) {
+        TurnStats stats = new TurnStats(context);
+        stats.onResponse(response);
+        stats.finish(context, "success");
+        return response;
+    }
+
+    @Override
+    public Flux<ChatResponse> adviseResponse(Flux<ChatResponse> responses, Map<String, Object> context) {
+        return Flux.defer(() -> {
+            TurnStats stats = new TurnStats(context);
+            return responses
+                    .doOnNext(stats::onResponse)
+                    .doFinally(signal -> stats.finish(context, outcome(signal)));
+        });
+    }
+
+    private static String outcome(SignalType signal) {
+        return switch (signal) {
+            case ON_COMPLETE -> "success";
+            case CANCEL -> "cancelled";
+            default -> "error";
+        };
+    }
+
+    private static String endpoint(Map<String, Object> context) {
+        Object endpoint = context.get(ENDPOINT_KEY);
+        return endpoint != null ? endpoint.toString() : DEFAULT_ENDPOINT;
+    }
+
+    private String truncate(String text) {
+        if (text == null || text.length() <= properties.getMaxLoggedChars()) {
+            return text;
+        }
+        return text.substring(0, properties.getMaxLoggedChars()) + "...(" + text.length() + " 字)";
+    }
+
+    /**
+     * 单轮的统计，流式响应的分片按顺序到达，不需要额外同步
+     */
+    private final class TurnStats {
+        private final long start;
+        private long firstTokenAt;
+        private long promptTokens;
+        private long generationTokens;
+        private final StringBuilder sampledText;
+
+        private TurnStats(Map<String, Object> context) {
+            this.start = context.get(START_KEY) instanceof Long startNanos ? startNanos : System.nanoTime();
+            this.sampledText = Boolean.TRUE.equals(context.get(SAMPLED_KEY)) ? new StringBuilder() : null;
+        }
+
+        private void onResponse(ChatResponse response) {
+            if (response == null) {
+                return;
+            }
+            if (firstTokenAt == 0) {
+                firstTokenAt = System.nanoTime();
+            }
+            // 流式响应中用量通常随最后一个分片返回，取最新的非零值
+            Usage usage = response.getMetadata() != null ? response.getMetadata().getUsage() : null;
+            if (usage != null) {
+                if (usage.getPromptTokens() != null && usage.getPromptTokens() > 0) {
+                    promptTokens = usage.getPromptTokens();
+                }
+                if (usage.getGenerationTokens() != null && usage.getGenerationTokens() > 0) {
+                    generationTokens = usage.getGenerationTokens();
+                }
+            }
+            if (sampledText != null && response.getResult() != null && response.getResult().getOutput() != null) {
+                String content = response.getResult().getOutput().getContent();
+                if (content != null && sampledText.length() < properties.getMaxLoggedChars()) {
+                    sampledText.append(content);
+                }
+            }
+        }
+
+        private void finish(Map<String, Object> context, String outcome) {
+            long end = System.nanoTime();
+            String endpoint = endpoint(context);
+            Duration total = Duration.ofNanos(end - start);
+
+            timer("smartair.ai.chat.duration", "单轮生成总时长", endpoint, outcome).record(total);
+            if (firstTokenAt != 0) {
+                timer("smartair.ai.chat.ttft", "首个分片到达的时间", endpoint, outcome)
+                        .record(Duration.ofNanos(firstTokenAt - start));
+            }
+            if (promptTokens > 0) {
+                summary("smartair.ai.chat.tokens", "单轮 token 数", "tokens", endpoint, outcome)
+                        .tag("direction", "in").register(meterRegistry).record(promptTokens);
+            }
+            if (generationTokens > 0) {
+                summary("smartair.ai.chat.tokens", "单轮 token 数", "tokens", endpoint, outcome)
+                        .tag("direction", "out").register(meterRegistry).record(generationTokens);
+                long generatingNanos = end - (firstTokenAt != 0 ? firstTokenAt : start);
+                if (generatingNanos > 0) {
+                    summary("smartair.ai.chat.tokens.rate", "首个分片之后的输出速率", "tokens/s", endpoint, outcome)
+                            .register(meterRegistry).record(generationTokens * 1e9 / generatingNanos);
+                }
+            }
+            AiTurn turn = context.get(TURN_KEY) instanceof AiTurn current ? current : null;
+            if (turn != null) {
+                summary("smartair.ai.chat.tool.calls", "单轮工具函数调用次数", null, endpoint, outcome)
+                        .register(meterRegistry).record(turn.getToolCalls());
+            }
+
+            if (sampledText != null) {
+                log.info("AI 对话采样 响应 endpoint={}, outcome={}, 耗时={}ms, 首字={}ms, tokens={}/{}, 工具调用={}, 回复={}",
+                        endpoint, outcome, total.toMillis(),
+                        firstTokenAt != 0 ? Duration.ofNanos(firstTokenAt - start).toMillis() : -1,
+                        promptTokens, generationTokens, turn != null ? turn.getToolCalls() : -1,
+                        truncate(sampledText.toString()));
+            }
+        }
+    }
+
+    private Timer timer(String name, String description, String endpoint, String outcome) {
+        return Timer.builder(name)
+                .description(description)
+                .tag("endpoint", endpoint)
+                .tag("outcome", outcome)
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+    }
+
+    private static DistributionSummary.Builder summary(String name, String description, String unit,
+                                                       String endpoint, String outcome) {
+        return DistributionSummary.builder(name)
+                .description(description)
+                .baseUnit(unit)
+                .tag("endpoint", endpoint)
+                .tag("outcome", outcome)
+                .publishPercentileHistogram();
+    }
+}
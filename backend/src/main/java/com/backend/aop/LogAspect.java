@@ -1,7 +1,7 @@
 package com.backend.aop;
 
-import com.backend.dao.mapper.SystemLogMapper;
 import com.backend.entity.SystemLog;
+import com.backend.log.SystemLogSink;
 import com.backend.util.JwtUtil;
 import io.jsonwebtoken.Claims;
 import lombok.extern.slf4j.Slf4j;
@@ -29,7 +29,7 @@ public class LogAspect {
     @Autowired
     private HttpServletRequest request;
     @Autowired
-    private SystemLogMapper systemLogMapper;
+    private SystemLogSink systemLogSink;
 
     // 默认系统用户ID，用于无法获取用户ID时使用
     private static final Long DEFAULT_USER_ID = 0L;
@@ -131,7 +131,7 @@ public class LogAspect {
 
         log.info("{}，控制器: {}.{}，耗时: {}ms", message, className, methodName, executionTime);
 
-        // 使用mapper直接记录日志
+        // 交给异步写入器批量落库
         SystemLog systemLog = new SystemLog();
         systemLog.setOperatorId(getCurrentUserId());
         systemLog.setClassName(className);
@@ -139,7 +139,7 @@ public class LogAspect {
         systemLog.setExecutionTime(executionTime);
         systemLog.setMessage(message);
         systemLog.setCreatedAt(LocalDateTime.now());
-        systemLogMapper.insert(systemLog);
+        systemLogSink.submit(systemLog);
 
         return result;
     }
@@ -248,14 +248,14 @@ public class LogAspect {
 
         log.error("异常发生: {}.{}, {}", className, methodName, message, e);
 
-        // 使用mapper直接记录日志
+        // 交给异步写入器批量落库
         SystemLog systemLog = new SystemLog();
         systemLog.setOperatorId(getCurrentUserId());
         systemLog.setClassName(className);
         systemLog.setMethodName(methodName);
         systemLog.setMessage(message);
         systemLog.setCreatedAt(LocalDateTime.now());
-        systemLogMapper.insert(systemLog);
+        systemLogSink.submit(systemLog);
     }
 
     /**
@@ -274,7 +274,7 @@ public class LogAspect {
 
         log.info("{}，方法: {}.{}，耗时: {}ms", operationDesc, className, methodName, executionTime);
 
-        // 使用mapper直接记录日志
+        // 交给异步写入器批量落库
         SystemLog systemLog = new SystemLog();
         systemLog.setOperatorId(getCurrentUserId());
         systemLog.setClassName(className);
@@ -282,7 +282,7 @@ public class LogAspect {
         systemLog.setExecutionTime(executionTime);
         systemLog.setMessage(message);
         systemLog.setCreatedAt(LocalDateTime.now());
-        systemLogMapper.insert(systemLog);
+        systemLogSink.submit(systemLog);
 
         return result;
     }
@@ -0,0 +1,443 @@
+package com.backend.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * AI 客服相关配置
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "app.ai")
+public class AiProperties {
+
+    /**
+     * 对话记忆配置
+     */
+    private Memory memory = new Memory();
+
+    /**
+     * 知识库检索增强配置
+     */
+    private Rag rag = new Rag();
+
+    /**
+     * 向量库配置
+     */
+    private VectorIndex vectorStore = new VectorIndex();
+
+    /**
+     * 向量化结果缓存配置
+     */
+    private EmbeddingCache embeddingCache = new EmbeddingCache();
+
+    /**
+     * 常见问题语义缓存配置
+     */
+    private AnswerCache answerCache = new AnswerCache();
+
+    /**
+     * 大模型调用网关配置
+     */
+    private Gateway gateway = new Gateway();
+
+    /**
+     * 工具函数执行配置
+     */
+    private Tools tools = new Tools();
+
+    /**
+     * AI 回复异步持久化配置
+     */
+    private ReplyPersistence replyPersistence = new ReplyPersistence();
+
+    /**
+     * 流式输出分片合并配置
+     */
+    private Coalesce coalesce = new Coalesce();
+
+    /**
+     * 流式响应连接配置
+     */
+    private Sse sse = new Sse();
+
+    /**
+     * 回复流续传配置
+     */
+    private Replay replay = new Replay();
+
+    /**
+     * 对话观测配置
+     */
+    private Observability observability = new Observability();
+
+    /**
+     * 本地模拟模型配置（stub profile）
+     */
+    private Stub stub = new Stub();
+
+    @Data
+    public static class Memory {
+        /**
+         * 记忆存储方式：redis / mongo / in-memory
+         */
+        private String store = "redis";
+
+        /**
+         * 每个会话保留的最大消息条数，超出后丢弃最早的消息
+         */
+        private int maxMessages = 100;
+
+        /**
+         * 会话记忆的过期时间，每次写入后重新计时
+         */
+        private Duration ttl = Duration.ofDays(1);
+
+        /**
+         * 本地近端缓存最多缓存的会话数
+         */
+        private long nearCacheSize = 1000;
+
+        /**
+         * 本地近端缓存的过期时间，多实例部署时决定其他实例写入的可见延迟
+         */
+        private Duration nearCacheTtl = Duration.ofSeconds(5);
+
+        /**
+         * mongo 存储时单个会话的记忆保留的最大消息条数，避免文档无限增长，0 表示不限制
+         * 只截断 chat_memory 集合中的记忆，不影响 conversations 中的会话记录
+         */
+        private int mongoMaxMessages = 2000;
+
+        /**
+         * 提示词中保留原文的历史消息的 token 预算，更早的消息由摘要代替
+         */
+        private int tokenBudget = 2000;
+
+        /**
+         * 滚动摘要的最大字数
+         */
+        private int summaryMaxLength = 500;
+    }
+
+    @Data
+    public static class Rag {
+        /**
+         * 每轮对话检索的知识片段数
+         */
+        private int topK = 4;
+
+        /**
+         * 相似度阈值，低于该值的片段不会注入提示词，0 表示不过滤
+         */
+        private double similarityThreshold = 0.0;
+
+        /**
+         * 知识文档切片的目标长度（token 数）
+         */
+        private int chunkSize = 400;
+    }
+
+    @Data
+    public static class VectorIndex {
+        /**
+         * 向量库实现：simple（进程内暴力检索，重启后重建）/ hnsw（HNSW 图索引，向量持久化到磁盘）
+         */
+        private String type = "simple";
+
+        /**
+         * hnsw 索引文件所在目录
+         */
+        private String path = "data/vector-store";
+
+        /**
+         * 每个节点在上层图中保留的邻居数，第 0 层为其两倍；已有索引以建立时的值为准
+         */
+        private int m = 16;
+
+        /**
+         * 插入时的候选集大小，越大建图质量越高、写入越慢
+         */
+        private int efConstruction = 200;
+
+        /**
+         * 检索时的候选集大小，越大召回率越高、检索越慢
+         */
+        private int efSearch = 64;
+    }
+
+    @Data
+    public static class EmbeddingCache {
+        /**
+         * 是否缓存向量化结果
+         */
+        private boolean enabled = true;
+
+        /**
+         * 向量模型标识，作为缓存键的一部分；更换模型时需同步修改，避免读到旧模型的向量
+         */
+        private String modelId = "text-embedding-v1";
+
+        /**
+         * 本地缓存最多保存的向量条数
+         */
+        private long localSize = 10000;
+
+        /**
+         * Redis 中向量的过期时间
+         */
+        private Duration ttl = Duration.ofDays(30);
+    }
+
+    @Data
+    public static class AnswerCache {
+        /**
+         * 是否启用语义缓存
+         */
+        private boolean enabled = true;
+
+        /**
+         * 命中所需的最低余弦相似度
+         */
+        private double similarityThreshold = 0.95;
+
+        /**
+         * 最多缓存的问答条数
+         */
+        private long maxEntries = 1000;
+
+        /**
+         * 缓存条目的过期时间
+         */
+        private Duration ttl = Duration.ofHours(6);
+
+        /**
+         * 超过该长度的问题不缓存，长问题通常带有个人情况描述
+         */
+        private int maxQuestionLength = 200;
+
+        /**
+         * 命中后按流式回放时每个分片的字符数
+         */
+        private int replayChunkSize = 16;
+    }
+
+    @Data
+    public static class Gateway {
+        /**
+         * 全局同时进行的模型调用数上限
+         */
+        private int maxConcurrent = 16;
+
+        /**
+         * 单个用户同时进行的模型调用数上限
+         */
+        private int maxPerUser = 2;
+
+        /**
+         * 等待队列长度上限，队列满时直接拒绝
+         */
+        private int maxQueue = 100;
+
+        /**
+         * 排队的最长等待时间，预计等不到或超时即拒绝
+         */
+        private Duration maxWait = Duration.ofSeconds(15);
+
+        /**
+         * 每个会员等级在排队时相当于提前到达的时间，等级越高越靠前，低等级用户等待足够久后仍会被调度
+         */
+        private Duration levelBoost = Duration.ofSeconds(2);
+    }
+
+    @Data
+    public static class Tools {
+        /**
+         * 同时执行的工具函数数量上限，超出时在调用线程中短暂等待，等不到则按超时处理
+         */
+        private int maxConcurrent = 8;
+
+        /**
+         * 是否在支持的 JDK（21+）上使用虚拟线程执行工具函数，否则使用有界弹性线程池
+         */
+        private boolean virtualThreads = true;
+
+        /**
+         * 工具函数默认超时时间
+         */
+        private Duration timeout = Duration.ofSeconds(5);
+
+        /**
+         * 按工具函数名单独设置的超时时间
+         */
+        private Map<String, Duration> timeouts = new HashMap<>();
+    }
+
+    @Data
+    public static class ReplyPersistence {
+        /**
+         * 是否由服务端在流结束后写入 AI 回复，关闭时需要客户端自行调用追加消息接口
+         */
+        private boolean enabled = true;
+
+        /**
+         * 待写入队列容量，队列满时丢弃新回复并计数
+         */
+        private int capacity = 10000;
+
+        /**
+         * 单次批量写入的最大回复数
+         */
+        private int batchSize = 100;
+
+        /**
+         * 未攒满一批时的最长等待时间
+         */
+        private Duration flushInterval = Duration.ofMillis(200);
+
+        /**
+         * 应用关闭时等待写完剩余回复的时间
+         */
+        private Duration shutdownTimeout = Duration.ofSeconds(5);
+    }
+
+    @Data
+    public static class Coalesce {
+        /**
+         * 是否合并模型输出的 token 后再推送
+         */
+        private boolean enabled = true;
+
+        /**
+         * 合并窗口，第一个分片之后的 token 最多缓冲这么久；为 0 时不合并
+         */
+        private Duration window = Duration.ofMillis(20);
+
+        /**
+         * 缓冲内容达到该字节数（UTF-8）时立即推送
+         */
+        private int maxBytes = 512;
+    }
+
+    @Data
+    public static class Sse {
+        /**
+         * 心跳间隔：长时间没有输出时发送 SSE 注释，及时发现已断开的客户端并取消模型调用
+         */
+        private Duration heartbeatInterval = Duration.ofSeconds(10);
+
+        /**
+         * 建议客户端断线后的重连间隔（SSE retry 字段）
+         */
+        private Duration retry = Duration.ofSeconds(1);
+    }
+
+    @Data
+    public static class Replay {
+        /**
+         * 是否记录回放日志，支持客户端带 Last-Event-ID 重连续传
+         */
+        private boolean enabled = true;
+
+        /**
+         * 单轮回复最多记录的分片数，超出后该轮不再支持续传
+         */
+        private int maxEvents = 4096;
+
+        /**
+         * 同时保留的回放日志数上限，超出时新的回复不记录日志
+         */
+        private int maxStreams = 10000;
+
+        /**
+         * 所有连接断开后继续生成、等待重连的时间，超时仍无人重连则取消生成
+         */
+        private Duration detachGrace = Duration.ofSeconds(30);
+
+        /**
+         * 生成完成后日志的保留时间
+         */
+        private Duration retention = Duration.ofSeconds(60);
+
+        /**
+         * 是否同步写入 Redis，多节点部署时重连可以落到其他节点
+         */
+        private boolean redisEnabled = false;
+
+        /**
+         * 从 Redis 续传时的轮询间隔
+         */
+        private Duration pollInterval = Duration.ofMillis(250);
+    }
+
+    @Data
+    public static class Observability {
+        /**
+         * 提示词和回复写入日志的采样率（0~1），指标不受采样影响
+         */
+        private double sampleRate = 0.01;
+
+        /**
+         * 采样日志中用户输入和回复的最大字符数
+         */
+        private int maxLoggedChars = 500;
+    }
+
+    @Data
+    public static class Stub {
+        /**
+         * 首个分片到达前的延迟
+         */
+        private Duration timeToFirstToken = Duration.ofMillis(300);
+
+        /**
+         * 首个分片之后每秒输出的 token 数
+         */
+        private int tokensPerSecond = 50;
+
+        /**
+         * 每个 token 包含的字符数
+         */
+        private int charsPerToken = 2;
+
+        /**
+         * 回复的字符数（不含工具结果）
+         */
+        private int answerLength = 200;
+
+        /**
+         * 模拟向量的维度
+         */
+        private int dimensions = 1536;
+
+        /**
+         * 脚本化的工具调用规则，按顺序匹配用户输入，命中的规则依次调用对应的工具函数
+         */
+        private List<ToolRule> toolRules = new ArrayList<>();
+    }
+
+    @Data
+    public static class ToolRule {
+        /**
+         * 匹配用户输入的正则表达式
+         */
+        private String pattern;
+
+        /**
+         * 工具函数名（AiToolsConfig 中的 Bean 名）
+         */
+        private String function;
+
+        /**
+         * 参数 JSON 模板，$1、$2 等替换为正则的分组
+         */
+        private String arguments = "{}";
+    }
+}
@@ -1,5 +1,7 @@
 package com.backend.config;
 
+import com.backend.ai.AiToolExecutor;
+import com.backend.ai.AiTurnContext;
 import com.backend.entity.FlightOrder;
 import com.backend.service.AiService;
 import com.backend.service.FlightOrderService;
@@ -18,6 +20,8 @@ public class AiToolsConfig {
     AiService aiService;
     @Autowired
     FlightOrderService flightOrderService;
+    @Autowired
+    AiToolExecutor toolExecutor;
 
     public record CancelFlightOrderRequest(Long orderId, String name) {
     }
@@ -32,8 +36,12 @@ public class AiToolsConfig {
     @Description("处理航班订单/机票退订")
     public Function<CancelFlightOrderRequest, String> cancelFlightOrder() {
         return cancelFlightOrderRequest -> {
-            aiService.cancelFlightOrder(cancelFlightOrderRequest.orderId, cancelFlightOrderRequest.name);
-            return "退订成功！";
+            AiTurnContext.markToolInvoked();
+            // 退订不可重复执行，开始后不因超时或客户端断开而中断，如实返回执行结果
+            return toolExecutor.executeToCompletion("cancelFlightOrder", () -> {
+                aiService.cancelFlightOrder(cancelFlightOrderRequest.orderId, cancelFlightOrderRequest.name);
+                return "退订成功！";
+            });
         };
     }
 
@@ -41,8 +49,10 @@ public class AiToolsConfig {
     @Description("获取航班订单/机票预定详细信息")
     public Function<FlightOrderDetailRequest, FlightOrderDetail> getFlightOrderDetail() {
         return request -> {
+            AiTurnContext.markToolInvoked();
             try {
-                return flightOrderService.getOrderDetailById(request.orderId);
+                return toolExecutor.execute("getFlightOrderDetail",
+                        () -> flightOrderService.getOrderDetailById(request.orderId));
             } catch (Exception e) {
                 return new FlightOrderDetail(request.orderId(), null, null, null, null, request.name(),
                         null, null, null, null, null, null, null, null, null, null, null);
@@ -54,8 +64,10 @@ public class AiToolsConfig {
     @Description("获取用户所有已预定的航班")
     public Function<FinishedFlightOrderDetailsRequest, List<FlightOrderDetail>> getFinishedFlightOrderDetails() {
         return request -> {
+            AiTurnContext.markToolInvoked();
             try {
-                return flightOrderService.getFlightOrderDetailsByName(request.realName());
+                return toolExecutor.execute("getFinishedFlightOrderDetails",
+                        () -> flightOrderService.getFlightOrderDetailsByName(request.realName()));
             } catch (Exception e) {
                 return List.of();
             }
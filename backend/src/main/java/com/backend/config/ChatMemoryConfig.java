@@ -1,14 +1,57 @@
 package com.backend.config;
 
+import com.backend.dao.redis.RedisDao;
+import com.backend.memory.ConversationSummaryStore;
+import com.backend.memory.LocalChatMemory;
+import com.backend.memory.MongoChatMemory;
+import com.backend.memory.RedisChatMemory;
+import com.backend.memory.TokenBudgetChatMemoryAdvisor;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import org.springframework.ai.chat.memory.ChatMemory;
-import org.springframework.ai.chat.memory.InMemoryChatMemory;
+import org.springframework.ai.chat.model.ChatModel;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.data.mongodb.core.MongoTemplate;
 
 @Configuration
 public class ChatMemoryConfig {
+
+    /**
+     * 默认使用 Redis 保存对话记忆，支持多实例部署
+     */
     @Bean
-    public ChatMemory chatMemory() {
-        return new InMemoryChatMemory();
+    @ConditionalOnProperty(prefix = "app.ai.memory", name = "store", havingValue = "redis", matchIfMissing = true)
+    public ChatMemory redisChatMemory(RedisDao redisDao, ObjectMapper objectMapper, AiProperties aiProperties) {
+        return new RedisChatMemory(redisDao, objectMapper, aiProperties.getMemory());
+    }
+
+    /**
+     * 直接写入 conversations 集合，与会话记录共用同一份数据
+     */
+    @Bean
+    @ConditionalOnProperty(prefix = "app.ai.memory", name = "store", havingValue = "mongo")
+    public ChatMemory mongoChatMemory(MongoTemplate mongoTemplate, AiProperties aiProperties) {
+        return new MongoChatMemory(mongoTemplate, aiProperties.getMemory());
+    }
+
+    /**
+     * 单机调试用的进程内记忆，按会话隔离，空闲过期后回收，重启后丢失
+     */
+    @Bean
+    @ConditionalOnProperty(prefix = "app.ai.memory", name = "store", havingValue = "in-memory")
+    public ChatMemory inMemoryChatMemory(AiProperties aiProperties) {
+        return new LocalChatMemory(aiProperties.getMemory());
+    }
+
+    /**
+     * 按 token 预算注入记忆，较早的消息由后台生成的滚动摘要代替
+     */
+    @Bean(destroyMethod = "shutdown")
+    public TokenBudgetChatMemoryAdvisor tokenBudgetChatMemoryAdvisor(ChatMemory chatMemory,
+                                                                     ConversationSummaryStore summaryStore,
+                                                                     ChatModel chatModel,
+                                                                     AiProperties aiProperties) {
+        return new TokenBudgetChatMemoryAdvisor(chatMemory, summaryStore, chatModel, aiProperties.getMemory());
     }
 }
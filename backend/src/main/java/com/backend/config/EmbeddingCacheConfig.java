@@ -0,0 +1,34 @@
+package com.backend.config;
+
+import com.backend.dao.redis.RedisDao;
+import com.backend.embedding.CachingEmbeddingModel;
+import org.springframework.ai.embedding.EmbeddingModel;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+public class EmbeddingCacheConfig {
+
+    /**
+     * 用缓存包装自动配置的向量模型，向量库和知识库索引拿到的都是带缓存的实例
+     * 依赖通过 ObjectProvider 延迟获取，避免后处理器过早初始化 Redis 等 Bean
+     */
+    @Bean
+    public static BeanPostProcessor cachingEmbeddingModelPostProcessor(ObjectProvider<RedisDao> redisDao,
+                                                                        ObjectProvider<AiProperties> aiProperties) {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (bean instanceof EmbeddingModel embeddingModel && !(bean instanceof CachingEmbeddingModel)) {
+                    AiProperties.EmbeddingCache properties = aiProperties.getObject().getEmbeddingCache();
+                    if (properties.isEnabled()) {
+                        return new CachingEmbeddingModel(embeddingModel, redisDao.getObject(), properties);
+                    }
+                }
+                return bean;
+            }
+        };
+    }
+}
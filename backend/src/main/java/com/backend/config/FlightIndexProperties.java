@@ -0,0 +1,30 @@
+package com.backend.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+/**
+ * 航班内存索引配置
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "app.flight-index")
+public class FlightIndexProperties {
+    /**
+     * 是否启用内存索引，关闭时航班搜索始终查询数据库
+     */
+    private boolean enabled = false;
+
+    /**
+     * 与数据库比对签名（行数、最近更新时间）的间隔，发现不一致时标记过期并重建
+     */
+    private Duration verifyInterval = Duration.ofSeconds(30);
+
+    /**
+     * 定期全量重建的间隔
+     */
+    private Duration rebuildInterval = Duration.ofMinutes(30);
+}
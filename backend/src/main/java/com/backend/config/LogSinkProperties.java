@@ -0,0 +1,61 @@
+package com.backend.config;
+
+import com.backend.log.OverflowPolicy;
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+/**
+ * 系统日志异步写入配置
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "app.log-sink")
+public class LogSinkProperties {
+    /**
+     * 是否启用异步批量写入，关闭时退化为请求线程内同步插入
+     */
+    private boolean enabled = true;
+
+    /**
+     * 环形缓冲区容量，会向上取整为2的幂
+     */
+    private int capacity = 8192;
+
+    /**
+     * 单次批量插入的最大行数
+     */
+    private int batchSize = 200;
+
+    /**
+     * 缓冲区未攒满时的最长刷新间隔
+     */
+    private Duration flushInterval = Duration.ofSeconds(1);
+
+    /**
+     * 缓冲区满时的处理策略
+     */
+    private OverflowPolicy overflowPolicy = OverflowPolicy.DROP;
+
+    /**
+     * SAMPLE 策略下的采样比例：超过水位线后每 N 条保留 1 条
+     */
+    private int sampleRate = 10;
+
+    /**
+     * SAMPLE 策略开始采样的水位线（占容量的比例）
+     */
+    private double sampleWatermark = 0.75;
+
+    /**
+     * BLOCK 策略下请求线程最长等待时间，超时后丢弃
+     */
+    private Duration blockTimeout = Duration.ofMillis(50);
+
+    /**
+     * 应用关闭时等待后台线程退出的时间
+     */
+    private Duration shutdownTimeout = Duration.ofSeconds(5);
+}
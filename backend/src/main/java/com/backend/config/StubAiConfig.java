@@ -0,0 +1,35 @@
+package com.backend.config;
+
+import com.backend.ai.stub.StubChatModel;
+import com.backend.ai.stub.StubEmbeddingModel;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.ai.chat.model.ChatModel;
+import org.springframework.ai.embedding.EmbeddingModel;
+import org.springframework.beans.factory.config.ConfigurableListableBeanFactory;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.context.annotation.Profile;
+
+/**
+ * 离线压测用的模拟模型（--spring.profiles.active=stub）
+ * 以 @Primary 覆盖 DashScope 自动配置的模型，对话客户端、对话记忆摘要、向量库和语义缓存都注入模拟实现，
+ * 不访问网络、不产生费用；配置见 application-stub.yml
+ */
+@Configuration
+@Profile("stub")
+public class StubAiConfig {
+
+    @Bean
+    @Primary
+    public ChatModel stubChatModel(AiProperties aiProperties, ConfigurableListableBeanFactory beanFactory,
+                                   ObjectMapper objectMapper) {
+        return new StubChatModel(aiProperties.getStub(), beanFactory, objectMapper);
+    }
+
+    @Bean
+    @Primary
+    public EmbeddingModel stubEmbeddingModel(AiProperties aiProperties) {
+        return new StubEmbeddingModel(aiProperties.getStub().getDimensions());
+    }
+}
@@ -1,15 +1,31 @@
 package com.backend.config;
 
+import com.backend.vectorstore.HnswVectorStore;
 import org.springframework.ai.embedding.EmbeddingModel;
 import org.springframework.ai.vectorstore.SimpleVectorStore;
 import org.springframework.ai.vectorstore.VectorStore;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
 @Configuration
 public class VectorStoreConfig {
+
+    /**
+     * 进程内暴力检索，重启后由知识库重新向量化，适合知识量较小的场景
+     */
     @Bean
+    @ConditionalOnProperty(prefix = "app.ai.vector-store", name = "type", havingValue = "simple", matchIfMissing = true)
     public VectorStore vectorStore(EmbeddingModel embeddingModel) {
         return new SimpleVectorStore(embeddingModel);
     }
+
+    /**
+     * HNSW 近似最近邻索引，向量保存在磁盘映射文件中，重启后直接加载
+     */
+    @Bean
+    @ConditionalOnProperty(prefix = "app.ai.vector-store", name = "type", havingValue = "hnsw")
+    public VectorStore hnswVectorStore(EmbeddingModel embeddingModel, AiProperties aiProperties) {
+        return new HnswVectorStore(embeddingModel, aiProperties.getVectorStore());
+    }
 }
@@ -4,9 +4,13 @@ import com.backend.common.Result;
 import com.backend.common.enumeration.ResultCode;
 import com.backend.entity.User;
 import com.backend.service.UserService;
+import com.backend.util.CursorPageHelper;
+import com.backend.util.NdjsonExporter;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 /**
  * 管理员用户控制器
@@ -89,4 +93,30 @@ public class AdminUserController {
             return Result.error("用户信息更新失败，请稍后重试");
         }
     }
+
+    /**
+     * 游标分页获取账号列表（不含密码）
+     *
+     * @param cursor 上一页返回的 nextCursor，首页不传
+     * @param size 每页条数（1-100）
+     * @return 账号列表（不含密码）分页
+     */
+    @GetMapping("/page")
+    public Result pageUsers(@RequestParam(required = false) Long cursor,
+                            @RequestParam(defaultValue = "20") Integer size) {
+        if (!CursorPageHelper.isValidSize(size)) {
+            return Result.error(ResultCode.PARAM_ERROR, "每页条数必须在1到" + CursorPageHelper.MAX_PAGE_SIZE + "之间");
+        }
+        return Result.success(userService.pageByCursor(cursor, size));
+    }
+
+    /**
+     * 以 NDJSON 格式流式导出账号列表（不含密码），每行一条记录
+     *
+     * @return NDJSON 文件流
+     */
+    @GetMapping("/export")
+    public ResponseEntity<StreamingResponseBody> exportUsers() {
+        return NdjsonExporter.response("users.ndjson", userService::exportAll);
+    }
 }
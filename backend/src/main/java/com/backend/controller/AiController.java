@@ -1,21 +1,45 @@
 package com.backend.controller;
 
-import com.backend.aop.AiChatLoggingAdvisor;
+import com.backend.ai.AiGateway;
+import com.backend.ai.AiGatewayRejectedException;
+import com.backend.ai.AiTurn;
+import com.backend.ai.AiTurnContext;
+import com.backend.ai.ConversationWriteBehindQueue;
+import com.backend.ai.ResumableStreamRegistry;
+import com.backend.ai.SemanticAnswerCache;
+import com.backend.ai.SseChunkCoalescer;
+import com.backend.aop.AiObservabilityAdvisor;
+import com.backend.config.AiProperties;
+import com.backend.entity.User;
+import com.backend.memory.TokenBudgetChatMemoryAdvisor;
+import com.backend.service.UserService;
+import com.backend.util.JwtUtil;
+import io.jsonwebtoken.Claims;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
 import org.springframework.ai.chat.client.ChatClient;
 import org.springframework.ai.chat.client.advisor.AbstractChatMemoryAdvisor;
-import org.springframework.ai.chat.client.advisor.PromptChatMemoryAdvisor;
 import org.springframework.ai.chat.client.advisor.QuestionAnswerAdvisor;
 import org.springframework.ai.chat.memory.ChatMemory;
+import org.springframework.ai.chat.messages.AssistantMessage;
+import org.springframework.ai.chat.messages.UserMessage;
 import org.springframework.ai.vectorstore.SearchRequest;
 import org.springframework.ai.vectorstore.VectorStore;
 import org.springframework.http.MediaType;
+import org.springframework.http.codec.ServerSentEvent;
+import org.springframework.util.StringUtils;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 import reactor.core.publisher.Flux;
 
+import java.time.Duration;
 import java.time.LocalDate;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
 
 
 /**
@@ -24,10 +48,70 @@ import java.time.LocalDate;
 @RestController
 @RequestMapping("/api/ai")
 public class AiController {
+    /**
+     * 检索到的知识片段注入用户消息时使用的模板，{question_answer_context} 会被替换为片段内容
+     */
+    private static final String KNOWLEDGE_ADVISE = """
+
+            以下是从 SmartAir 知识库中检索到的相关内容：
+            ---------------------
+            {question_answer_context}
+            ---------------------
+            回答航空公司政策相关的问题时只能依据上述内容，内容中没有的信息请如实告知用户无法回答；
+            查询、取消订单等操作请使用提供的工具完成。
+            """;
+
+    /**
+     * 未指定会话时使用的一次性记忆ID前缀
+     */
+    private static final String EPHEMERAL_PREFIX = "ephemeral:";
+
+    /**
+     * 网关拒绝请求时返回给用户的提示
+     */
+    private static final String BUSY_REPLY = "当前咨询人数较多，请稍后再试。";
+
+    /**
+     * 回复结束标记，前端收到后关闭连接
+     */
+    private static final String COMPLETE = "[complete]";
+
     private final ChatClient chatClient;
-    private final VectorStore vectorStore;
+    private final ChatMemory chatMemory;
+    private final int memoryRetrieveSize;
+    private final SemanticAnswerCache answerCache;
+    private final AiGateway gateway;
+    private final UserService userService;
+    private final ConversationWriteBehindQueue conversationWriter;
+    private final SseChunkCoalescer coalescer;
+    private final ResumableStreamRegistry streamRegistry;
+    private final Duration heartbeatInterval;
+    private final Duration reconnectDelay;
+    private final Counter abandonedModelCounter;
+    private final Counter abandonedCacheCounter;
 
-    public AiController(ChatClient.Builder chatClientBuilder, ChatMemory chatMemory, VectorStore vectorStore) {
+    public AiController(ChatClient.Builder chatClientBuilder, ChatMemory chatMemory, VectorStore vectorStore,
+                        AiProperties aiProperties, SemanticAnswerCache answerCache,
+                        TokenBudgetChatMemoryAdvisor memoryAdvisor, AiGateway gateway, UserService userService,
+                        ConversationWriteBehindQueue conversationWriter, SseChunkCoalescer coalescer,
+                        ResumableStreamRegistry streamRegistry, AiObservabilityAdvisor observabilityAdvisor,
+                        MeterRegistry meterRegistry) {
+        this.chatMemory = chatMemory;
+        this.answerCache = answerCache;
+        this.gateway = gateway;
+        this.userService = userService;
+        this.conversationWriter = conversationWriter;
+        this.coalescer = coalescer;
+        this.streamRegistry = streamRegistry;
+        this.heartbeatInterval = aiProperties.getSse().getHeartbeatInterval();
+        this.reconnectDelay = aiProperties.getSse().getRetry();
+        this.abandonedModelCounter = abandonedCounter(meterRegistry, "model");
+        this.abandonedCacheCounter = abandonedCounter(meterRegistry, "cache");
+        this.memoryRetrieveSize = aiProperties.getMemory().getMaxMessages();
+        AiProperties.Rag rag = aiProperties.getRag();
+        SearchRequest searchRequest = SearchRequest.defaults()
+                .withTopK(rag.getTopK())
+                .withSimilarityThreshold(rag.getSimilarityThreshold());
         this.chatClient = chatClientBuilder.defaultSystem(
             """
                 你是“SmartAir”航空公司的客户聊天支持代理。请以友好、乐于助人且愉快的方式来回复。
@@ -37,37 +121,143 @@ public class AiController {
                 在更改或退订之前，请先获取预订信息并且用户确定信息。
                 请讲中文。
                 今天的日期是 {current_date}。
-                此外我这里有一份“SmartAir”航空公司的知识库文档，你可以使用这些信息来回答用户的问题。但是特别注意，没提供给你的信息不能够胡编乱造！！！
-                🧠 SmartAir 航空公司知识库文档（整合版）
-                1. 购票指南
-                SmartAir提供多种便捷的购票渠道，包括官网、移动App、微信小程序及各大授权旅行平台。购票时请准确填写乘机人姓名、证件号码（身份证、护照等），确保信息无误。支持的支付方式包括支付宝、微信、银联、Visa/Master信用卡等。购票完成后，用户将收到电子行程单、短信通知及乘机提醒。
-                2. 航班信息查询
-                用户可通过SmartAir官网、App或客服电话实时查询航班动态，包括起飞时间、登机口、航站楼信息等。航班信息可能因天气、空管等原因临时调整，请在出行当天密切关注航班状态。通常登机口信息会在起飞前1小时内确定，请提前到达机场办理值机手续。
-                3. 退改签政策
-                退改签规则依票种而定。一般经济舱机票支持起飞前48小时免费改签一次，起飞前24小时内退票需收取30%票面价格作为退票手续费。部分特惠票、促销票不支持退票或改签。用户可通过官网、App或客服申请退改签服务。退票金额将原路退回，到账时间视支付渠道而定。
-                4. 行李规定
-                经济舱旅客可免费托运1件行李，总重量不超过20kg；公务舱旅客免费额度为30kg。手提行李限1件，不超过7kg，尺寸不得超过55cm×40cm×20cm。超重、超件或超尺寸行李需支付相应的超规费用。禁止托运物品包括易燃易爆品、锂电池等危险品。建议贵重物品随身携带。
-                5. 会员服务
-                SmartAir设有五个会员等级：普通会员、白银会员、黄金会员、白金会员和钻石会员。会员可享受优先值机、额外行李额度、专属客服通道、机票折扣等权益。积分可通过购票、签到、活动累积，用于兑换机票、座位升级、商城礼品等。等级评定依据年度消费金额与飞行里程，钻石会员为最高等级，享受全方位尊贵服务。
+                涉及购票、退改签、行李、会员等航空公司政策的问题，只能依据系统提供的知识库内容回答，没提供给你的信息不能够胡编乱造！！！
                 """
                 )
                 .defaultAdvisors(
-                        new PromptChatMemoryAdvisor(chatMemory),
-                        new AiChatLoggingAdvisor()
+                        memoryAdvisor,
+                        new QuestionAnswerAdvisor(vectorStore, searchRequest, KNOWLEDGE_ADVISE),
+                        observabilityAdvisor
                 )
                 .defaultFunctions("cancelFlightOrder","getFlightOrderDetail","getFinishedFlightOrderDetails")
                 .build();
-        this.vectorStore = vectorStore;
     }
 
     @GetMapping(value = "/generateStreamAsString", produces = MediaType.TEXT_EVENT_STREAM_VALUE + ";charset=UTF-8")
-    public Flux<String> generateStreamAsString(@RequestParam(value = "message", defaultValue = "讲个笑话") String message) {
-         Flux<String> content = this.chatClient.prompt()
-                 .user(message)
-                 .system(promptSystemSpec -> promptSystemSpec.param("current_date", LocalDate.now().toString()))
-                 .advisors(advisorSpec -> advisorSpec.param(AbstractChatMemoryAdvisor.CHAT_MEMORY_RETRIEVE_SIZE_KEY, 100))
-                 .stream()
-                 .content();
-        return content.concatWith(Flux.just("[complete]"));
+    public Flux<ServerSentEvent<String>> generateStreamAsString(@RequestParam(value = "message", defaultValue = "讲个笑话") String message,
+                                                                @RequestParam(value = "conversationId", required = false) String conversationId,
+                                                                @RequestHeader(value = "token", required = false) String tokenHeader,
+                                                                @RequestParam(value = "token", required = false) String tokenParam,
+                                                                @RequestParam(value = "turnId", required = false) String turnId,
+                                                                @RequestHeader(value = "Last-Event-ID", required = false) Long lastEventId) {
+        // 断线重连：从回放日志续传，不重新调用模型；日志已不可用时重新生成，事件ID从 1 重新开始
+        if (StringUtils.hasText(turnId) && lastEventId != null) {
+            Optional<Flux<ResumableStreamRegistry.StreamChunk>> resumed = streamRegistry.resume(turnId, lastEventId);
+            if (resumed.isPresent()) {
+                return toEvents(resumed.get());
+            }
+        }
+
+        // 对话记忆按会话隔离；未传会话ID时使用一次性ID，不读取也不污染其他用户的记忆
+        String memoryId = StringUtils.hasText(conversationId) ? conversationId : EPHEMERAL_PREFIX + UUID.randomUUID();
+        AiTurn turn = new AiTurn(message);
+        Flux<String> reply;
+        Counter abandonedCounter;
+        // 语义缓存只用于会话的第一轮：追问（如“那退票呢？”）的含义依赖上文，不能复用其他会话的回答
+        boolean firstTurn = !StringUtils.hasText(conversationId) || chatMemory.get(memoryId, 1).isEmpty();
+        Optional<String> cached = firstTurn ? answerCache.lookup(turn) : Optional.empty();
+        if (cached.isPresent()) {
+            // 命中缓存时不经过模型，手动写入对话记忆，保证后续追问的上下文完整
+            chatMemory.add(memoryId, List.of(new UserMessage(message), new AssistantMessage(cached.get())));
+            reply = answerCache.replay(cached.get());
+            abandonedCounter = abandonedCacheCounter;
+        } else {
+            StringBuilder answer = new StringBuilder();
+            // 只有真正调用模型的请求经过网关排队，缓存命中不占用并发名额
+            // 排队权重和单用户限流只认登录令牌中的用户，不信任客户端传入的用户ID
+            Long userId = currentUserId(StringUtils.hasText(tokenHeader) ? tokenHeader : tokenParam);
+            String userKey = userId != null ? "user:" + userId : "conversation:" + memoryId;
+            Flux<String> content = gateway.stream(userKey, memberLevel(userId), () -> this.chatClient.prompt()
+                            .user(message)
+                            .system(promptSystemSpec -> promptSystemSpec.param("current_date", LocalDate.now().toString()))
+                            .advisors(advisorSpec -> advisorSpec
+                                    .param(AbstractChatMemoryAdvisor.CHAT_MEMORY_CONVERSATION_ID_KEY, memoryId)
+                                    .param(AbstractChatMemoryAdvisor.CHAT_MEMORY_RETRIEVE_SIZE_KEY, memoryRetrieveSize)
+                                    .param(AiObservabilityAdvisor.ENDPOINT_KEY, "generateStreamAsString"))
+                            .stream()
+                            .content())
+                    .doOnNext(answer::append)
+                    .doOnComplete(() -> answerCache.store(turn, answer.toString()))
+                    .contextWrite(AiTurnContext.of(turn));
+            reply = coalescer.coalesce(content);
+            abandonedCounter = abandonedModelCounter;
+        }
+
+        // 生成与连接解耦：连接断开后在宽限期内等待重连，无人重连才取消模型调用和工具函数
+        boolean resumable = StringUtils.hasText(turnId);
+        String streamId = resumable ? turnId : UUID.randomUUID().toString();
+        // 网关拒绝时的提示在写入会话之后再补上，只提示当前客户端，不作为 AI 回复保存
+        Flux<String> persisted = persistOnComplete(conversationId, reply)
+                .onErrorResume(AiGatewayRejectedException.class, e -> Flux.just(BUSY_REPLY));
+        Flux<ResumableStreamRegistry.StreamChunk> chunks = streamRegistry.start(streamId, resumable, persisted, () -> {
+            turn.cancel();
+            abandonedCounter.increment();
+        });
+        return toEvents(chunks);
+    }
+
+    /**
+     * 转为带序号的 SSE 事件，并在等待期间（排队、工具调用、模型思考）定时发送注释心跳：
+     * 客户端断开后下一次写入即失败，MVC 随之取消订阅，连接从回放日志上断开
+     */
+    private Flux<ServerSentEvent<String>> toEvents(Flux<ResumableStreamRegistry.StreamChunk> chunks) {
+        Flux<ServerSentEvent<String>> events = chunks
+                .map(chunk -> ServerSentEvent.builder(chunk.text()).id(String.valueOf(chunk.id())).build())
+                .concatWith(Flux.just(ServerSentEvent.builder(COMPLETE).build()));
+        Flux<ServerSentEvent<String>> heartbeats = Flux.interval(heartbeatInterval)
+                .map(tick -> ServerSentEvent.<String>builder().comment("heartbeat").build());
+        ServerSentEvent<String> connected = ServerSentEvent.<String>builder().retry(reconnectDelay).comment("connected").build();
+        return events.mergeWith(heartbeats)
+                .startWith(connected)
+                .takeUntil(event -> COMPLETE.equals(event.data()));
+    }
+
+    /**
+     * 回复一边推送给客户端一边拼接，流正常结束后把完整回复交给后台队列写入会话，客户端不必再调用追加接口
+     */
+    private Flux<String> persistOnComplete(String conversationId, Flux<String> reply) {
+        if (!StringUtils.hasText(conversationId) || !conversationWriter.isEnabled()) {
+            return reply;
+        }
+        StringBuilder text = new StringBuilder();
+        return reply.doOnNext(text::append)
+                .doOnComplete(() -> conversationWriter.submit(conversationId, text.toString()));
+    }
+
+    private static Counter abandonedCounter(MeterRegistry meterRegistry, String source) {
+        return Counter.builder("smartair.ai.stream.abandoned")
+                .description("客户端断开或超时导致中途取消的回复数")
+                .tag("source", source)
+                .register(meterRegistry);
+    }
+
+    /**
+     * 从登录令牌解析当前用户ID
+     * EventSource 无法设置请求头，SSE 连接的令牌通过 token 查询参数传递
+     *
+     * @return 未携带令牌或令牌无效时返回 null
+     */
+    private static Long currentUserId(String jwt) {
+        if (!StringUtils.hasText(jwt)) {
+            return null;
+        }
+        try {
+            Claims claims = JwtUtil.parseJWT(jwt);
+            return claims != null && claims.get("userId") != null ? Long.parseLong(claims.get("userId").toString()) : null;
+        } catch (Exception e) {
+            // 令牌无效或已过期时按未登录处理
+            return null;
+        }
+    }
+
+    /**
+     * 查询用户会员等级作为排队权重，未登录或查询不到时为 0
+     */
+    private int memberLevel(Long userId) {
+        if (userId == null) {
+            return 0;
+        }
+        User user = userService.mapByIds(List.of(userId)).get(userId);
+        return user != null && user.getMemberLevel() != null ? user.getMemberLevel() : 0;
     }
 }
@@ -5,9 +5,13 @@ import com.backend.common.enumeration.ResultCode;
 import com.backend.entity.ConversationDocument;
 import com.backend.entity.ConversationIndex;
 import com.backend.service.ConversationIntegratedService;
+import com.backend.util.CursorPageHelper;
+import com.backend.util.NdjsonExporter;
 import lombok.RequiredArgsConstructor;
 import org.springframework.context.annotation.Primary;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.util.List;
 import java.util.Map;
@@ -251,4 +255,30 @@ public class ConversationIntegratedController {
         List<ConversationIndex> conversations = conversationService.listAllConversations();
         return Result.success(conversations);
     }
-} 
\ No newline at end of file
+
+    /**
+     * 游标分页获取所有会话（管理员使用）
+     *
+     * @param cursor 上一页返回的 nextCursor，首页不传
+     * @param size 每页条数（1-100）
+     * @return 所有会话（管理员使用）分页
+     */
+    @GetMapping("/admin/page")
+    public Result pageAllConversations(@RequestParam(required = false) Long cursor,
+                                       @RequestParam(defaultValue = "20") Integer size) {
+        if (!CursorPageHelper.isValidSize(size)) {
+            return Result.error(ResultCode.PARAM_ERROR, "每页条数必须在1到" + CursorPageHelper.MAX_PAGE_SIZE + "之间");
+        }
+        return Result.success(conversationService.pageAllConversations(cursor, size));
+    }
+
+    /**
+     * 以 NDJSON 格式流式导出所有会话（管理员使用），每行一条记录
+     *
+     * @return NDJSON 文件流
+     */
+    @GetMapping("/admin/export")
+    public ResponseEntity<StreamingResponseBody> exportAllConversations() {
+        return NdjsonExporter.response("conversations.ndjson", conversationService::exportAllConversations);
+    }
+}
@@ -4,9 +4,13 @@ import com.backend.common.Result;
 import com.backend.common.enumeration.ResultCode;
 import com.backend.entity.Flight;
 import com.backend.service.FlightService;
+import com.backend.util.CursorPageHelper;
+import com.backend.util.NdjsonExporter;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.time.LocalDateTime;
 import java.util.List;
@@ -168,4 +172,40 @@ public class FlightController {
             return Result.error("删除航班失败");
         }
     }
-} 
\ No newline at end of file
+
+    /**
+     * 游标分页获取航班列表
+     *
+     * @param cursor 上一页返回的 nextCursor，首页不传
+     * @param size 每页条数（1-100）
+     * @return 航班列表分页
+     */
+    @GetMapping("/page")
+    public Result pageFlights(@RequestParam(required = false) Long cursor,
+                              @RequestParam(defaultValue = "20") Integer size) {
+        if (!CursorPageHelper.isValidSize(size)) {
+            return Result.error(ResultCode.PARAM_ERROR, "每页条数必须在1到" + CursorPageHelper.MAX_PAGE_SIZE + "之间");
+        }
+        return Result.success(flightService.pageByCursor(cursor, size));
+    }
+
+    /**
+     * 以 NDJSON 格式流式导出航班列表，每行一条记录
+     *
+     * @return NDJSON 文件流
+     */
+    @GetMapping("/export")
+    public ResponseEntity<StreamingResponseBody> exportFlights() {
+        return NdjsonExporter.response("flights.ndjson", flightService::exportAll);
+    }
+
+    /**
+     * 检查航班内存索引与数据库是否一致，不一致时自动重建
+     *
+     * @return 一致性报告
+     */
+    @GetMapping("/index/check")
+    public Result checkIndex() {
+        return Result.success(flightService.checkIndexConsistency());
+    }
+}
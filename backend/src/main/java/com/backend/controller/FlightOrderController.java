@@ -4,9 +4,14 @@ import com.backend.common.Result;
 import com.backend.common.enumeration.ResultCode;
 import com.backend.entity.FlightOrder;
 import com.backend.service.FlightOrderService;
+import com.backend.util.CursorPageHelper;
+import com.backend.util.NdjsonExporter;
+import com.backend.vo.CursorPage;
 import com.backend.vo.FlightOrderDetail;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.time.LocalDateTime;
 import java.util.List;
@@ -77,6 +82,27 @@ public class FlightOrderController {
         return Result.success(orders);
     }
 
+    /**
+     * 游标分页获取用户订单详情
+     *
+     * @param userId 用户ID
+     * @param cursor 上一页返回的 nextCursor，首页不传
+     * @param size 每页条数（1-100）
+     * @param status 订单状态，不传则不过滤
+     * @return 订单详情分页
+     */
+    @GetMapping("/user/{userId}/detail/page")
+    public Result pageOrderDetails(@PathVariable Long userId,
+                                   @RequestParam(required = false) Long cursor,
+                                   @RequestParam(defaultValue = "20") Integer size,
+                                   @RequestParam(required = false) Integer status) {
+        if (!CursorPageHelper.isValidSize(size)) {
+            return Result.error(ResultCode.PARAM_ERROR, "每页条数必须在1到" + CursorPageHelper.MAX_PAGE_SIZE + "之间");
+        }
+        CursorPage<FlightOrderDetail> page = flightOrderService.pageOrderDetailsByUserId(userId, status, cursor, size);
+        return Result.success(page);
+    }
+
     /**
      * 获取航班订单列表
      *
@@ -145,4 +171,30 @@ public class FlightOrderController {
         List<FlightOrder> orders = flightOrderService.list();
         return Result.success(orders);
     }
-} 
\ No newline at end of file
+
+    /**
+     * 游标分页获取所有订单（管理员使用）
+     *
+     * @param cursor 上一页返回的 nextCursor，首页不传
+     * @param size 每页条数（1-100）
+     * @return 所有订单（管理员使用）分页
+     */
+    @GetMapping("/admin/page")
+    public Result pageAllOrders(@RequestParam(required = false) Long cursor,
+                                @RequestParam(defaultValue = "20") Integer size) {
+        if (!CursorPageHelper.isValidSize(size)) {
+            return Result.error(ResultCode.PARAM_ERROR, "每页条数必须在1到" + CursorPageHelper.MAX_PAGE_SIZE + "之间");
+        }
+        return Result.success(flightOrderService.pageByCursor(cursor, size));
+    }
+
+    /**
+     * 以 NDJSON 格式流式导出所有订单（管理员使用），每行一条记录
+     *
+     * @return NDJSON 文件流
+     */
+    @GetMapping("/admin/export")
+    public ResponseEntity<StreamingResponseBody> exportAllOrders() {
+        return NdjsonExporter.response("orders.ndjson", flightOrderService::exportAll);
+    }
+}
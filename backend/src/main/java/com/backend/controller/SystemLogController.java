@@ -4,9 +4,13 @@ import com.backend.common.Result;
 import com.backend.common.enumeration.ResultCode;
 import com.backend.entity.SystemLog;
 import com.backend.service.SystemLogService;
+import com.backend.util.CursorPageHelper;
+import com.backend.util.NdjsonExporter;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.time.LocalDateTime;
 import java.util.List;
@@ -108,4 +112,30 @@ public class SystemLogController {
         }
         return Result.success(log);
     }
-} 
\ No newline at end of file
+
+    /**
+     * 游标分页获取日志列表
+     *
+     * @param cursor 上一页返回的 nextCursor，首页不传
+     * @param size 每页条数（1-100）
+     * @return 日志列表分页
+     */
+    @GetMapping("/page")
+    public Result pageLogs(@RequestParam(required = false) Long cursor,
+                           @RequestParam(defaultValue = "20") Integer size) {
+        if (!CursorPageHelper.isValidSize(size)) {
+            return Result.error(ResultCode.PARAM_ERROR, "每页条数必须在1到" + CursorPageHelper.MAX_PAGE_SIZE + "之间");
+        }
+        return Result.success(systemLogService.pageByCursor(cursor, size));
+    }
+
+    /**
+     * 以 NDJSON 格式流式导出日志列表，每行一条记录
+     *
+     * @return NDJSON 文件流
+     */
+    @GetMapping("/export")
+    public ResponseEntity<StreamingResponseBody> exportLogs() {
+        return NdjsonExporter.response("system-logs.ndjson", systemLogService::exportAll);
+    }
+}
@@ -3,8 +3,11 @@ package com.backend.dao.mapper;
 import com.backend.entity.ConversationIndex;
 import com.baomidou.mybatisplus.core.mapper.BaseMapper;
 import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Options;
 import org.apache.ibatis.annotations.Param;
 import org.apache.ibatis.annotations.Select;
+import org.apache.ibatis.annotations.Update;
+import org.apache.ibatis.cursor.Cursor;
 
 import java.util.List;
 
@@ -29,4 +32,22 @@ public interface ConversationIndexMapper extends BaseMapper<ConversationIndex> {
      */
     @Select("SELECT * FROM conversation_index WHERE user_id = #{userId} AND status != 3 ORDER BY updated_at DESC LIMIT 1")
     ConversationIndex selectActiveByUserId(@Param("userId") Long userId);
-}
\ No newline at end of file
+
+    /**
+     * 按会话UUID更新最后一条消息，不需要先查出整行
+     * @param uuid 会话UUID
+     * @param lastMessage 最后一条消息内容
+     * @return 影响行数
+     */
+    @Update("UPDATE conversation_index SET last_message = #{lastMessage} WHERE conversation_uuid = #{uuid}")
+    int updateLastMessageByUuid(@Param("uuid") String uuid, @Param("lastMessage") String lastMessage);
+
+    /**
+     * 流式读取全部会话索引（按ID升序），用于导出
+     * fetchSize 为 Integer.MIN_VALUE 时 MySQL 驱动逐行返回结果，需要在事务内使用
+     * @return 游标
+     */
+    @Select("SELECT * FROM conversation_index ORDER BY id")
+    @Options(fetchSize = Integer.MIN_VALUE)
+    Cursor<ConversationIndex> streamAll();
+}
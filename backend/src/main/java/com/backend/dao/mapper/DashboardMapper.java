@@ -1,18 +1,41 @@
 package com.backend.dao.mapper;
 
-import com.backend.vo.DashboardData;
 import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
 
+import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Map;
 
+/**
+ * 仪表盘统计Mapper
+ * 时间条件均为左闭右开的范围比较，可以使用索引
+ */
 @Mapper
 public interface DashboardMapper {
 
-    DashboardData getBaseStats();
+    /**
+     * 按计划出发日期统计航班数
+     * @return 每行包含 day（yyyy-MM-dd）与 cnt
+     */
+    List<Map<String, Object>> countFlightsByDay(@Param("start") LocalDateTime start,
+                                                @Param("end") LocalDateTime end);
 
-    List<String> getRecentDates();
+    /**
+     * 按下单日期统计订单数
+     * @return 每行包含 day（yyyy-MM-dd）与 cnt
+     */
+    List<Map<String, Object>> countOrdersByDay(@Param("start") LocalDateTime start,
+                                               @Param("end") LocalDateTime end);
 
-    List<Integer> getRecentDatesFlightCount();
+    /**
+     * 查询时间范围内下过单的用户ID
+     */
+    List<Long> listActiveUserIds(@Param("start") LocalDateTime start,
+                                 @Param("end") LocalDateTime end);
 
-    List<Integer> getRecentDatesOrderCount();
+    /**
+     * 统计已转人工的会话数
+     */
+    long countServiceTickets();
 }
@@ -3,11 +3,31 @@ package com.backend.dao.mapper;
 import com.backend.entity.Flight;
 import com.baomidou.mybatisplus.core.mapper.BaseMapper;
 import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Options;
+import org.apache.ibatis.annotations.Select;
+import org.apache.ibatis.cursor.Cursor;
+
+import java.util.Map;
 
 /**
  * 航班Mapper接口
  */
 @Mapper
 public interface FlightMapper extends BaseMapper<Flight> {
-    
-}
\ No newline at end of file
+
+    /**
+     * 流式读取全部航班（按ID升序），用于导出
+     * fetchSize 为 Integer.MIN_VALUE 时 MySQL 驱动逐行返回结果，需要在事务内使用
+     * @return 游标
+     */
+    @Select("SELECT * FROM flight ORDER BY id")
+    @Options(fetchSize = Integer.MIN_VALUE)
+    Cursor<Flight> streamAll();
+
+    /**
+     * 查询航班表的数据签名（总行数与最近更新时间），用于判断内存索引是否与数据库一致
+     * @return 包含 flightCount 与 lastUpdatedAt 的 Map
+     */
+    @Select("SELECT COUNT(*) AS flightCount, MAX(updated_at) AS lastUpdatedAt FROM flight")
+    Map<String, Object> selectSignature();
+}
@@ -4,6 +4,13 @@ import com.backend.entity.FlightOrder;
 import com.backend.vo.FlightOrderDetail;
 import com.baomidou.mybatisplus.core.mapper.BaseMapper;
 import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Options;
+import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.annotations.Select;
+import org.apache.ibatis.cursor.Cursor;
+
+import java.util.Collection;
+import java.util.List;
 
 /**
  * 航班订单Mapper接口
@@ -11,4 +18,40 @@ import org.apache.ibatis.annotations.Mapper;
 @Mapper
 public interface FlightOrderMapper extends BaseMapper<FlightOrder> {
     FlightOrderDetail getOrderDetailById(Long orderId);
-}
\ No newline at end of file
+
+    /**
+     * 查询用户订单详情，按订单ID倒序
+     * @param userId 用户ID
+     * @param status 订单状态，为 null 时不过滤
+     * @param cursor 游标（上一页最后一条订单ID），为 null 时从头开始
+     * @param limit 最多返回条数，为 null 时不限制
+     * @return 订单详情列表
+     */
+    List<FlightOrderDetail> listOrderDetailsByUserId(@Param("userId") Long userId,
+                                                     @Param("status") Integer status,
+                                                     @Param("cursor") Long cursor,
+                                                     @Param("limit") Integer limit);
+
+    /**
+     * 按订单ID批量查询订单详情
+     * @param ids 订单ID集合，不能为空
+     * @return 订单详情列表
+     */
+    List<FlightOrderDetail> listOrderDetailsByIds(@Param("ids") Collection<Long> ids);
+
+    /**
+     * 查询用户订单列表，同时带出用户和航班信息
+     * @param userId 用户ID
+     * @return 订单列表
+     */
+    List<FlightOrder> listOrdersWithDetail(@Param("userId") Long userId);
+
+    /**
+     * 流式读取全部订单（按ID升序），用于导出
+     * fetchSize 为 Integer.MIN_VALUE 时 MySQL 驱动逐行返回结果，需要在事务内使用
+     * @return 游标
+     */
+    @Select("SELECT * FROM flight_order ORDER BY id")
+    @Options(fetchSize = Integer.MIN_VALUE)
+    Cursor<FlightOrder> streamAll();
+}
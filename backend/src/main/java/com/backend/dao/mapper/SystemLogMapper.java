@@ -3,11 +3,32 @@ package com.backend.dao.mapper;
 import com.backend.entity.SystemLog;
 import com.baomidou.mybatisplus.core.mapper.BaseMapper;
 import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Options;
+import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.annotations.Select;
+import org.apache.ibatis.cursor.Cursor;
+
+import java.util.List;
 
 /**
  * 系统日志Mapper接口
  */
 @Mapper
 public interface SystemLogMapper extends BaseMapper<SystemLog> {
-    
-}
\ No newline at end of file
+
+    /**
+     * 批量插入系统日志（单条多值 INSERT）
+     * @param logs 日志列表
+     * @return 插入行数
+     */
+    int insertBatch(@Param("logs") List<SystemLog> logs);
+
+    /**
+     * 流式读取全部系统日志（按ID升序），用于导出
+     * fetchSize 为 Integer.MIN_VALUE 时 MySQL 驱动逐行返回结果，需要在事务内使用
+     * @return 游标
+     */
+    @Select("SELECT * FROM system_log ORDER BY id")
+    @Options(fetchSize = Integer.MIN_VALUE)
+    Cursor<SystemLog> streamAll();
+}
@@ -3,11 +3,22 @@ package com.backend.dao.mapper;
 import com.backend.entity.User;
 import com.baomidou.mybatisplus.core.mapper.BaseMapper;
 import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Options;
+import org.apache.ibatis.annotations.Select;
+import org.apache.ibatis.cursor.Cursor;
 
 /**
  * 用户Mapper接口
  */
 @Mapper
 public interface UserMapper extends BaseMapper<User> {
-    
-}
\ No newline at end of file
+
+    /**
+     * 流式读取全部用户（按ID升序），用于导出，不包含密码
+     * fetchSize 为 Integer.MIN_VALUE 时 MySQL 驱动逐行返回结果，需要在事务内使用
+     * @return 游标
+     */
+    @Select("SELECT id, username, email, phone, real_name, id_card, user_type, member_level, created_at, updated_at FROM `user` ORDER BY id")
+    @Options(fetchSize = Integer.MIN_VALUE)
+    Cursor<User> streamAll();
+}
@@ -0,0 +1,195 @@
+package com.backend.dao.redis;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.redis.core.RedisOperations;
+import org.springframework.data.redis.core.SessionCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 仪表盘统计 Redis 数据访问对象
+ * dashboard:day:{yyyy-MM-dd}          Hash，flights / orders 两个计数
+ * dashboard:active-users:{yyyy-MM-dd} Set，当天下过单的用户ID
+ * dashboard:service-tickets           String，已转人工会话数
+ */
+@Component
+public class DashboardStatsDao {
+
+    public static final String FIELD_FLIGHTS = "flights";
+    public static final String FIELD_ORDERS = "orders";
+
+    private static final String DAY_KEY_PREFIX = "dashboard:day:";
+    private static final String ACTIVE_USERS_KEY_PREFIX = "dashboard:active-users:";
+    private static final String TICKETS_KEY = "dashboard:service-tickets";
+
+    /**
+     * 按日统计在该日期之后保留的天数
+     */
+    private static final int RETENTION_DAYS = 30;
+
+    @Autowired
+    private StringRedisTemplate stringRedisTemplate;
+
+    /**
+     * 增加某天的计数
+     *
+     * @param day 日期
+     * @param field 计数字段
+     * @param delta 增量，可为负数
+     */
+    public void incrementDay(LocalDate day, String field, long delta) {
+        String key = dayKey(day);
+        pipelined(ops -> {
+            ops.opsForHash().increment(key, field, delta);
+            ops.expireAt(key, expireAt(day));
+        });
+    }
+
+    /**
+     * 记录某天的活跃用户
+     *
+     * @param day 日期
+     * @param userId 用户ID
+     */
+    public void addActiveUser(LocalDate day, Long userId) {
+        String key = activeUsersKey(day);
+        pipelined(ops -> {
+            ops.opsForSet().add(key, String.valueOf(userId));
+            ops.expireAt(key, expireAt(day));
+        });
+    }
+
+    /**
+     * 增加已转人工会话数
+     *
+     * @param delta 增量，可为负数
+     */
+    public void incrementServiceTickets(long delta) {
+        stringRedisTemplate.opsForValue().increment(TICKETS_KEY, delta);
+    }
+
+    /**
+     * 用数据库统计结果覆盖 Redis 中的数据
+     *
+     * @param flights 每天的航班数
+     * @param orders 每天的订单数
+     * @param activeUsersDay 活跃用户所属日期
+     * @param activeUserIds 活跃用户ID
+     * @param serviceTickets 已转人工会话数
+     */
+    public void replaceAll(Map<LocalDate, Long> flights, Map<LocalDate, Long> orders,
+                           LocalDate activeUsersDay, Collection<Long> activeUserIds, long serviceTickets) {
+        pipelined(ops -> {
+            for (LocalDate day : flights.keySet()) {
+                String key = dayKey(day);
+                ops.opsForHash().put(key, FIELD_FLIGHTS, String.valueOf(flights.get(day)));
+                ops.opsForHash().put(key, FIELD_ORDERS, String.valueOf(orders.getOrDefault(day, 0L)));
+                ops.expireAt(key, expireAt(day));
+            }
+
+            String activeKey = activeUsersKey(activeUsersDay);
+            ops.delete(activeKey);
+            if (!activeUserIds.isEmpty()) {
+                ops.opsForSet().add(activeKey, activeUserIds.stream().map(String::valueOf).toArray(String[]::new));
+                ops.expireAt(activeKey, expireAt(activeUsersDay));
+            }
+
+            ops.opsForValue().set(TICKETS_KEY, String.valueOf(serviceTickets));
+        });
+    }
+
+    /**
+     * 一次往返读取仪表盘需要的全部计数
+     *
+     * @param days 需要读取的日期（从旧到新）
+     * @param today 活跃用户统计日期
+     * @return 统计数据，已转人工计数不存在（尚未初始化）时返回 null
+     */
+    public Stats read(List<LocalDate> days, LocalDate today) {
+        List<Object> results = stringRedisTemplate.executePipelined(new SessionCallback<Object>() {
+            @Override
+            @SuppressWarnings("unchecked")
+            public <K, V> Object execute(RedisOperations<K, V> operations) {
+                RedisOperations<String, String> ops = (RedisOperations<String, String>) operations;
+                for (LocalDate day : days) {
+                    ops.opsForHash().multiGet(dayKey(day), List.of(FIELD_FLIGHTS, FIELD_ORDERS));
+                }
+                ops.opsForSet().size(activeUsersKey(today));
+                ops.opsForValue().get(TICKETS_KEY);
+                return null;
+            }
+        });
+
+        Object tickets = results.get(days.size() + 1);
+        if (tickets == null) {
+            return null;
+        }
+
+        List<Long> flights = new ArrayList<>(days.size());
+        List<Long> orders = new ArrayList<>(days.size());
+        for (int i = 0; i < days.size(); i++) {
+            List<?> values = (List<?>) results.get(i);
+            flights.add(toLong(values.get(0)));
+            orders.add(toLong(values.get(1)));
+        }
+        long activeUsers = toLong(results.get(days.size()));
+        return new Stats(flights, orders, activeUsers, toLong(tickets));
+    }
+
+    private void pipelined(RedisAction action) {
+        stringRedisTemplate.executePipelined(new SessionCallback<Object>() {
+            @Override
+            @SuppressWarnings("unchecked")
+            public <K, V> Object execute(RedisOperations<K, V> operations) {
+                action.execute((RedisOperations<String, String>) operations);
+                return null;
+            }
+        });
+    }
+
+    private static long toLong(Object value) {
+        if (value == null) {
+            return 0L;
+        }
+        if (value instanceof Number number) {
+            return number.longValue();
+        }
+        return Long.parseLong(value.toString());
+    }
+
+    private static Date expireAt(LocalDate day) {
+        return Date.from(day.plusDays(RETENTION_DAYS).atStartOfDay(ZoneId.systemDefault()).toInstant());
+    }
+
+    private static String dayKey(LocalDate day) {
+        return DAY_KEY_PREFIX + day;
+    }
+
+    private static String activeUsersKey(LocalDate day) {
+        return ACTIVE_USERS_KEY_PREFIX + day;
+    }
+
+    @FunctionalInterface
+    private interface RedisAction {
+        void execute(RedisOperations<String, String> ops);
+    }
+
+    /**
+     * 仪表盘计数
+     *
+     * @param dailyFlights 每天的航班数（与请求的日期一一对应）
+     * @param dailyOrders 每天的订单数（与请求的日期一一对应）
+     * @param activeUsers 当天活跃用户数
+     * @param serviceTickets 已转人工会话数
+     */
+    public record Stats(List<Long> dailyFlights, List<Long> dailyOrders, long activeUsers, long serviceTickets) {
+    }
+}
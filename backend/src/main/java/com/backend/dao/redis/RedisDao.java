@@ -2,9 +2,14 @@ package com.backend.dao.redis;
 
 import com.backend.common.constant.EmailConstant;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.redis.core.RedisOperations;
+import org.springframework.data.redis.core.SessionCallback;
 import org.springframework.data.redis.core.StringRedisTemplate;
 import org.springframework.stereotype.Component;
 
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
 import java.util.concurrent.TimeUnit;
 
 /**
@@ -49,6 +54,93 @@ public class RedisDao {
         return Boolean.TRUE.equals(stringRedisTemplate.delete(key));
     }
 
+    /**
+     * 计数器加一，键不存在时从 0 开始
+     *
+     * @param key 键
+     * @return 加一后的值
+     */
+    public long increment(String key) {
+        Long value = stringRedisTemplate.opsForValue().increment(key);
+        return value != null ? value : 0L;
+    }
+
+    /**
+     * 向列表尾部追加元素，只保留最后 maxSize 个，并刷新过期时间
+     * 三条命令通过 pipeline 一次往返发送
+     *
+     * @param key 键
+     * @param values 追加的值
+     * @param maxSize 列表最大长度
+     * @param timeout 超时时间
+     * @param unit 时间单位
+     */
+    public void appendToCappedList(String key, List<String> values, long maxSize, long timeout, TimeUnit unit) {
+        if (values.isEmpty()) {
+            return;
+        }
+        stringRedisTemplate.executePipelined(new SessionCallback<Object>() {
+            @Override
+            @SuppressWarnings("unchecked")
+            public <K, V> Object execute(RedisOperations<K, V> operations) {
+                RedisOperations<String, String> ops = (RedisOperations<String, String>) operations;
+                ops.opsForList().rightPushAll(key, values);
+                ops.opsForList().trim(key, -maxSize, -1);
+                ops.expire(key, timeout, unit);
+                return null;
+            }
+        });
+    }
+
+    /**
+     * 获取列表指定区间的元素
+     *
+     * @param key 键
+     * @param start 起始下标（支持负数）
+     * @param end 结束下标（支持负数）
+     * @return 元素列表，键不存在时为空列表
+     */
+    public List<String> getListRange(String key, long start, long end) {
+        List<String> values = stringRedisTemplate.opsForList().range(key, start, end);
+        return values != null ? values : List.of();
+    }
+
+    /**
+     * 批量获取字符串，一次往返
+     *
+     * @param keys 键列表
+     * @return 与键一一对应的值，不存在的键对应 null
+     */
+    public List<String> multiGet(List<String> keys) {
+        if (keys.isEmpty()) {
+            return List.of();
+        }
+        List<String> values = stringRedisTemplate.opsForValue().multiGet(keys);
+        return values != null ? values : Collections.nCopies(keys.size(), null);
+    }
+
+    /**
+     * 批量存储字符串并设置相同的超时时间，通过 pipeline 一次往返发送
+     *
+     * @param entries 键值对
+     * @param timeout 超时时间
+     * @param unit 时间单位
+     */
+    public void setAll(Map<String, String> entries, long timeout, TimeUnit unit) {
+        if (entries.isEmpty()) {
+            return;
+        }
+        stringRedisTemplate.executePipelined(new SessionCallback<Object>() {
+            @Override
+            @SuppressWarnings("unchecked")
+            public <K, V> Object execute(RedisOperations<K, V> operations) {
+                RedisOperations<String, String> ops = (RedisOperations<String, String>) operations;
+                entries.forEach((key, value) -> ops.opsForValue().set(key, value, timeout, unit));
+                return null;
+            }
+        });
+    }
+
     /**
      * 存储邮箱验证码
      *
@@ -0,0 +1,153 @@
+package com.backend.embedding;
+
+import com.backend.config.AiProperties;
+import com.backend.dao.redis.RedisDao;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.ai.document.Document;
+import org.springframework.ai.embedding.Embedding;
+import org.springframework.ai.embedding.EmbeddingModel;
+import org.springframework.ai.embedding.EmbeddingRequest;
+import org.springframework.ai.embedding.EmbeddingResponse;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 带缓存的向量模型
+ * 以（模型标识，文本 SHA-256）为键，先查本地 LRU，再查 Redis，都未命中的文本才批量调用实际模型，
+ * 知识文档重新索引时只有内容变化的切片需要付费向量化。Redis 不可用时直接调用模型。
+ */
+@Slf4j
+public class CachingEmbeddingModel implements EmbeddingModel {
+
+    private static final String KEY_PREFIX = "embedding:";
+
+    private final EmbeddingModel delegate;
+    private final RedisDao redisDao;
+    private final AiProperties.EmbeddingCache properties;
+    private final Cache<String, float[]> localCache;
+
+    public CachingEmbeddingModel(EmbeddingModel delegate, RedisDao redisDao, AiProperties.EmbeddingCache properties) {
+        this.delegate = delegate;
+        this.redisDao = redisDao;
+        this.properties = properties;
+        this.localCache = Caffeine.newBuilder()
+                .maximumSize(properties.getLocalSize())
+                .build();
+    }
+
+    @Override
+    public EmbeddingResponse call(EmbeddingRequest request) {
+        List<String> texts = request.getInstructions();
+        List<String> keys = new ArrayList<>(texts.size());
+        for (String text : texts) {
+            keys.add(key(text));
+        }
+
+        Map<String, float[]> found = new HashMap<>(localCache.getAllPresent(keys));
+        if (found.size() < keys.size()) {
+            found.putAll(loadFromRedis(keys, found));
+        }
+
+        // 同一批次中重复的文本只向量化一次
+        Map<String, String> missing = new LinkedHashMap<>();
+        for (int i = 0; i < keys.size(); i++) {
+            if (!found.containsKey(keys.get(i))) {
+                missing.putIfAbsent(keys.get(i), texts.get(i));
+            }
+        }
+        if (!missing.isEmpty()) {
+            found.putAll(embedMissing(missing, request));
+        }
+
+        List<Embedding> embeddings = new ArrayList<>(keys.size());
+        for (int i = 0; i < keys.size(); i++) {
+            embeddings.add(new Embedding(found.get(keys.get(i)), i));
+        }
+        return new EmbeddingResponse(embeddings);
+    }
+
+    @Override
+    public float[] embed(Document document) {
+        return embed(document.getContent());
+    }
+
+    private Map<String, float[]> loadFromRedis(List<String> keys, Map<String, float[]> alreadyFound) {
+        List<String> redisKeys = keys.stream().filter(key -> !alreadyFound.containsKey(key)).distinct().toList();
+        Map<String, float[]> loaded = new HashMap<>();
+        try {
+            List<String> values = redisDao.multiGet(redisKeys.stream().map(key -> KEY_PREFIX + key).toList());
+            for (int i = 0; i < redisKeys.size(); i++) {
+                if (values.get(i) != null) {
+                    float[] vector = decode(values.get(i));
+                    loaded.put(redisKeys.get(i), vector);
+                    localCache.put(redisKeys.get(i), vector);
+                }
+            }
+        } catch (Exception e) {
+            log.warn("读取向量缓存失败: {}", e.getMessage());
+        }
+        return loaded;
+    }
+
+    private Map<String, float[]> embedMissing(Map<String, String> missing, EmbeddingRequest request) {
+        List<String> keys = new ArrayList<>(missing.keySet());
+        EmbeddingResponse response = delegate.call(new EmbeddingRequest(new ArrayList<>(missing.values()), request.getOptions()));
+
+        Map<String, float[]> embedded = new HashMap<>();
+        Map<String, String> encoded = new HashMap<>();
+        List<Embedding> results = response.getResults();
+        for (int i = 0; i < results.size(); i++) {
+            Integer index = results.get(i).getIndex();
+            String key = keys.get(index != null ? index : i);
+            float[] vector = results.get(i).getOutput();
+            embedded.put(key, vector);
+            encoded.put(KEY_PREFIX + key, encode(vector));
+        }
+        localCache.putAll(embedded);
+        try {
+            redisDao.setAll(encoded, properties.getTtl().toSeconds(), TimeUnit.SECONDS);
+        } catch (Exception e) {
+            log.warn("写入向量缓存失败: {}", e.getMessage());
+        }
+        return embedded;
+    }
+
+    /**
+     * 缓存键：模型标识 + 文本 SHA-256，本地缓存与 Redis 共用，Redis 中额外加前缀
+     */
+    private String key(String text) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(text.getBytes(StandardCharsets.UTF_8));
+            return properties.getModelId() + ":" + HexFormat.of().formatHex(digest);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static String encode(float[] vector) {
+        ByteBuffer buffer = ByteBuffer.allocate(vector.length * Float.BYTES).order(ByteOrder.LITTLE_ENDIAN);
+        buffer.asFloatBuffer().put(vector);
+        return Base64.getEncoder().encodeToString(buffer.array());
+    }
+
+    private static float[] decode(String value) {
+        ByteBuffer buffer = ByteBuffer.wrap(Base64.getDecoder().decode(value)).order(ByteOrder.LITTLE_ENDIAN);
+        float[] vector = new float[buffer.remaining() / Float.BYTES];
+        buffer.asFloatBuffer().get(vector);
+        return vector;
+    }
+}
@@ -0,0 +1,34 @@
+package com.backend.entity;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+import org.springframework.data.mongodb.core.mapping.Field;
+
+import java.util.Date;
+import java.util.List;
+
+/**
+ * AI 对话记忆，与 conversations 集合中展示给用户的会话记录分开保存
+ * 只保留最近的若干条消息，供拼装提示词使用
+ */
+@Document("chat_memory")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ChatMemoryDocument {
+
+    @Id
+    private String id;
+
+    @Field("conversation_uuid")
+    private String conversationUuid;
+
+    @Field("messages")
+    private List<ConversationDocument.Message> messages;
+
+    @Field("updated_at")
+    private Date updatedAt;
+}
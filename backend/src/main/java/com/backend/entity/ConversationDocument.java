@@ -31,6 +31,12 @@ public class ConversationDocument {
     @Field("metadata")
     private Metadata metadata;
 
+    /**
+     * AI 对话的滚动摘要，较早的消息压缩进摘要，提示词中只保留最近消息的原文
+     */
+    @Field("summary")
+    private Summary summary;
+
     @Data
     @AllArgsConstructor
     @NoArgsConstructor
@@ -49,4 +55,18 @@ public class ConversationDocument {
         @Field("session_end")
         private Date sessionEnd;
     }
+
+    @Data
+    @AllArgsConstructor
+    @NoArgsConstructor
+    public static class Summary {
+        private String text;
+        /**
+         * 摘要已覆盖的最后一条消息的指纹
+         */
+        @Field("covered_fingerprint")
+        private String coveredFingerprint;
+        @Field("updated_at")
+        private Date updatedAt;
+    }
 }
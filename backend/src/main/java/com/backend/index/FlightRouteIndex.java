@@ -0,0 +1,325 @@
+package com.backend.index;
+
+import com.backend.config.FlightIndexProperties;
+import com.backend.dao.mapper.FlightMapper;
+import com.backend.entity.Flight;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.ibatis.cursor.Cursor;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+/**
+ * 航班航线内存索引
+ * 按（出发城市，到达城市）分组，组内按（计划出发时间，ID）排序，航班搜索的时间范围查询直接在内存中完成。
+ * 本实例的增删改通过 {@link #refresh(Long)} / {@link #remove(Long)} 即时同步；
+ * 其他实例或直接改库造成的变化由定期签名比对发现，发现后标记过期并重建，过期期间搜索回退到数据库。
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class FlightRouteIndex {
+
+    private static final Comparator<DepartureKey> DEPARTURE_ORDER =
+            Comparator.comparing(DepartureKey::time).thenComparingLong(DepartureKey::id);
+
+    private final FlightMapper flightMapper;
+    private final FlightIndexProperties properties;
+    private final TransactionTemplate transactionTemplate;
+
+    private volatile Snapshot snapshot;
+    private volatile boolean stale = true;
+
+    /**
+     * 本实例写入计数，重建期间有写入时放弃本次结果，避免覆盖较新的数据
+     */
+    private long writeVersion;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void init() {
+        if (properties.isEnabled()) {
+            rebuild();
+        }
+    }
+
+    /**
+     * 按航线和出发时间范围查询航班
+     * 返回的对象为索引内的共享实例，调用方不得修改
+     *
+     * @return 索引未启用、未就绪或已过期时返回 empty，调用方应回退到数据库查询
+     */
+    public Optional<List<Flight>> search(String departureCity, String arrivalCity,
+                                         LocalDateTime startTime, LocalDateTime endTime) {
+        Snapshot current = snapshot;
+        if (!properties.isEnabled() || stale || current == null) {
+            return Optional.empty();
+        }
+        if (startTime.isAfter(endTime)) {
+            return Optional.of(List.of());
+        }
+        ConcurrentSkipListMap<DepartureKey, Flight> departures =
+                current.routes().get(new RouteKey(departureCity, arrivalCity));
+        if (departures == null) {
+            return Optional.of(List.of());
+        }
+        return Optional.of(new ArrayList<>(departures.subMap(
+                new DepartureKey(startTime, Long.MIN_VALUE), true,
+                new DepartureKey(endTime, Long.MAX_VALUE), true).values()));
+    }
+
+    /**
+     * 航班新增或修改后，从数据库重新读取该航班并更新索引
+     */
+    public void refresh(Long flightId) {
+        if (!properties.isEnabled() || flightId == null) {
+            return;
+        }
+        try {
+            Flight flight = flightMapper.selectById(flightId);
+            synchronized (this) {
+                writeVersion++;
+                if (snapshot != null) {
+                    snapshot.remove(flightId);
+                    if (flight != null) {
+                        snapshot.put(flight);
+                    }
+                }
+            }
+        } catch (Exception e) {
+            stale = true;
+            log.warn("更新航班索引失败，搜索将回退到数据库直到下次重建: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * 航班删除后从索引中移除
+     */
+    public void remove(Long flightId) {
+        if (!properties.isEnabled() || flightId == null) {
+            return;
+        }
+        synchronized (this) {
+            writeVersion++;
+            if (snapshot != null) {
+                snapshot.remove(flightId);
+            }
+        }
+    }
+
+    /**
+     * 从数据库全量重建索引，构建完成后整体替换
+     */
+    public void rebuild() {
+        for (int attempt = 1; attempt <= 3; attempt++) {
+            long versionBefore;
+            synchronized (this) {
+                versionBefore = writeVersion;
+            }
+
+            long start = System.currentTimeMillis();
+            Snapshot built;
+            try {
+                built = load();
+            } catch (Exception e) {
+                stale = true;
+                log.warn("重建航班索引失败，搜索将回退到数据库: {}", e.getMessage());
+                return;
+            }
+
+            synchronized (this) {
+                if (writeVersion == versionBefore) {
+                    snapshot = built;
+                    stale = false;
+                    log.info("航班索引重建完成，航班数: {}，航线数: {}，耗时: {}ms",
+                            built.byId().size(), built.routes().size(), System.currentTimeMillis() - start);
+                    return;
+                }
+            }
+            log.info("重建航班索引期间有航班写入，重新构建（第{}次）", attempt);
+        }
+        stale = true;
+        log.warn("航班写入频繁，索引重建未完成，搜索暂时回退到数据库");
+    }
+
+    /**
+     * 定期比对数据库签名，发现其他来源的写入时重建
+     */
+    @Scheduled(fixedDelayString = "${app.flight-index.verify-interval:30s}",
+            initialDelayString = "${app.flight-index.verify-interval:30s}")
+    public void verify() {
+        if (!properties.isEnabled()) {
+            return;
+        }
+        Snapshot current = snapshot;
+        if (current == null || stale) {
+            rebuild();
+            return;
+        }
+        try {
+            Map<String, Object> signature = flightMapper.selectSignature();
+            long dbCount = ((Number) signature.get("flightCount")).longValue();
+            LocalDateTime dbLastUpdated = toLocalDateTime(signature.get("lastUpdatedAt"));
+            if (dbCount != current.byId().size() || !Objects.equals(dbLastUpdated, current.lastUpdatedAt())) {
+                log.info("航班索引与数据库不一致（数据库 {} 条，索引 {} 条），重建索引", dbCount, current.byId().size());
+                stale = true;
+                rebuild();
+            }
+        } catch (Exception e) {
+            log.warn("校验航班索引失败: {}", e.getMessage());
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${app.flight-index.rebuild-interval:30m}",
+            initialDelayString = "${app.flight-index.rebuild-interval:30m}")
+    public void scheduledRebuild() {
+        if (properties.isEnabled()) {
+            rebuild();
+        }
+    }
+
+    /**
+     * 逐条比对索引与数据库，返回一致性报告；发现不一致时标记过期并重建
+     */
+    public Map<String, Object> checkConsistency() {
+        Map<String, Object> report = new LinkedHashMap<>();
+        report.put("enabled", properties.isEnabled());
+        Snapshot current = snapshot;
+        report.put("ready", current != null);
+        report.put("stale", stale);
+        if (!properties.isEnabled() || current == null) {
+            return report;
+        }
+
+        Map<Long, Flight> indexed = new ConcurrentHashMap<>(current.byId());
+        List<Long> missing = new ArrayList<>();
+        List<Long> mismatched = new ArrayList<>();
+        long[] dbCount = {0};
+        transactionTemplate.executeWithoutResult(status -> {
+            try (Cursor<Flight> cursor = flightMapper.streamAll()) {
+                for (Flight flight : cursor) {
+                    dbCount[0]++;
+                    Flight cached = indexed.remove(flight.getId());
+                    if (cached == null) {
+                        missing.add(flight.getId());
+                    } else if (!sameFlight(cached, flight)) {
+                        mismatched.add(flight.getId());
+                    }
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+        List<Long> extra = new ArrayList<>(indexed.keySet());
+
+        boolean consistent = missing.isEmpty() && mismatched.isEmpty() && extra.isEmpty();
+        report.put("builtAt", current.builtAt());
+        report.put("indexedCount", current.byId().size());
+        report.put("databaseCount", dbCount[0]);
+        report.put("consistent", consistent);
+        report.put("missing", limit(missing));
+        report.put("mismatched", limit(mismatched));
+        report.put("extra", limit(extra));
+
+        if (!consistent) {
+            log.warn("航班索引不一致：缺失 {} 条，不一致 {} 条，多余 {} 条，重建索引",
+                    missing.size(), mismatched.size(), extra.size());
+            stale = true;
+            rebuild();
+        }
+        return report;
+    }
+
+    private Snapshot load() {
+        Snapshot built = new Snapshot(new ConcurrentHashMap<>(), new ConcurrentHashMap<>(), LocalDateTime.now());
+        transactionTemplate.executeWithoutResult(status -> {
+            try (Cursor<Flight> cursor = flightMapper.streamAll()) {
+                cursor.forEach(built::put);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+        return built;
+    }
+
+    private static boolean sameFlight(Flight a, Flight b) {
+        return Objects.equals(a.getFlightNo(), b.getFlightNo())
+                && Objects.equals(a.getDepartureCity(), b.getDepartureCity())
+                && Objects.equals(a.getArrivalCity(), b.getArrivalCity())
+                && Objects.equals(a.getScheduledDepartureTime(), b.getScheduledDepartureTime())
+                && Objects.equals(a.getUpdatedAt(), b.getUpdatedAt());
+    }
+
+    private static List<Long> limit(List<Long> ids) {
+        return ids.size() > 100 ? ids.subList(0, 100) : ids;
+    }
+
+    private static LocalDateTime toLocalDateTime(Object value) {
+        if (value instanceof LocalDateTime time) {
+            return time;
+        }
+        if (value instanceof java.sql.Timestamp timestamp) {
+            return timestamp.toLocalDateTime();
+        }
+        return null;
+    }
+
+    private record RouteKey(String departureCity, String arrivalCity) {
+    }
+
+    private record DepartureKey(LocalDateTime time, long id) {
+    }
+
+    /**
+     * 某一时刻的索引数据
+     */
+    private record Snapshot(Map<RouteKey, ConcurrentSkipListMap<DepartureKey, Flight>> routes,
+                            Map<Long, Flight> byId,
+                            LocalDateTime builtAt) {
+
+        void put(Flight flight) {
+            byId.put(flight.getId(), flight);
+            routes.computeIfAbsent(new RouteKey(flight.getDepartureCity(), flight.getArrivalCity()),
+                            key -> new ConcurrentSkipListMap<>(DEPARTURE_ORDER))
+                    .put(new DepartureKey(flight.getScheduledDepartureTime(), flight.getId()), flight);
+        }
+
+        void remove(Long flightId) {
+            Flight old = byId.remove(flightId);
+            if (old == null) {
+                return;
+            }
+            ConcurrentSkipListMap<DepartureKey, Flight> departures =
+                    routes.get(new RouteKey(old.getDepartureCity(), old.getArrivalCity()));
+            if (departures != null) {
+                departures.remove(new DepartureKey(old.getScheduledDepartureTime(), old.getId()));
+            }
+        }
+
+        LocalDateTime lastUpdatedAt() {
+            LocalDateTime latest = null;
+            for (Flight flight : byId.values()) {
+                LocalDateTime updatedAt = flight.getUpdatedAt();
+                if (updatedAt != null && (latest == null || updatedAt.isAfter(latest))) {
+                    latest = updatedAt;
+                }
+            }
+            return latest;
+        }
+    }
+}
@@ -0,0 +1,49 @@
+package com.backend.init;
+
+import com.backend.dao.mongo.KnowledgeDocumentRepository;
+import com.backend.entity.KnowledgeDocument;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+import java.util.Date;
+import java.util.List;
+
+/**
+ * 知识库为空时写入默认的 SmartAir 知识文档，启动完成后由 KnowledgeIndexService 统一建立向量索引
+ */
+@Component
+@RequiredArgsConstructor
+public class KnowledgeInitializer {
+
+    private final KnowledgeDocumentRepository knowledgeDao;
+
+    @PostConstruct
+    public void initKnowledge() {
+        if (knowledgeDao.count() > 0) {
+            System.out.println("✅ 知识库已存在，跳过初始化");
+            return;
+        }
+
+        Date now = new Date();
+        List<KnowledgeDocument> docs = List.of(
+                new KnowledgeDocument(null, "购票指南",
+                        "SmartAir提供多种便捷的购票渠道，包括官网、移动App、微信小程序及各大授权旅行平台。购票时请准确填写乘机人姓名、证件号码（身份证、护照等），确保信息无误。支持的支付方式包括支付宝、微信、银联、Visa/Master信用卡等。购票完成后，用户将收到电子行程单、短信通知及乘机提醒。",
+                        List.of("购票", "支付"), now),
+                new KnowledgeDocument(null, "航班信息查询",
+                        "用户可通过SmartAir官网、App或客服电话实时查询航班动态，包括起飞时间、登机口、航站楼信息等。航班信息可能因天气、空管等原因临时调整，请在出行当天密切关注航班状态。通常登机口信息会在起飞前1小时内确定，请提前到达机场办理值机手续。",
+                        List.of("航班", "值机"), now),
+                new KnowledgeDocument(null, "退改签政策",
+                        "退改签规则依票种而定。一般经济舱机票支持起飞前48小时免费改签一次，起飞前24小时内退票需收取30%票面价格作为退票手续费。部分特惠票、促销票不支持退票或改签。用户可通过官网、App或客服申请退改签服务。退票金额将原路退回，到账时间视支付渠道而定。",
+                        List.of("退票", "改签"), now),
+                new KnowledgeDocument(null, "行李规定",
+                        "经济舱旅客可免费托运1件行李，总重量不超过20kg；公务舱旅客免费额度为30kg。手提行李限1件，不超过7kg，尺寸不得超过55cm×40cm×20cm。超重、超件或超尺寸行李需支付相应的超规费用。禁止托运物品包括易燃易爆品、锂电池等危险品。建议贵重物品随身携带。",
+                        List.of("行李"), now),
+                new KnowledgeDocument(null, "会员服务",
+                        "SmartAir设有五个会员等级：普通会员、白银会员、黄金会员、白金会员和钻石会员。会员可享受优先值机、额外行李额度、专属客服通道、机票折扣等权益。积分可通过购票、签到、活动累积，用于兑换机票、座位升级、商城礼品等。等级评定依据年度消费金额与飞行里程，钻石会员为最高等级，享受全方位尊贵服务。",
+                        List.of("会员", "积分"), now)
+        );
+        knowledgeDao.saveAll(docs);
+        System.out.println("✅ 默认知识库已初始化，共 " + docs.size() + " 篇");
+    }
+}
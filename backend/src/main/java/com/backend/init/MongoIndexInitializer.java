@@ -0,0 +1,50 @@
+package com.backend.init;
+
+import com.backend.entity.ChatMemoryDocument;
+import com.backend.entity.ConversationDocument;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.Index;
+import org.springframework.stereotype.Component;
+
+/**
+ * 启动时确保 MongoDB 集合索引存在
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class MongoIndexInitializer {
+
+    private final MongoTemplate mongoTemplate;
+
+    @PostConstruct
+    public void initIndexes() {
+        // 每个会话UUID只对应一个文档，原子追加消息依赖这一点
+        try {
+            mongoTemplate.indexOps(ConversationDocument.class).ensureIndex(new Index()
+                    .on("conversation_uuid", Sort.Direction.ASC)
+                    .unique()
+                    .named("uk_conversation_uuid"));
+        } catch (Exception e) {
+            log.warn("创建会话UUID唯一索引失败，请检查是否存在重复的 conversation_uuid: {}", e.getMessage());
+        }
+        // 按会话UUID定位文档（追加消息、读取会话内容），兼顾按用户过滤
+        mongoTemplate.indexOps(ConversationDocument.class).ensureIndex(new Index()
+                .on("conversation_uuid", Sort.Direction.ASC)
+                .on("user_id", Sort.Direction.ASC)
+                .named("idx_conversation_uuid_user_id"));
+        // 对话记忆按会话UUID读写，首轮并发 upsert 也只能产生一个文档
+        try {
+            mongoTemplate.indexOps(ChatMemoryDocument.class).ensureIndex(new Index()
+                    .on("conversation_uuid", Sort.Direction.ASC)
+                    .unique()
+                    .named("uk_conversation_uuid"));
+        } catch (Exception e) {
+            log.warn("创建对话记忆会话UUID唯一索引失败，请检查 chat_memory 是否存在重复的 conversation_uuid: {}", e.getMessage());
+        }
+        log.info("MongoDB 会话索引已就绪");
+    }
+}
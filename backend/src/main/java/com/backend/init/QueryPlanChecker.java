@@ -0,0 +1,86 @@
+package com.backend.init;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 启动时检查热点查询的执行计划
+ * 对航班搜索等高频 SQL 执行 EXPLAIN，出现没有可用索引的全表扫描时输出告警
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+@ConditionalOnProperty(prefix = "app.query-plan-check", name = "enabled", havingValue = "true", matchIfMissing = true)
+public class QueryPlanChecker {
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * 需要检查的查询，与 Mapper 中实际生成的 SQL 保持同样的过滤和排序条件，参数仅用于生成执行计划
+     */
+    private static final List<HotQuery> HOT_QUERIES = List.of(
+            new HotQuery("FlightService.searchFlights",
+                    "SELECT * FROM flight WHERE departure_city = ? AND arrival_city = ? "
+                            + "AND scheduled_departure_time >= ? AND scheduled_departure_time <= ? "
+                            + "ORDER BY scheduled_departure_time ASC",
+                    "北京", "上海", LocalDateTime.now(), LocalDateTime.now().plusDays(1)),
+            new HotQuery("FlightService.getByFlightNo",
+                    "SELECT * FROM flight WHERE flight_no = ?",
+                    "CA1234"),
+            new HotQuery("FlightService.listByAirline",
+                    "SELECT * FROM flight WHERE airline = ? ORDER BY scheduled_departure_time ASC",
+                    "中国国航"),
+            new HotQuery("FlightOrderMapper.listOrderDetailsByUserId",
+                    "SELECT o.id FROM flight_order o JOIN `user` u ON o.user_id = u.id "
+                            + "JOIN flight f ON o.flight_id = f.id WHERE o.user_id = ? ORDER BY o.id DESC",
+                    1L)
+    );
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void checkQueryPlans() {
+        for (HotQuery query : HOT_QUERIES) {
+            try {
+                checkQueryPlan(query);
+            } catch (Exception e) {
+                log.warn("执行计划检查失败 [{}]: {}", query.name(), e.getMessage());
+            }
+        }
+    }
+
+    private void checkQueryPlan(HotQuery query) {
+        String name = query.name();
+        List<Map<String, Object>> rows = jdbcTemplate.queryForList("EXPLAIN " + query.sql(), query.params());
+
+        boolean fullScan = false;
+        for (Map<String, Object> row : rows) {
+            if (!"ALL".equals(String.valueOf(row.get("type")))) {
+                continue;
+            }
+            fullScan = true;
+            Object possibleKeys = row.get("possible_keys");
+            if (possibleKeys == null) {
+                log.warn("⚠️ 查询 [{}] 对表 {} 执行全表扫描且没有可用索引（预估扫描 {} 行），请检查索引迁移是否已执行",
+                        name, row.get("table"), row.get("rows"));
+            } else {
+                // 有可用索引但优化器仍选择全表扫描，通常是表数据量很小
+                log.info("查询 [{}] 对表 {} 选择了全表扫描（可用索引: {}，预估扫描 {} 行）",
+                        name, row.get("table"), possibleKeys, row.get("rows"));
+            }
+        }
+        if (!fullScan) {
+            log.info("✅ 查询 [{}] 执行计划正常", name);
+        }
+    }
+
+    private record HotQuery(String name, String sql, Object... params) {
+    }
+}
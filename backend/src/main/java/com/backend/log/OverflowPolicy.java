@@ -0,0 +1,21 @@
+package com.backend.log;
+
+/**
+ * 日志缓冲区溢出策略
+ */
+public enum OverflowPolicy {
+    /**
+     * 缓冲区满时直接丢弃新日志
+     */
+    DROP,
+
+    /**
+     * 超过水位线后按比例采样，缓冲区满时丢弃
+     */
+    SAMPLE,
+
+    /**
+     * 缓冲区满时请求线程短暂等待，超时后丢弃
+     */
+    BLOCK
+}
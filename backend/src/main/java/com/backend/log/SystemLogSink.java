@@ -0,0 +1,220 @@
+package com.backend.log;
+
+import com.backend.config.LogSinkProperties;
+import com.backend.dao.mapper.SystemLogMapper;
+import com.backend.entity.SystemLog;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * 系统日志异步写入器
+ * 切面把日志放进环形缓冲区后立即返回，后台线程按条数/时间阈值批量插入 system_log
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class SystemLogSink {
+
+    private final SystemLogMapper systemLogMapper;
+    private final LogSinkProperties properties;
+    private final MeterRegistry meterRegistry;
+
+    private SystemLogRingBuffer buffer;
+    private Thread writerThread;
+    private volatile boolean running;
+    private final AtomicLong sampleCounter = new AtomicLong();
+    /**
+     * 正在提交的请求数，关闭时等它们放入缓冲区后再做最后一次写入
+     */
+    private final AtomicInteger submitting = new AtomicInteger();
+
+    private Counter queuedCounter;
+    private Counter overflowDroppedCounter;
+    private Counter sampledDroppedCounter;
+    private Counter failedDroppedCounter;
+    private Counter shutdownDroppedCounter;
+    private Counter flushedCounter;
+
+    @PostConstruct
+    public void start() {
+        queuedCounter = Counter.builder("smartair.log.sink.queued")
+                .description("进入缓冲区的日志条数").register(meterRegistry);
+        overflowDroppedCounter = droppedCounter("overflow");
+        sampledDroppedCounter = droppedCounter("sampled");
+        failedDroppedCounter = droppedCounter("error");
+        shutdownDroppedCounter = droppedCounter("shutdown");
+        flushedCounter = Counter.builder("smartair.log.sink.flushed")
+                .description("成功写入数据库的日志条数").register(meterRegistry);
+
+        if (!properties.isEnabled()) {
+            log.info("系统日志异步写入未启用，使用同步插入");
+            return;
+        }
+
+        buffer = new SystemLogRingBuffer(properties.getCapacity());
+        Gauge.builder("smartair.log.sink.pending", buffer, SystemLogRingBuffer::size)
+                .description("缓冲区中等待写入的日志条数").register(meterRegistry);
+
+        running = true;
+        writerThread = new Thread(this::runWriter, "system-log-writer");
+        writerThread.setDaemon(true);
+        writerThread.start();
+        log.info("系统日志异步写入已启动，容量: {}，批量: {}，溢出策略: {}",
+                buffer.capacity(), properties.getBatchSize(), properties.getOverflowPolicy());
+    }
+
+    /**
+     * 提交一条日志，不会因数据库写入而阻塞请求线程
+     * 关闭开始后提交的日志不再进入缓冲区，计入 reason=shutdown 的丢弃数
+     *
+     * @param systemLog 日志
+     */
+    public void submit(SystemLog systemLog) {
+        if (buffer == null) {
+            systemLogMapper.insert(systemLog);
+            flushedCounter.increment();
+            return;
+        }
+
+        submitting.incrementAndGet();
+        try {
+            if (!running) {
+                shutdownDroppedCounter.increment();
+                return;
+            }
+            boolean accepted = switch (properties.getOverflowPolicy()) {
+                case DROP -> offerOrDrop(systemLog);
+                case SAMPLE -> offerSampled(systemLog);
+                case BLOCK -> offerBlocking(systemLog);
+            };
+            if (accepted) {
+                queuedCounter.increment();
+                if (buffer.size() >= properties.getBatchSize()) {
+                    LockSupport.unpark(writerThread);
+                }
+            }
+        } finally {
+            submitting.decrementAndGet();
+        }
+    }
+
+    private boolean offerOrDrop(SystemLog systemLog) {
+        if (buffer.offer(systemLog)) {
+            return true;
+        }
+        overflowDroppedCounter.increment();
+        return false;
+    }
+
+    private boolean offerSampled(SystemLog systemLog) {
+        if (buffer.size() >= buffer.capacity() * properties.getSampleWatermark()
+                && sampleCounter.incrementAndGet() % Math.max(1, properties.getSampleRate()) != 0) {
+            sampledDroppedCounter.increment();
+            return false;
+        }
+        return offerOrDrop(systemLog);
+    }
+
+    private boolean offerBlocking(SystemLog systemLog) {
+        long deadline = System.nanoTime() + properties.getBlockTimeout().toNanos();
+        while (!buffer.offer(systemLog)) {
+            if (!running || System.nanoTime() >= deadline) {
+                overflowDroppedCounter.increment();
+                return false;
+            }
+            LockSupport.unpark(writerThread);
+            LockSupport.parkNanos(TimeUnit.MICROSECONDS.toNanos(100));
+        }
+        return true;
+    }
+
+    /**
+     * 后台写入线程：攒满一批或到达刷新间隔时写入
+     */
+    private void runWriter() {
+        int batchSize = Math.max(1, properties.getBatchSize());
+        long flushIntervalNanos = properties.getFlushInterval().toNanos();
+        List<SystemLog> batch = new ArrayList<>(batchSize);
+        long lastFlush = System.nanoTime();
+
+        while (running) {
+            buffer.drainTo(batch, batchSize - batch.size());
+            long now = System.nanoTime();
+            if (batch.size() >= batchSize || (!batch.isEmpty() && now - lastFlush >= flushIntervalNanos)) {
+                flush(batch);
+                lastFlush = now;
+                continue;
+            }
+            if (batch.isEmpty()) {
+                lastFlush = now;
+            }
+            LockSupport.parkNanos(Math.max(TimeUnit.MILLISECONDS.toNanos(1),
+                    flushIntervalNanos - (now - lastFlush)));
+        }
+        // 已从缓冲区取出但还没攒满一批的日志，关闭时缓冲区的最后一次写入不会再看到它们
+        if (!batch.isEmpty()) {
+            flush(batch);
+        }
+    }
+
+    private void flush(List<SystemLog> batch) {
+        try {
+            systemLogMapper.insertBatch(batch);
+            flushedCounter.increment(batch.size());
+        } catch (Exception e) {
+            failedDroppedCounter.increment(batch.size());
+            log.warn("批量写入系统日志失败，丢弃 {} 条: {}", batch.size(), e.getMessage());
+        } finally {
+            batch.clear();
+        }
+    }
+
+    /**
+     * 应用关闭时停止后台线程并写完缓冲区中剩余的日志
+     */
+    @PreDestroy
+    public void shutdown() {
+        if (buffer == null) {
+            return;
+        }
+        running = false;
+        LockSupport.unpark(writerThread);
+        try {
+            writerThread.join(properties.getShutdownTimeout().toMillis());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        // 已通过检查的提交放入缓冲区后再清空，之后的提交会看到 running=false 而被拒绝
+        long deadline = System.nanoTime() + properties.getShutdownTimeout().toNanos();
+        while (submitting.get() > 0 && System.nanoTime() < deadline) {
+            LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(1));
+        }
+
+        int batchSize = Math.max(1, properties.getBatchSize());
+        List<SystemLog> batch = new ArrayList<>(batchSize);
+        while (buffer.drainTo(batch, batchSize) > 0) {
+            flush(batch);
+        }
+        log.info("系统日志异步写入已停止");
+    }
+
+    private Counter droppedCounter(String reason) {
+        return Counter.builder("smartair.log.sink.dropped")
+                .description("未写入数据库的日志条数")
+                .tag("reason", reason)
+                .register(meterRegistry);
+    }
+}
@@ -0,0 +1,42 @@
+package com.backend.memory;
+
+import com.backend.entity.ConversationDocument;
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Component;
+
+/**
+ * 对话摘要存取，摘要保存在 conversations 集合对应会话文档的 summary 字段中
+ */
+@Component
+@RequiredArgsConstructor
+public class ConversationSummaryStore {
+
+    private final MongoTemplate mongoTemplate;
+
+    /**
+     * @return 会话不存在或尚未生成摘要时返回 null
+     */
+    public ConversationDocument.Summary get(String conversationUuid) {
+        Query query = byUuid(conversationUuid);
+        query.fields().include("summary");
+        ConversationDocument doc = mongoTemplate.findOne(query, ConversationDocument.class);
+        return doc != null ? doc.getSummary() : null;
+    }
+
+    /**
+     * 保存摘要，只更新已存在的会话文档
+     * @return 会话文档不存在时返回 false
+     */
+    public boolean save(String conversationUuid, ConversationDocument.Summary summary) {
+        return mongoTemplate.updateFirst(byUuid(conversationUuid), new Update().set("summary", summary),
+                ConversationDocument.class).getMatchedCount() > 0;
+    }
+
+    private Query byUuid(String conversationUuid) {
+        return new Query(Criteria.where("conversation_uuid").is(conversationUuid));
+    }
+}
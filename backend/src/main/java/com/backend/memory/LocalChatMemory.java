@@ -0,0 +1,64 @@
+package com.backend.memory;
+
+import com.backend.config.AiProperties;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.ai.chat.memory.ChatMemory;
+import org.springframework.ai.chat.messages.Message;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+
+/**
+ * 进程内的对话记忆
+ * 每个会话一个独立的消息窗口，超过最大条数丢弃最早的消息，会话空闲超过过期时间后整体回收
+ * 用户消息和 AI 回复保存为带写入时间的副本，与其他存储读出的消息一致
+ */
+public class LocalChatMemory implements ChatMemory {
+
+    private final AiProperties.Memory properties;
+    private final Cache<String, Deque<Message>> conversations;
+
+    public LocalChatMemory(AiProperties.Memory properties) {
+        this.properties = properties;
+        this.conversations = Caffeine.newBuilder()
+                .expireAfterAccess(properties.getTtl())
+                .build();
+    }
+
+    @Override
+    public void add(String conversationId, List<Message> messages) {
+        long now = System.currentTimeMillis();
+        List<Message> stamped = new ArrayList<>(messages.size());
+        for (Message message : messages) {
+            Message copy = MemoryMessages.of(message.getMessageType(), message.getContent(), now);
+            stamped.add(copy != null ? copy : message);
+        }
+        Deque<Message> window = conversations.get(conversationId, id -> new ArrayDeque<>());
+        synchronized (window) {
+            window.addAll(stamped);
+            while (window.size() > properties.getMaxMessages()) {
+                window.pollFirst();
+            }
+        }
+    }
+
+    @Override
+    public List<Message> get(String conversationId, int lastN) {
+        Deque<Message> window = conversations.getIfPresent(conversationId);
+        if (window == null || lastN <= 0) {
+            return List.of();
+        }
+        synchronized (window) {
+            List<Message> messages = new ArrayList<>(window);
+            return messages.subList(Math.max(0, messages.size() - lastN), messages.size());
+        }
+    }
+
+    @Override
+    public void clear(String conversationId) {
+        conversations.invalidate(conversationId);
+    }
+}
@@ -0,0 +1,45 @@
+package com.backend.memory;
+
+import org.springframework.ai.chat.messages.AssistantMessage;
+import org.springframework.ai.chat.messages.Message;
+import org.springframework.ai.chat.messages.MessageType;
+import org.springframework.ai.chat.messages.SystemMessage;
+import org.springframework.ai.chat.messages.UserMessage;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 对话记忆中的消息
+ * 各存储读出的用户消息和 AI 回复都在元数据中带上写入时间，内容相同的消息（如多次回复“好的”）也能区分先后
+ */
+final class MemoryMessages {
+
+    static final String TIMESTAMP = "timestamp";
+
+    private MemoryMessages() {
+    }
+
+    /**
+     * @param timestamp 写入时间（毫秒），旧数据没有记录时为 null
+     * @return 不支持的消息类型返回 null
+     */
+    static Message of(MessageType type, String content, Long timestamp) {
+        Map<String, Object> metadata = timestamp != null ? Map.of(TIMESTAMP, timestamp) : Map.of();
+        return switch (type) {
+            case USER -> new UserMessage(content, List.of(), metadata);
+            case ASSISTANT -> new AssistantMessage(content, metadata);
+            // 系统消息不参与摘要，不需要写入时间
+            case SYSTEM -> new SystemMessage(content);
+            default -> null;
+        };
+    }
+
+    /**
+     * @return 消息的写入时间，没有记录时返回 null
+     */
+    static Long timestamp(Message message) {
+        Map<String, Object> metadata = message.getMetadata();
+        return metadata != null && metadata.get(TIMESTAMP) instanceof Number value ? value.longValue() : null;
+    }
+}
@@ -1,64 +1,116 @@
-//package com.backend.memory;
-//
-//import com.backend.dao.mongo.ConversationRepository;
-//import com.backend.entity.ConversationDocument;
-//import com.backend.entity.ConversationDocument.Message;
-//import com.backend.entity.ConversationDocument.Metadata;
-//
-//import lombok.RequiredArgsConstructor;
-//import org.springframework.ai.chat.memory.ChatMemory;
-//import org.springframework.stereotype.Component;
-//
-//import java.util.*;
-//
-//@Component
-//@RequiredArgsConstructor
-//public class MongoChatMemory implements ChatMemory {
-//
-//    private final ConversationRepository conversationRepository;
-//
-//    @Override
-//    public void add(String conversationId, List<Message> messages) {
-//        ConversationDocument conversation = conversationRepository.findByConversationUuid(conversationId)
-//                .orElseGet(() -> {
-//                    ConversationDocument doc = new ConversationDocument();
-//                    doc.setConversationUuid(conversationId);
-//                    doc.setMessages(new ArrayList<>());
-//                    doc.setMetadata(new Metadata(new Date(), null));
-//                    return doc;
-//                });
-//
-//        conversation.getMessages().addAll(messages);
-//
-//        // 更新 session_end 时间
-//        conversation.getMetadata().setSessionEnd(new Date());
-//
-//        conversationRepository.save(conversation);
-//    }
-//
-//    @Override
-//    public List<Message> get(String conversationId, int lastN) {
-//        Optional<ConversationDocument> optional = conversationRepository.findByConversationUuid(conversationId);
-//        if (optional.isEmpty()) return Collections.emptyList();
-//
-//        List<Message> messages = optional.get().getMessages();
-//        if (messages == null) return Collections.emptyList();
-//
-//        return messages.stream()
-//                .skip(Math.max(0, messages.size() - lastN))
-//                .toList();
-//    }
-//
-//    @Override
-//    public void clear(String conversationId) {
-//        Optional<ConversationDocument> optional = conversationRepository.findByConversationUuid(conversationId);
-//        optional.ifPresent(doc -> {
-//            doc.setMessages(new ArrayList<>());
-//            Metadata metadata = doc.getMetadata();
-//            if (metadata != null) {
-//                metadata.setSessionEnd(new Date());
-//            }
-//            conversationRepository.save(doc);
-//        });
-//    }
-//}
+package com.backend.memory;
+
+import com.backend.config.AiProperties;
+import com.backend.entity.ChatMemoryDocument;
+import com.backend.entity.ConversationDocument;
+import org.springframework.ai.chat.memory.ChatMemory;
+import org.springframework.ai.chat.messages.Message;
+import org.springframework.ai.chat.messages.MessageType;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+
+/**
+ * 基于 MongoDB 的对话记忆
+ * 保存在独立的 chat_memory 集合中，不写 conversations 集合：会话记录由前端追加用户消息、
+ * 回复写入队列追加 AI 回复，记忆若也写入会产生重复消息，截断时还会丢掉用户能看到的历史记录
+ * 写入用 $push/$each/$slice 原子追加，读取用 $slice 投影只取最后 N 条；
+ * conversation_uuid 上的唯一索引由 MongoIndexInitializer 创建
+ */
+public class MongoChatMemory implements ChatMemory {
+
+    private final MongoTemplate mongoTemplate;
+    private final AiProperties.Memory properties;
+
+    public MongoChatMemory(MongoTemplate mongoTemplate, AiProperties.Memory properties) {
+        this.mongoTemplate = mongoTemplate;
+        this.properties = properties;
+    }
+
+    @Override
+    public void add(String conversationId, List<Message> messages) {
+        Date now = new Date();
+        List<ConversationDocument.Message> docs = new ArrayList<>(messages.size());
+        for (Message message : messages) {
+            String speaker = toSpeaker(message.getMessageType());
+            if (speaker != null) {
+                docs.add(new ConversationDocument.Message(speaker, message.getContent(), now));
+            }
+        }
+        if (docs.isEmpty()) {
+            return;
+        }
+
+        Update update = new Update().set("updated_at", now);
+        Update.PushOperatorBuilder push = update.push("messages");
+        if (properties.getMongoMaxMessages() > 0) {
+            push.slice(-properties.getMongoMaxMessages());
+        }
+        push.each(docs.toArray());
+
+        try {
+            mongoTemplate.upsert(byUuid(conversationId), update, ChatMemoryDocument.class);
+        } catch (DuplicateKeyException e) {
+            // 同一会话首轮并发 upsert，唯一索引只放行一个插入，落败的一方此时文档已存在，重试即为更新
+            mongoTemplate.upsert(byUuid(conversationId), update, ChatMemoryDocument.class);
+        }
+    }
+
+    @Override
+    public List<Message> get(String conversationId, int lastN) {
+        if (lastN <= 0) {
+            return Collections.emptyList();
+        }
+        Query query = byUuid(conversationId);
+        query.fields().include("messages").slice("messages", -lastN);
+
+        ChatMemoryDocument doc = mongoTemplate.findOne(query, ChatMemoryDocument.class);
+        if (doc == null || doc.getMessages() == null) {
+            return Collections.emptyList();
+        }
+
+        List<Message> result = new ArrayList<>(doc.getMessages().size());
+        for (ConversationDocument.Message message : doc.getMessages()) {
+            result.add(toMessage(message));
+        }
+        return result;
+    }
+
+    @Override
+    public void clear(String conversationId) {
+        mongoTemplate.remove(byUuid(conversationId), ChatMemoryDocument.class);
+    }
+
+    private static Query byUuid(String conversationId) {
+        return new Query(Criteria.where("conversation_uuid").is(conversationId));
+    }
+
+    private static String toSpeaker(MessageType type) {
+        return switch (type) {
+            case USER -> "user";
+            case ASSISTANT -> "assistant";
+            case SYSTEM -> "system";
+            // 工具调用的中间消息不进入记忆
+            default -> null;
+        };
+    }
+
+    private static Message toMessage(ConversationDocument.Message message) {
+        String text = message.getText() != null ? message.getText() : "";
+        Long timestamp = message.getTimestamp() != null ? message.getTimestamp().getTime() : null;
+        if ("user".equals(message.getSpeaker())) {
+            return MemoryMessages.of(MessageType.USER, text, timestamp);
+        }
+        if ("system".equals(message.getSpeaker())) {
+            return MemoryMessages.of(MessageType.SYSTEM, text, timestamp);
+        }
+        return MemoryMessages.of(MessageType.ASSISTANT, text, timestamp);
+    }
+}
@@ -0,0 +1,119 @@
+package com.backend.memory;
+
+import com.backend.config.AiProperties;
+import com.backend.dao.redis.RedisDao;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.ai.chat.memory.ChatMemory;
+import org.springframework.ai.chat.messages.Message;
+import org.springframework.ai.chat.messages.MessageType;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 基于 Redis 列表的对话记忆
+ * 每个会话对应一个 chat:memory:{id} 列表，写入时裁剪到最大条数并刷新过期时间，
+ * 热点会话的窗口额外缓存在本地，多实例共享同一份 Redis 数据
+ */
+@Slf4j
+public class RedisChatMemory implements ChatMemory {
+
+    private static final String KEY_PREFIX = "chat:memory:";
+
+    private final RedisDao redisDao;
+    private final ObjectMapper objectMapper;
+    private final AiProperties.Memory properties;
+    private final Cache<String, List<Message>> nearCache;
+
+    public RedisChatMemory(RedisDao redisDao, ObjectMapper objectMapper, AiProperties.Memory properties) {
+        this.redisDao = redisDao;
+        this.objectMapper = objectMapper;
+        this.properties = properties;
+        this.nearCache = Caffeine.newBuilder()
+                .maximumSize(properties.getNearCacheSize())
+                .expireAfterWrite(properties.getNearCacheTtl())
+                .build();
+    }
+
+    @Override
+    public void add(String conversationId, List<Message> messages) {
+        long now = System.currentTimeMillis();
+        List<String> values = new ArrayList<>(messages.size());
+        for (Message message : messages) {
+            String value = serialize(message, now);
+            if (value != null) {
+                values.add(value);
+            }
+        }
+        redisDao.appendToCappedList(key(conversationId), values, properties.getMaxMessages(),
+                properties.getTtl().toSeconds(), TimeUnit.SECONDS);
+        nearCache.invalidate(conversationId);
+    }
+
+    @Override
+    public List<Message> get(String conversationId, int lastN) {
+        if (lastN <= 0) {
+            return List.of();
+        }
+        List<Message> window = nearCache.get(conversationId, this::load);
+        int from = Math.max(0, window.size() - lastN);
+        return new ArrayList<>(window.subList(from, window.size()));
+    }
+
+    @Override
+    public void clear(String conversationId) {
+        redisDao.delete(key(conversationId));
+        nearCache.invalidate(conversationId);
+    }
+
+    private List<Message> load(String conversationId) {
+        List<String> values = redisDao.getListRange(key(conversationId), 0, -1);
+        List<Message> messages = new ArrayList<>(values.size());
+        for (String value : values) {
+            Message message = deserialize(value);
+            if (message != null) {
+                messages.add(message);
+            }
+        }
+        return List.copyOf(messages);
+    }
+
+    private String serialize(Message message, long timestamp) {
+        MessageType type = message.getMessageType();
+        if (type != MessageType.USER && type != MessageType.ASSISTANT && type != MessageType.SYSTEM) {
+            // 工具调用的中间消息不进入记忆
+            return null;
+        }
+        try {
+            return objectMapper.writeValueAsString(new StoredMessage(type.getValue(), message.getContent(), timestamp));
+        } catch (JsonProcessingException e) {
+            log.warn("序列化对话消息失败: {}", e.getMessage());
+            return null;
+        }
+    }
+
+    private Message deserialize(String value) {
+        try {
+            StoredMessage stored = objectMapper.readValue(value, StoredMessage.class);
+            return MemoryMessages.of(MessageType.fromValue(stored.type()), stored.content(), stored.timestamp());
+        } catch (JsonProcessingException | IllegalArgumentException e) {
+            log.warn("解析对话消息失败，已跳过: {}", e.getMessage());
+            return null;
+        }
+    }
+
+    private static String key(String conversationId) {
+        return KEY_PREFIX + conversationId;
+    }
+
+    /**
+     * Redis 中保存的消息结构，timestamp 为写入时间（毫秒），旧数据中没有
+     */
+    record StoredMessage(String type, String content, Long timestamp) {
+    }
+}
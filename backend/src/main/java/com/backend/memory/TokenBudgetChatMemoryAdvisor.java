@@ -0,0 +1,295 @@
+package com.backend.memory;
+
+import com.backend.config.AiProperties;
+import com.backend.entity.ConversationDocument;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.ai.chat.client.AdvisedRequest;
+import org.springframework.ai.chat.client.RequestResponseAdvisor;
+import org.springframework.ai.chat.client.advisor.AbstractChatMemoryAdvisor;
+import org.springframework.ai.chat.memory.ChatMemory;
+import org.springframework.ai.chat.messages.AssistantMessage;
+import org.springframework.ai.chat.messages.Message;
+import org.springframework.ai.chat.messages.MessageType;
+import org.springframework.ai.chat.messages.UserMessage;
+import org.springframework.ai.chat.model.ChatModel;
+import org.springframework.ai.chat.model.ChatResponse;
+import org.springframework.ai.chat.model.MessageAggregator;
+import org.springframework.util.StringUtils;
+import reactor.core.publisher.Flux;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 按 token 预算注入对话记忆的顾问
+ * 最近的消息在预算内保留原文，更早的消息由滚动摘要代替，提示词长度不随会话变长而增长。
+ * 有消息移出原文窗口时在后台线程把它们并入摘要，请求线程只读取已有摘要，不等待模型生成。
+ */
+@Slf4j
+public class TokenBudgetChatMemoryAdvisor implements RequestResponseAdvisor {
+
+    private static final String MEMORY_PARAM = "memory";
+
+    private static final String SYSTEM_TEXT_ADVISE = """
+
+            以下是与当前用户的历史对话，回答时请参考：
+            ---------------------
+            {memory}
+            ---------------------
+            """;
+
+    private static final String SUMMARY_PROMPT = """
+            你负责为航空公司客服对话维护摘要。请把"已有摘要"与"新增对话"合并为一份新的摘要，不超过 %d 字。
+            必须保留：订单号、乘客姓名、用户的诉求、已经完成的操作（如查询、退订）以及尚未解决的问题；
+            省略寒暄和重复内容。只输出摘要正文。
+
+            已有摘要：
+            %s
+
+            新增对话：
+            %s
+            """;
+
+    private final ChatMemory chatMemory;
+    private final ConversationSummaryStore summaryStore;
+    private final ChatModel chatModel;
+    private final AiProperties.Memory properties;
+
+    /**
+     * 摘要在独立的小线程池中生成，队列满时放弃本次任务，下次请求再提交
+     */
+    private final ThreadPoolExecutor executor = new ThreadPoolExecutor(1, 2, 60, TimeUnit.SECONDS,
+            new ArrayBlockingQueue<>(100), runnable -> {
+                Thread thread = new Thread(runnable, "memory-summary");
+                thread.setDaemon(true);
+                return thread;
+            });
+
+    /**
+     * 正在生成摘要的会话，同一会话同时只有一个摘要任务
+     */
+    private final Set<String> summarizing = ConcurrentHashMap.newKeySet();
+
+    /**
+     * 没有会话文档、无处保存摘要的会话（如未传会话ID的一次性对话），一段时间内不再尝试生成摘要
+     */
+    private final Cache<String, Boolean> unsummarizable = Caffeine.newBuilder()
+            .maximumSize(10000)
+            .expireAfterWrite(Duration.ofHours(1))
+            .build();
+
+    public TokenBudgetChatMemoryAdvisor(ChatMemory chatMemory, ConversationSummaryStore summaryStore,
+                                        ChatModel chatModel, AiProperties.Memory properties) {
+        this.chatMemory = chatMemory;
+        this.summaryStore = summaryStore;
+        this.chatModel = chatModel;
+        this.properties = properties;
+    }
+
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    @Override
+    public AdvisedRequest adviseRequest(AdvisedRequest request, Map<String, Object> context) {
+        String conversationId = conversationId(context);
+        int retrieveSize = retrieveSize(context);
+
+        List<Message> history = chatMemory.get(conversationId, retrieveSize);
+        int windowStart = windowStart(history);
+        ConversationDocument.Summary summary = windowStart > 0 ? loadSummary(conversationId) : null;
+        if (windowStart > 0) {
+            scheduleSummary(conversationId, history.subList(0, windowStart), summary);
+        }
+
+        String memory = render(summary, history.subList(windowStart, history.size()));
+        Map<String, Object> systemParams = new HashMap<>(request.systemParams());
+        systemParams.put(MEMORY_PARAM, memory);
+        AdvisedRequest advised = AdvisedRequest.from(request)
+                .withSystemText(request.systemText() + System.lineSeparator() + SYSTEM_TEXT_ADVISE)
+                .withSystemParams(systemParams)
+                .build();
+
+        chatMemory.add(conversationId, List.of(new UserMessage(request.userText())));
+        return advised;
+    }
+
+    @Override
+    public ChatResponse adviseResponse(ChatResponse response, Map<String, Object> context) {
+        saveAssistantMessage(response, context);
+        return response;
+    }
+
+    @Override
+    public Flux<ChatResponse> adviseResponse(Flux<ChatResponse> responses, Map<String, Object> context) {
+        return new MessageAggregator().aggregate(responses, response -> saveAssistantMessage(response, context));
+    }
+
+    private void saveAssistantMessage(ChatResponse response, Map<String, Object> context) {
+        if (response == null || response.getResult() == null || response.getResult().getOutput() == null) {
+            return;
+        }
+        String content = response.getResult().getOutput().getContent();
+        if (StringUtils.hasText(content)) {
+            chatMemory.add(conversationId(context), List.of(new AssistantMessage(content)));
+        }
+    }
+
+    /**
+     * 从最新的消息往前累加，返回预算内原文窗口的起始下标，之前的消息由摘要代替
+     */
+    private int windowStart(List<Message> history) {
+        int budget = properties.getTokenBudget();
+        int used = 0;
+        for (int i = history.size() - 1; i >= 0; i--) {
+            used += estimateTokens(history.get(i).getContent());
+            if (used > budget) {
+                return i + 1;
+            }
+        }
+        return 0;
+    }
+
+    private ConversationDocument.Summary loadSummary(String conversationId) {
+        try {
+            return summaryStore.get(conversationId);
+        } catch (Exception e) {
+            log.warn("读取对话摘要失败，会话: {}，原因: {}", conversationId, e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * 找出已移出原文窗口但尚未并入摘要的消息，提交后台任务合并
+     */
+    private void scheduleSummary(String conversationId, List<Message> overflow, ConversationDocument.Summary summary) {
+        List<Message> pending = unsummarized(overflow, summary);
+        if (pending.isEmpty() || unsummarizable.getIfPresent(conversationId) != null
+                || !summarizing.add(conversationId)) {
+            return;
+        }
+        List<Message> snapshot = List.copyOf(pending);
+        try {
+            executor.execute(() -> {
+                try {
+                    summarize(conversationId, snapshot, summary);
+                } catch (Exception e) {
+                    log.warn("生成对话摘要失败，会话: {}，原因: {}", conversationId, e.getMessage());
+                } finally {
+                    summarizing.remove(conversationId);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            summarizing.remove(conversationId);
+            log.debug("摘要任务队列已满，会话 {} 下次请求时重试", conversationId);
+        }
+    }
+
+    /**
+     * 摘要记录了最后覆盖的消息指纹，其后的消息就是待合并的部分；
+     * 指纹包含消息的写入时间，内容重复的消息不会被误认为已覆盖的那一条；
+     * 指纹找不到说明该消息已被记忆窗口裁掉，此时剩余的溢出消息都比它新
+     */
+    private List<Message> unsummarized(List<Message> overflow, ConversationDocument.Summary summary) {
+        if (summary == null || summary.getCoveredFingerprint() == null) {
+            return overflow;
+        }
+        for (int i = overflow.size() - 1; i >= 0; i--) {
+            if (summary.getCoveredFingerprint().equals(fingerprint(overflow.get(i)))) {
+                return overflow.subList(i + 1, overflow.size());
+            }
+        }
+        return overflow;
+    }
+
+    private void summarize(String conversationId, List<Message> messages, ConversationDocument.Summary previous) {
+        String previousText = previous != null && StringUtils.hasText(previous.getText()) ? previous.getText() : "（无）";
+        String prompt = SUMMARY_PROMPT.formatted(properties.getSummaryMaxLength(), previousText, transcript(messages));
+        String text = chatModel.call(prompt);
+        if (!StringUtils.hasText(text)) {
+            return;
+        }
+        String covered = fingerprint(messages.get(messages.size() - 1));
+        if (!summaryStore.save(conversationId, new ConversationDocument.Summary(text.strip(), covered, new Date()))) {
+            unsummarizable.put(conversationId, Boolean.TRUE);
+            return;
+        }
+        log.debug("对话摘要已更新，会话: {}，新并入 {} 条消息", conversationId, messages.size());
+    }
+
+    private String render(ConversationDocument.Summary summary, List<Message> window) {
+        StringBuilder memory = new StringBuilder();
+        if (summary != null && StringUtils.hasText(summary.getText())) {
+            memory.append("[较早对话摘要]").append(System.lineSeparator())
+                    .append(summary.getText()).append(System.lineSeparator())
+                    .append("[最近对话]").append(System.lineSeparator());
+        }
+        memory.append(transcript(window));
+        return memory.toString();
+    }
+
+    private static String transcript(List<Message> messages) {
+        StringBuilder text = new StringBuilder();
+        for (Message message : messages) {
+            if (message.getMessageType() == MessageType.USER || message.getMessageType() == MessageType.ASSISTANT) {
+                text.append(message.getMessageType()).append(": ").append(message.getContent()).append(System.lineSeparator());
+            }
+        }
+        return text.toString();
+    }
+
+    /**
+     * 粗略估算 token 数：汉字每个算 1 个，其余字符每 4 个算 1 个
+     */
+    private static int estimateTokens(String text) {
+        if (text == null) {
+            return 0;
+        }
+        int cjk = 0;
+        int other = 0;
+        for (int i = 0; i < text.length(); i++) {
+            if (Character.UnicodeScript.of(text.charAt(i)) == Character.UnicodeScript.HAN) {
+                cjk++;
+            } else {
+                other++;
+            }
+        }
+        return cjk + (other + 3) / 4;
+    }
+
+    private static String fingerprint(Message message) {
+        Long timestamp = MemoryMessages.timestamp(message);
+        String key = message.getMessageType() + ":" + (timestamp != null ? timestamp : "") + ":" + message.getContent();
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(key.getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(digest, 0, 16);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static String conversationId(Map<String, Object> context) {
+        Object id = context.get(AbstractChatMemoryAdvisor.CHAT_MEMORY_CONVERSATION_ID_KEY);
+        return id != null ? id.toString() : AbstractChatMemoryAdvisor.DEFAULT_CHAT_MEMORY_CONVERSATION_ID;
+    }
+
+    private static int retrieveSize(Map<String, Object> context) {
+        Object size = context.get(AbstractChatMemoryAdvisor.CHAT_MEMORY_RETRIEVE_SIZE_KEY);
+        return size != null ? Integer.parseInt(size.toString()) : AbstractChatMemoryAdvisor.DEFAULT_CHAT_MEMORY_RESPONSE_SIZE;
+    }
+}
@@ -1,8 +1,11 @@
 package com.backend.service;
 
 import com.backend.entity.ConversationIndex;
+import com.backend.vo.CursorPage;
 import com.baomidou.mybatisplus.extension.service.IService;
 
+import java.io.IOException;
+import java.io.OutputStream;
 import java.util.List;
 
 /**
@@ -81,4 +84,18 @@ public interface ConversationIndexService extends IService<ConversationIndex> {
      * @return 已转人工的会话列表
      */
     List<ConversationIndex> listTransferred();
-}
\ No newline at end of file
+
+    /**
+     * 游标分页查询会话索引，按ID倒序
+     * @param cursor 上一页返回的 nextCursor，首页传 null
+     * @param size 每页条数
+     * @return 分页结果
+     */
+    CursorPage<ConversationIndex> pageByCursor(Long cursor, int size);
+
+    /**
+     * 以 NDJSON 格式流式导出全部会话索引
+     * @param out 输出流
+     */
+    void exportAll(OutputStream out) throws IOException;
+}
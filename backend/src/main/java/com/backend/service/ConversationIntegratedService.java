@@ -2,7 +2,10 @@ package com.backend.service;
 
 import com.backend.entity.ConversationDocument;
 import com.backend.entity.ConversationIndex;
+import com.backend.vo.CursorPage;
 
+import java.io.IOException;
+import java.io.OutputStream;
 import java.util.List;
 import java.util.Map;
 
@@ -104,4 +107,18 @@ public interface ConversationIntegratedService {
      * @return 会话索引列表
      */
     List<ConversationIndex> listAllConversations();
-} 
\ No newline at end of file
+
+    /**
+     * 游标分页获取所有会话（管理员使用），按ID倒序
+     * @param cursor 上一页返回的 nextCursor，首页传 null
+     * @param size 每页条数
+     * @return 分页结果
+     */
+    CursorPage<ConversationIndex> pageAllConversations(Long cursor, int size);
+
+    /**
+     * 以 NDJSON 格式流式导出所有会话索引（管理员使用）
+     * @param out 输出流
+     */
+    void exportAllConversations(OutputStream out) throws IOException;
+}
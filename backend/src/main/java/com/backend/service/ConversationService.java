@@ -7,6 +7,7 @@ import java.util.List;
 public interface ConversationService {
     ConversationDocument startConversation(Long userId, String userInput);
     void appendMessage(String conversationUuid, String speaker, String text);
+    void appendMessages(String conversationUuid, List<ConversationDocument.Message> messages);
     List<ConversationDocument> getUserConversations(Long userId);
     void deleteConversation(String id);
 }
@@ -2,6 +2,33 @@ package com.backend.service;
 
 import com.backend.vo.DashboardData;
 
+import java.time.LocalDateTime;
+
 public interface DashboardService {
     DashboardData getDashboardData();
+
+    /**
+     * 记录新订单（事务提交后生效）
+     * @param userId 下单用户ID
+     */
+    void recordOrderCreated(Long userId);
+
+    /**
+     * 记录航班计划出发时间的变化（事务提交后生效）
+     * @param oldDepartureTime 原出发时间，新增航班时为 null
+     * @param newDepartureTime 新出发时间，删除航班时为 null
+     */
+    void recordFlightDepartureChanged(LocalDateTime oldDepartureTime, LocalDateTime newDepartureTime);
+
+    /**
+     * 记录已转人工会话数的变化（事务提交后生效）
+     * @param delta 增量，转人工为 1，关闭或删除已转人工的会话为 -1
+     */
+    void recordServiceTicketsChanged(long delta);
+
+    /**
+     * 用数据库重新计算统计数据并覆盖缓存
+     * @return 重新计算得到的仪表盘数据
+     */
+    DashboardData reconcile();
 }
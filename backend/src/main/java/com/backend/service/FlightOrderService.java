@@ -1,9 +1,13 @@
 package com.backend.service;
 
 import com.backend.entity.FlightOrder;
+import com.backend.vo.CursorPage;
 import com.backend.vo.FlightOrderDetail;
 import com.baomidou.mybatisplus.extension.service.IService;
 
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Collection;
 import java.util.List;
 
 /**
@@ -56,4 +60,35 @@ public interface FlightOrderService extends IService<FlightOrder> {
     FlightOrderDetail getOrderDetailById(Long id);
 
     List<FlightOrderDetail> getFlightOrderDetailsByName(String realName);
-}
\ No newline at end of file
+
+    /**
+     * 按订单ID批量获取订单详情
+     * @param orderIds 订单ID集合
+     * @return 订单详情列表
+     */
+    List<FlightOrderDetail> listOrderDetailsByIds(Collection<Long> orderIds);
+
+    /**
+     * 游标分页查询用户订单详情，按订单ID倒序
+     * @param userId 用户ID
+     * @param status 订单状态，为 null 时不过滤
+     * @param cursor 上一页返回的 nextCursor，首页传 null
+     * @param size 每页条数
+     * @return 分页结果
+     */
+    CursorPage<FlightOrderDetail> pageOrderDetailsByUserId(Long userId, Integer status, Long cursor, int size);
+
+    /**
+     * 游标分页查询订单，按ID倒序
+     * @param cursor 上一页返回的 nextCursor，首页传 null
+     * @param size 每页条数
+     * @return 分页结果
+     */
+    CursorPage<FlightOrder> pageByCursor(Long cursor, int size);
+
+    /**
+     * 以 NDJSON 格式流式导出全部订单
+     * @param out 输出流
+     */
+    void exportAll(OutputStream out) throws IOException;
+}
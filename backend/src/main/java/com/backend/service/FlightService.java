@@ -1,10 +1,14 @@
 package com.backend.service;
 
 import com.backend.entity.Flight;
+import com.backend.vo.CursorPage;
 import com.baomidou.mybatisplus.extension.service.IService;
 
+import java.io.IOException;
+import java.io.OutputStream;
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Map;
 
 /**
  * 航班服务接口
@@ -35,4 +39,24 @@ public interface FlightService extends IService<Flight> {
      * @return 航班列表
      */
     List<Flight> listByAirline(String airline);
-}
\ No newline at end of file
+
+    /**
+     * 游标分页查询航班，按ID倒序
+     * @param cursor 上一页返回的 nextCursor，首页传 null
+     * @param size 每页条数
+     * @return 分页结果
+     */
+    CursorPage<Flight> pageByCursor(Long cursor, int size);
+
+    /**
+     * 以 NDJSON 格式流式导出全部航班
+     * @param out 输出流
+     */
+    void exportAll(OutputStream out) throws IOException;
+
+    /**
+     * 比对航班内存索引与数据库，不一致时重建索引
+     * @return 一致性报告
+     */
+    Map<String, Object> checkIndexConsistency();
+}
@@ -0,0 +1,28 @@
+package com.backend.service;
+
+import com.backend.entity.KnowledgeDocument;
+
+/**
+ * 知识库向量索引服务
+ * 负责把知识文档切片、向量化后写入向量库，供 AI 客服按问题检索
+ */
+public interface KnowledgeIndexService {
+
+    /**
+     * 索引（或重新索引）一篇知识文档，旧的切片会被替换
+     * @param doc 知识文档
+     */
+    void index(KnowledgeDocument doc);
+
+    /**
+     * 从向量库中移除一篇知识文档的全部切片
+     * @param documentId 知识文档ID
+     */
+    void remove(String documentId);
+
+    /**
+     * 重新索引全部知识文档
+     * @return 写入的切片数
+     */
+    int reindexAll();
+}
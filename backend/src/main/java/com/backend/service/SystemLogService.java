@@ -1,8 +1,11 @@
 package com.backend.service;
 
 import com.backend.entity.SystemLog;
+import com.backend.vo.CursorPage;
 import com.baomidou.mybatisplus.extension.service.IService;
 
+import java.io.IOException;
+import java.io.OutputStream;
 import java.time.LocalDateTime;
 import java.util.List;
 
@@ -32,4 +35,18 @@ public interface SystemLogService extends IService<SystemLog> {
      * @return 清理的记录数
      */
     int cleanLogsBefore(LocalDateTime beforeTime);
-}
\ No newline at end of file
+
+    /**
+     * 游标分页查询系统日志，按ID倒序
+     * @param cursor 上一页返回的 nextCursor，首页传 null
+     * @param size 每页条数
+     * @return 分页结果
+     */
+    CursorPage<SystemLog> pageByCursor(Long cursor, int size);
+
+    /**
+     * 以 NDJSON 格式流式导出全部系统日志
+     * @param out 输出流
+     */
+    void exportAll(OutputStream out) throws IOException;
+}
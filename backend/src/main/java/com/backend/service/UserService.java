@@ -1,8 +1,15 @@
 package com.backend.service;
 
 import com.backend.entity.User;
+import com.backend.vo.CursorPage;
 import com.baomidou.mybatisplus.extension.service.IService;
 
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
 /**
  * 用户服务接口
  */
@@ -20,7 +27,7 @@ public interface UserService extends IService<User> {
      * @param userType 用户类型
      * @return 用户列表
      */
-    java.util.List<User> listByUserType(Integer userType);
+    List<User> listByUserType(Integer userType);
     
     /**
      * 更新用户会员等级
@@ -31,4 +38,25 @@ public interface UserService extends IService<User> {
     boolean updateMemberLevel(Long userId, Integer memberLevel);
 
     User getUserByRealName(String realName);
-}
\ No newline at end of file
+
+    /**
+     * 批量查询用户（带短时缓存），用于列表数据填充用户信息
+     * @param ids 用户ID集合，允许包含 null 与重复值
+     * @return 用户ID到用户的映射，不存在的用户不会出现在结果中；返回的是副本，修改不会影响缓存
+     */
+    Map<Long, User> mapByIds(Collection<Long> ids);
+
+    /**
+     * 游标分页查询用户（不含密码），按ID倒序
+     * @param cursor 上一页返回的 nextCursor，首页传 null
+     * @param size 每页条数
+     * @return 分页结果
+     */
+    CursorPage<User> pageByCursor(Long cursor, int size);
+
+    /**
+     * 以 NDJSON 格式流式导出全部用户（不含密码）
+     * @param out 输出流
+     */
+    void exportAll(OutputStream out) throws IOException;
+}
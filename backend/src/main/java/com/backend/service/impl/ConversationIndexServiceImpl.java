@@ -4,17 +4,25 @@ import com.backend.entity.ConversationIndex;
 import com.backend.entity.User;
 import com.backend.dao.mapper.ConversationIndexMapper;
 import com.backend.service.ConversationIndexService;
+import com.backend.service.DashboardService;
 import com.backend.service.UserService;
+import com.backend.util.CursorPageHelper;
+import com.backend.util.NdjsonExporter;
+import com.backend.vo.CursorPage;
 import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
 import com.baomidou.mybatisplus.extension.service.impl.ServiceImpl;
+import org.apache.ibatis.cursor.Cursor;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.io.IOException;
+import java.io.OutputStream;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 import java.util.UUID;
-import java.util.stream.Collectors;
 
 /**
  * 会话索引服务实现类
@@ -22,9 +30,15 @@ import java.util.stream.Collectors;
 @Service
 public class ConversationIndexServiceImpl extends ServiceImpl<ConversationIndexMapper, ConversationIndex> implements ConversationIndexService {
 
+    @Autowired
+    private NdjsonExporter ndjsonExporter;
+
     @Autowired
     private UserService userService;
 
+    @Autowired
+    private DashboardService dashboardService;
+
     @Override
     public List<ConversationIndex> listByUserId(Long userId) {
         LambdaQueryWrapper<ConversationIndex> queryWrapper = new LambdaQueryWrapper<>();
@@ -33,7 +47,7 @@ public class ConversationIndexServiceImpl extends ServiceImpl<ConversationIndexM
         List<ConversationIndex> conversations = list(queryWrapper);
 
         // 填充用户信息
-        return conversations.stream().map(this::fillUserInfo).collect(Collectors.toList());
+        return fillUserInfo(conversations);
     }
 
     @Override
@@ -44,7 +58,7 @@ public class ConversationIndexServiceImpl extends ServiceImpl<ConversationIndexM
 
         if (conversation != null) {
             // 填充用户信息
-            return fillUserInfo(conversation);
+            return fillUserInfo(List.of(conversation)).get(0);
         }
 
         return null;
@@ -71,7 +85,7 @@ public class ConversationIndexServiceImpl extends ServiceImpl<ConversationIndexM
         save(conversation);
 
         // 填充用户信息
-        return fillUserInfo(conversation);
+        return fillUserInfo(List.of(conversation)).get(0);
     }
 
     @Override
@@ -101,11 +115,17 @@ public class ConversationIndexServiceImpl extends ServiceImpl<ConversationIndexM
             return false;
         }
 
+        boolean alreadyTransferred = Integer.valueOf(2).equals(conversation.getStatus());
+
         // 状态设置为2-已转人工
         conversation.setStatus(2);
         conversation.setServiceUserId(serviceUserId);
 
-        return updateById(conversation);
+        boolean success = updateById(conversation);
+        if (success && !alreadyTransferred) {
+            dashboardService.recordServiceTicketsChanged(1);
+        }
+        return success;
     }
 
     @Override
@@ -116,10 +136,16 @@ public class ConversationIndexServiceImpl extends ServiceImpl<ConversationIndexM
             return false;
         }
 
+        boolean wasTransferred = Integer.valueOf(2).equals(conversation.getStatus());
+
         // 状态设置为3-已关闭
         conversation.setStatus(3);
 
-        return updateById(conversation);
+        boolean success = updateById(conversation);
+        if (success && wasTransferred) {
+            dashboardService.recordServiceTicketsChanged(-1);
+        }
+        return success;
     }
 
     @Override
@@ -130,7 +156,7 @@ public class ConversationIndexServiceImpl extends ServiceImpl<ConversationIndexM
         List<ConversationIndex> conversations = list(queryWrapper);
 
         // 填充用户信息
-        return conversations.stream().map(this::fillUserInfo).collect(Collectors.toList());
+        return fillUserInfo(conversations);
     }
 
     @Override
@@ -139,7 +165,7 @@ public class ConversationIndexServiceImpl extends ServiceImpl<ConversationIndexM
         List<ConversationIndex> conversations = baseMapper.selectTransferredByServiceUserId(serviceUserId);
 
         // 填充用户信息
-        return conversations.stream().map(this::fillUserInfo).collect(Collectors.toList());
+        return fillUserInfo(conversations);
     }
 
     @Override
@@ -149,7 +175,7 @@ public class ConversationIndexServiceImpl extends ServiceImpl<ConversationIndexM
 
         // 填充用户信息
         if (conversation != null) {
-            return fillUserInfo(conversation);
+            return fillUserInfo(List.of(conversation)).get(0);
         }
 
         return null;
@@ -163,26 +189,55 @@ public class ConversationIndexServiceImpl extends ServiceImpl<ConversationIndexM
 
         List<ConversationIndex> conversations = list(queryWrapper);
         // 填充用户信息
-        return conversations.stream().map(this::fillUserInfo).collect(Collectors.toList());
+        return fillUserInfo(conversations);
     }
 
     /**
-     * 填充会话相关的用户信息
+     * 批量填充会话相关的用户信息
+     * 先收集所有用户ID与客服ID，一次批量查询后在内存中回填
      *
-     * @param conversation 会话索引
-     * @return 填充后的会话索引
+     * @param conversations 会话索引列表
+     * @return 填充后的会话索引列表
      */
-    private ConversationIndex fillUserInfo(ConversationIndex conversation) {
-        // 设置用户信息
-        User user = userService.getById(conversation.getUserId());
-        conversation.setUser(user);
-
-        // 如果有客服ID，设置客服信息
-        if (conversation.getServiceUserId() != null) {
-            User serviceUser = userService.getById(conversation.getServiceUserId());
-            conversation.setServiceUser(serviceUser);
+    private List<ConversationIndex> fillUserInfo(List<ConversationIndex> conversations) {
+        if (conversations.isEmpty()) {
+            return conversations;
+        }
+
+        List<Long> userIds = new ArrayList<>(conversations.size() * 2);
+        for (ConversationIndex conversation : conversations) {
+            userIds.add(conversation.getUserId());
+            userIds.add(conversation.getServiceUserId());
+        }
+        Map<Long, User> users = userService.mapByIds(userIds);
+
+        for (ConversationIndex conversation : conversations) {
+            // 设置用户信息
+            conversation.setUser(users.get(conversation.getUserId()));
+
+            // 如果有客服ID，设置客服信息
+            if (conversation.getServiceUserId() != null) {
+                conversation.setServiceUser(users.get(conversation.getServiceUserId()));
+            }
         }
 
-        return conversation;
+        return conversations;
+    }
+
+    @Override
+    public CursorPage<ConversationIndex> pageByCursor(Long cursor, int size) {
+        CursorPage<ConversationIndex> page = CursorPageHelper.page(baseMapper, new LambdaQueryWrapper<>(),
+                ConversationIndex::getId, cursor, size);
+        // 与列表接口一致，填充用户与客服信息
+        fillUserInfo(page.getRecords());
+        return page;
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public void exportAll(OutputStream out) throws IOException {
+        try (Cursor<ConversationIndex> cursor = baseMapper.streamAll()) {
+            ndjsonExporter.write(cursor, out);
+        }
     }
-}
\ No newline at end of file
+}
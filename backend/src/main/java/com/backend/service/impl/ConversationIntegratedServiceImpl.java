@@ -6,10 +6,14 @@ import com.backend.entity.ConversationIndex;
 import com.backend.service.ConversationIndexService;
 import com.backend.service.ConversationIntegratedService;
 import com.backend.service.ConversationService;
+import com.backend.service.DashboardService;
+import com.backend.vo.CursorPage;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.io.IOException;
+import java.io.OutputStream;
 import java.util.*;
 
 /**
@@ -21,6 +25,7 @@ public class ConversationIntegratedServiceImpl implements ConversationIntegrated
 
     private final ConversationIndexService conversationIndexService;
     private final ConversationService conversationService;
+    private final DashboardService dashboardService;
     private final ConversationRepository conversationRepository;
 
     @Override
@@ -125,7 +130,10 @@ public class ConversationIntegratedServiceImpl implements ConversationIntegrated
             // 3. 删除MySQL中的会话索引
             ConversationIndex conversationIndex = conversationIndexService.getByUuid(uuid);
             if (conversationIndex != null) {
-                conversationIndexService.removeById(conversationIndex.getId());
+                boolean removed = conversationIndexService.removeById(conversationIndex.getId());
+                if (removed && Integer.valueOf(2).equals(conversationIndex.getStatus())) {
+                    dashboardService.recordServiceTicketsChanged(-1);
+                }
             }
             
             return true;
@@ -139,4 +147,14 @@ public class ConversationIntegratedServiceImpl implements ConversationIntegrated
     public List<ConversationIndex> listAllConversations() {
         return conversationIndexService.list();
     }
-} 
\ No newline at end of file
+
+    @Override
+    public CursorPage<ConversationIndex> pageAllConversations(Long cursor, int size) {
+        return conversationIndexService.pageByCursor(cursor, size);
+    }
+
+    @Override
+    public void exportAllConversations(OutputStream out) throws IOException {
+        conversationIndexService.exportAll(out);
+    }
+}
@@ -3,7 +3,12 @@ package com.backend.service.impl;
 import com.backend.dao.mongo.ConversationRepository;
 import com.backend.entity.ConversationDocument;
 import com.backend.service.ConversationService;
+import com.mongodb.client.result.UpdateResult;
 import lombok.RequiredArgsConstructor;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
 import org.springframework.stereotype.Service;
 
 import java.util.ArrayList;
@@ -16,6 +21,7 @@ import java.util.UUID;
 public class ConversationServiceImpl implements ConversationService {
 
     private final ConversationRepository conversationDao;
+    private final MongoTemplate mongoTemplate;
 
     @Override
     public ConversationDocument startConversation(Long userId, String userInput) {
@@ -33,11 +39,23 @@ public class ConversationServiceImpl implements ConversationService {
 
     @Override
     public void appendMessage(String conversationUuid, String speaker, String text) {
-        ConversationDocument doc = conversationDao.findByConversationUuid(conversationUuid)
-                .orElseThrow(() -> new RuntimeException("会话不存在"));
-        doc.getMessages().add(new ConversationDocument.Message(speaker, text, new Date()));
-        doc.getMetadata().setSessionEnd(new Date());
-        conversationDao.save(doc);
+        appendMessages(conversationUuid, List.of(new ConversationDocument.Message(speaker, text, new Date())));
+    }
+
+    @Override
+    public void appendMessages(String conversationUuid, List<ConversationDocument.Message> messages) {
+        if (messages == null || messages.isEmpty()) {
+            return;
+        }
+        // 原子追加，不读取也不重写整个文档，并发追加不会互相覆盖
+        Query query = new Query(Criteria.where("conversation_uuid").is(conversationUuid));
+        Update update = new Update()
+                .push("messages").each(messages.toArray())
+                .set("metadata.session_end", new Date());
+        UpdateResult result = mongoTemplate.updateFirst(query, update, ConversationDocument.class);
+        if (result.getMatchedCount() == 0) {
+            throw new RuntimeException("会话不存在");
+        }
     }
 
     @Override
@@ -1,31 +1,210 @@
 package com.backend.service.impl;
 
 import com.backend.dao.mapper.DashboardMapper;
+import com.backend.dao.redis.DashboardStatsDao;
 import com.backend.service.DashboardService;
 import com.backend.vo.DashboardData;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 
+/**
+ * 仪表盘统计
+ * 按日计数保存在 Redis 中，由下单、航班增删改、转人工等操作增量维护，
+ * 仪表盘刷新只需一次 Redis 往返；启动时和每天凌晨用数据库结果校正一次，Redis 不可用时直接查库。
+ */
+@Slf4j
 @Service
 public class DashboardServiceImpl implements DashboardService {
 
+    /**
+     * 仪表盘展示今天前后各 7 天
+     */
+    private static final int WINDOW_DAYS = 7;
+
+    private static final DateTimeFormatter LABEL_FORMAT = DateTimeFormatter.ofPattern("MM-dd");
+
     @Autowired
     private DashboardMapper dashboardMapper;
+    @Autowired
+    private DashboardStatsDao dashboardStatsDao;
 
     @Override
     public DashboardData getDashboardData() {
-        DashboardData data = dashboardMapper.getBaseStats();
+        LocalDate today = LocalDate.now();
+        List<LocalDate> days = windowDays(today);
+        try {
+            DashboardStatsDao.Stats stats = dashboardStatsDao.read(days, today);
+            if (stats != null) {
+                int todayIndex = days.indexOf(today);
+                return new DashboardData(
+                        stats.dailyFlights().get(todayIndex).intValue(),
+                        stats.dailyOrders().get(todayIndex).intValue(),
+                        (int) stats.activeUsers(),
+                        (int) stats.serviceTickets(),
+                        labels(days),
+                        toIntList(stats.dailyFlights()),
+                        toIntList(stats.dailyOrders()));
+            }
+        } catch (Exception e) {
+            log.warn("读取仪表盘缓存失败，改为查询数据库: {}", e.getMessage());
+            return computeFromDatabase(today, days).data();
+        }
+        // 缓存尚未初始化（例如 Redis 被清空），重新计算并写入
+        return reconcile();
+    }
+
+    @Override
+    public void recordOrderCreated(Long userId) {
+        afterCommit(() -> {
+            LocalDate today = LocalDate.now();
+            dashboardStatsDao.incrementDay(today, DashboardStatsDao.FIELD_ORDERS, 1);
+            dashboardStatsDao.addActiveUser(today, userId);
+        });
+    }
+
+    @Override
+    public void recordFlightDepartureChanged(LocalDateTime oldDepartureTime, LocalDateTime newDepartureTime) {
+        LocalDate oldDay = oldDepartureTime != null ? oldDepartureTime.toLocalDate() : null;
+        LocalDate newDay = newDepartureTime != null ? newDepartureTime.toLocalDate() : null;
+        if (Objects.equals(oldDay, newDay)) {
+            return;
+        }
+        afterCommit(() -> {
+            if (oldDay != null) {
+                dashboardStatsDao.incrementDay(oldDay, DashboardStatsDao.FIELD_FLIGHTS, -1);
+            }
+            if (newDay != null) {
+                dashboardStatsDao.incrementDay(newDay, DashboardStatsDao.FIELD_FLIGHTS, 1);
+            }
+        });
+    }
+
+    @Override
+    public void recordServiceTicketsChanged(long delta) {
+        afterCommit(() -> dashboardStatsDao.incrementServiceTickets(delta));
+    }
+
+    /**
+     * 每天凌晨校正一次，同时把新进入统计窗口的日期补齐
+     */
+    @Override
+    @Scheduled(cron = "${app.dashboard.reconcile-cron:0 5 0 * * *}")
+    public DashboardData reconcile() {
+        LocalDate today = LocalDate.now();
+        DatabaseStats stats = computeFromDatabase(today, windowDays(today));
+        try {
+            dashboardStatsDao.replaceAll(stats.flights(), stats.orders(), today,
+                    stats.activeUserIds(), stats.data().getServiceTickets());
+            log.info("仪表盘统计已校正");
+        } catch (Exception e) {
+            log.warn("写入仪表盘缓存失败: {}", e.getMessage());
+        }
+        return stats.data();
+    }
 
-        List<String> dates = dashboardMapper.getRecentDates();
-        List<Integer> flightCounts = dashboardMapper.getRecentDatesFlightCount();
-        List<Integer> orderCounts = dashboardMapper.getRecentDatesOrderCount();
+    @EventListener(ApplicationReadyEvent.class)
+    public void reconcileOnStartup() {
+        try {
+            reconcile();
+        } catch (Exception e) {
+            log.warn("启动时校正仪表盘统计失败: {}", e.getMessage());
+        }
+    }
+
+    private DatabaseStats computeFromDatabase(LocalDate today, List<LocalDate> days) {
+        LocalDateTime start = days.get(0).atStartOfDay();
+        LocalDateTime end = days.get(days.size() - 1).plusDays(1).atStartOfDay();
+
+        Map<LocalDate, Long> flights = zeroCounts(days);
+        Map<LocalDate, Long> orders = zeroCounts(days);
+        fillCounts(flights, dashboardMapper.countFlightsByDay(start, end));
+        fillCounts(orders, dashboardMapper.countOrdersByDay(start, end));
+        List<Long> activeUserIds = dashboardMapper.listActiveUserIds(today.atStartOfDay(), today.plusDays(1).atStartOfDay());
+        long serviceTickets = dashboardMapper.countServiceTickets();
+
+        DashboardData data = new DashboardData(
+                flights.get(today).intValue(),
+                orders.get(today).intValue(),
+                activeUserIds.size(),
+                (int) serviceTickets,
+                labels(days),
+                toIntList(new ArrayList<>(flights.values())),
+                toIntList(new ArrayList<>(orders.values())));
+        return new DatabaseStats(data, flights, orders, activeUserIds);
+    }
+
+    /**
+     * 当前事务提交后再更新计数，回滚的写入不会计入；缓存写入失败只记录日志，由定期校正修复
+     */
+    private void afterCommit(Runnable action) {
+        Runnable safeAction = () -> {
+            try {
+                action.run();
+            } catch (Exception e) {
+                log.warn("更新仪表盘计数失败，将在下次校正时修复: {}", e.getMessage());
+            }
+        };
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    safeAction.run();
+                }
+            });
+        } else {
+            safeAction.run();
+        }
+    }
+
+    private static List<LocalDate> windowDays(LocalDate today) {
+        List<LocalDate> days = new ArrayList<>(WINDOW_DAYS * 2 + 1);
+        for (int offset = -WINDOW_DAYS; offset <= WINDOW_DAYS; offset++) {
+            days.add(today.plusDays(offset));
+        }
+        return days;
+    }
+
+    private static Map<LocalDate, Long> zeroCounts(List<LocalDate> days) {
+        Map<LocalDate, Long> counts = new LinkedHashMap<>();
+        for (LocalDate day : days) {
+            counts.put(day, 0L);
+        }
+        return counts;
+    }
+
+    private static void fillCounts(Map<LocalDate, Long> counts, List<Map<String, Object>> rows) {
+        for (Map<String, Object> row : rows) {
+            LocalDate day = LocalDate.parse(String.valueOf(row.get("day")));
+            if (counts.containsKey(day)) {
+                counts.put(day, ((Number) row.get("cnt")).longValue());
+            }
+        }
+    }
+
+    private static List<String> labels(List<LocalDate> days) {
+        return days.stream().map(LABEL_FORMAT::format).toList();
+    }
 
-        data.setDates(dates);
-        data.setDailyFlights(flightCounts);
-        data.setDailyOrders(orderCounts);
+    private static List<Integer> toIntList(List<Long> values) {
+        return values.stream().map(Long::intValue).toList();
+    }
 
-        return data;
+    private record DatabaseStats(DashboardData data, Map<LocalDate, Long> flights,
+                                 Map<LocalDate, Long> orders, List<Long> activeUserIds) {
     }
 }
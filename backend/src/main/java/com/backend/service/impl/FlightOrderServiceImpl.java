@@ -4,19 +4,25 @@ import com.backend.entity.Flight;
 import com.backend.entity.FlightOrder;
 import com.backend.entity.User;
 import com.backend.dao.mapper.FlightOrderMapper;
+import com.backend.service.DashboardService;
 import com.backend.service.FlightOrderService;
 import com.backend.service.FlightService;
 import com.backend.service.UserService;
+import com.backend.util.CursorPageHelper;
+import com.backend.util.NdjsonExporter;
+import com.backend.vo.CursorPage;
 import com.backend.vo.FlightOrderDetail;
 import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
 import com.baomidou.mybatisplus.extension.service.impl.ServiceImpl;
+import org.apache.ibatis.cursor.Cursor;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
-import java.time.LocalDateTime;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Collection;
 import java.util.List;
-import java.util.stream.Collectors;
 
 /**
  * 航班订单服务实现类
@@ -24,6 +30,9 @@ import java.util.stream.Collectors;
 @Service
 public class FlightOrderServiceImpl extends ServiceImpl<FlightOrderMapper, FlightOrder> implements FlightOrderService {
 
+    @Autowired
+    private NdjsonExporter ndjsonExporter;
+
     @Autowired
     private UserService userService;
 
@@ -31,6 +40,8 @@ public class FlightOrderServiceImpl extends ServiceImpl<FlightOrderMapper, Fligh
     private FlightService flightService;
     @Autowired
     private FlightOrderMapper flightOrderMapper;
+    @Autowired
+    private DashboardService dashboardService;
 
     @Override
     public List<FlightOrder> listByUserId(Long userId) {
@@ -72,6 +83,7 @@ public class FlightOrderServiceImpl extends ServiceImpl<FlightOrderMapper, Fligh
 
         // 保存订单
         save(order);
+        dashboardService.recordOrderCreated(userId);
 
         return order;
     }
@@ -84,7 +96,7 @@ public class FlightOrderServiceImpl extends ServiceImpl<FlightOrderMapper, Fligh
             return false;
         }
 
-        // 设置订单状态为已取消
+        // 设置订单状态为已取消（仪表盘按创建时间统计全部订单，取消不影响计数）
         order.setStatus(2);
 
         return updateById(order);
@@ -92,21 +104,8 @@ public class FlightOrderServiceImpl extends ServiceImpl<FlightOrderMapper, Fligh
 
     @Override
     public List<FlightOrder> listOrdersWithDetail(Long userId) {
-        // 查询用户订单
-        List<FlightOrder> orders = listByUserId(userId);
-
-        // 填充关联信息
-        return orders.stream().map(order -> {
-            // 设置用户信息
-            User user = userService.getById(order.getUserId());
-            order.setUser(user);
-
-            // 设置航班信息
-            Flight flight = flightService.getById(order.getFlightId());
-            order.setFlight(flight);
-
-            return order;
-        }).collect(Collectors.toList());
+        // 一次 JOIN 查询带出用户和航班信息
+        return flightOrderMapper.listOrdersWithDetail(userId);
     }
 
     @Override
@@ -122,17 +121,35 @@ public class FlightOrderServiceImpl extends ServiceImpl<FlightOrderMapper, Fligh
             return List.of();
         }
 
-        // 查询用户所有订单
-        List<FlightOrder> orders = listByUserId(user.getId());
+        // 只查询未取消（购票成功）的订单详情
+        return flightOrderMapper.listOrderDetailsByUserId(user.getId(), 1, null, null);
+    }
 
-        // 过滤掉已取消的订单
-        orders = orders.stream()
-                .filter(order -> order.getStatus() != 2) // 只保留未取消的订单
-                .toList();
+    @Override
+    public List<FlightOrderDetail> listOrderDetailsByIds(Collection<Long> orderIds) {
+        if (orderIds == null || orderIds.isEmpty()) {
+            return List.of();
+        }
+        return flightOrderMapper.listOrderDetailsByIds(orderIds);
+    }
 
-        // 获取订单详情
-        return orders.stream()
-                .map(order -> flightOrderMapper.getOrderDetailById(order.getId()))
-                .collect(Collectors.toList());
+    @Override
+    public CursorPage<FlightOrderDetail> pageOrderDetailsByUserId(Long userId, Integer status, Long cursor, int size) {
+        // 多查一条用于判断是否还有下一页
+        List<FlightOrderDetail> rows = flightOrderMapper.listOrderDetailsByUserId(userId, status, cursor, size + 1);
+        return CursorPage.of(rows, size, FlightOrderDetail::getOrderId);
+    }
+
+    @Override
+    public CursorPage<FlightOrder> pageByCursor(Long cursor, int size) {
+        return CursorPageHelper.page(baseMapper, new LambdaQueryWrapper<>(), FlightOrder::getId, cursor, size);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public void exportAll(OutputStream out) throws IOException {
+        try (Cursor<FlightOrder> cursor = baseMapper.streamAll()) {
+            ndjsonExporter.write(cursor, out);
+        }
     }
-}
\ No newline at end of file
+}
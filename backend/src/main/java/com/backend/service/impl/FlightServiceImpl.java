@@ -1,14 +1,27 @@
 package com.backend.service.impl;
 
 import com.backend.entity.Flight;
+import com.backend.index.FlightRouteIndex;
 import com.backend.dao.mapper.FlightMapper;
+import com.backend.service.DashboardService;
 import com.backend.service.FlightService;
+import com.backend.util.CursorPageHelper;
+import com.backend.util.NdjsonExporter;
+import com.backend.vo.CursorPage;
 import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
 import com.baomidou.mybatisplus.extension.service.impl.ServiceImpl;
+import org.apache.ibatis.cursor.Cursor;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.Serializable;
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
 
 /**
  * 航班服务实现类
@@ -16,6 +29,13 @@ import java.util.List;
 @Service
 public class FlightServiceImpl extends ServiceImpl<FlightMapper, Flight> implements FlightService {
 
+    @Autowired
+    private NdjsonExporter ndjsonExporter;
+    @Autowired
+    private FlightRouteIndex flightRouteIndex;
+    @Autowired
+    private DashboardService dashboardService;
+
     @Override
     public Flight getByFlightNo(String flightNo) {
         LambdaQueryWrapper<Flight> queryWrapper = new LambdaQueryWrapper<>();
@@ -26,6 +46,12 @@ public class FlightServiceImpl extends ServiceImpl<FlightMapper, Flight> impleme
     @Override
     public List<Flight> searchFlights(String departureCity, String arrivalCity, 
                                     LocalDateTime startTime, LocalDateTime endTime) {
+        // 优先使用内存索引，索引未启用或已过期时查询数据库
+        Optional<List<Flight>> indexed = flightRouteIndex.search(departureCity, arrivalCity, startTime, endTime);
+        if (indexed.isPresent()) {
+            return indexed.get();
+        }
+
         LambdaQueryWrapper<Flight> queryWrapper = new LambdaQueryWrapper<>();
         queryWrapper.eq(Flight::getDepartureCity, departureCity)
                    .eq(Flight::getArrivalCity, arrivalCity)
@@ -42,4 +68,59 @@ public class FlightServiceImpl extends ServiceImpl<FlightMapper, Flight> impleme
                    .orderByAsc(Flight::getScheduledDepartureTime);
         return list(queryWrapper);
     }
-}
\ No newline at end of file
+
+    @Override
+    public boolean save(Flight entity) {
+        boolean success = super.save(entity);
+        if (success) {
+            flightRouteIndex.refresh(entity.getId());
+            dashboardService.recordFlightDepartureChanged(null, entity.getScheduledDepartureTime());
+        }
+        return success;
+    }
+
+    @Override
+    public boolean updateById(Flight entity) {
+        // 只有修改了出发时间才需要旧值来调整仪表盘的按日计数
+        Flight old = entity.getScheduledDepartureTime() != null ? getById(entity.getId()) : null;
+        boolean success = super.updateById(entity);
+        if (success) {
+            flightRouteIndex.refresh(entity.getId());
+            if (old != null) {
+                dashboardService.recordFlightDepartureChanged(old.getScheduledDepartureTime(), entity.getScheduledDepartureTime());
+            }
+        }
+        return success;
+    }
+
+    @Override
+    public boolean removeById(Serializable id) {
+        Flight old = getById(id);
+        boolean success = super.removeById(id);
+        if (success && id instanceof Long flightId) {
+            flightRouteIndex.remove(flightId);
+        }
+        if (success && old != null) {
+            dashboardService.recordFlightDepartureChanged(old.getScheduledDepartureTime(), null);
+        }
+        return success;
+    }
+
+    @Override
+    public CursorPage<Flight> pageByCursor(Long cursor, int size) {
+        return CursorPageHelper.page(baseMapper, new LambdaQueryWrapper<>(), Flight::getId, cursor, size);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public void exportAll(OutputStream out) throws IOException {
+        try (Cursor<Flight> cursor = baseMapper.streamAll()) {
+            ndjsonExporter.write(cursor, out);
+        }
+    }
+
+    @Override
+    public Map<String, Object> checkIndexConsistency() {
+        return flightRouteIndex.checkConsistency();
+    }
+}
@@ -0,0 +1,167 @@
+package com.backend.service.impl;
+
+import com.backend.config.AiProperties;
+import com.backend.dao.mongo.KnowledgeDocumentRepository;
+import com.backend.entity.KnowledgeDocument;
+import com.backend.service.KnowledgeIndexService;
+import com.backend.vectorstore.HnswVectorStore;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.ai.document.Document;
+import org.springframework.ai.transformer.splitter.TokenTextSplitter;
+import org.springframework.ai.vectorstore.VectorStore;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.util.StringUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 知识库向量索引服务实现类
+ * 切片ID由文档ID和切片序号确定，重新索引时直接覆盖同ID切片，再删除多出来的旧切片
+ * 全量重建时还会从持久化的向量库中统计已有切片，清理停机期间被删除或变短的文档留下的旧切片
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class KnowledgeIndexServiceImpl implements KnowledgeIndexService {
+
+    public static final String METADATA_KNOWLEDGE_ID = "knowledge_id";
+    public static final String METADATA_TITLE = "title";
+    public static final String METADATA_CHUNK_INDEX = "chunk_index";
+
+    private final VectorStore vectorStore;
+    private final KnowledgeDocumentRepository knowledgeDao;
+    private final AiProperties aiProperties;
+
+    /**
+     * 每篇文档当前在向量库中的切片数，只记录本进程写入的部分，重启后由 reindexAll 从向量库补齐
+     */
+    private final Map<String, Integer> chunkCounts = new ConcurrentHashMap<>();
+
+    @Override
+    public void index(KnowledgeDocument doc) {
+        try {
+            List<Document> chunks = split(doc);
+            if (!chunks.isEmpty()) {
+                vectorStore.add(chunks);
+            }
+            Integer previous = chunkCounts.put(doc.getId(), chunks.size());
+            deleteChunks(doc.getId(), chunks.size(), previous == null ? 0 : previous);
+        } catch (Exception e) {
+            log.warn("知识文档索引失败，id: {}，原因: {}", doc.getId(), e.getMessage());
+        }
+    }
+
+    @Override
+    public void remove(String documentId) {
+        Integer previous = chunkCounts.remove(documentId);
+        if (previous == null) {
+            return;
+        }
+        try {
+            deleteChunks(documentId, 0, previous);
+        } catch (Exception e) {
+            log.warn("删除知识文档索引失败，id: {}，原因: {}", documentId, e.getMessage());
+        }
+    }
+
+    @Override
+    public int reindexAll() {
+        Map<String, Integer> previousCounts = storedChunkCounts();
+        chunkCounts.forEach((id, previous) -> previousCounts.merge(id, previous, Math::max));
+
+        List<Document> chunks = new ArrayList<>();
+        Map<String, Integer> counts = new HashMap<>();
+        for (KnowledgeDocument doc : knowledgeDao.findAll()) {
+            List<Document> docChunks = split(doc);
+            chunks.addAll(docChunks);
+            counts.put(doc.getId(), docChunks.size());
+        }
+        if (!chunks.isEmpty()) {
+            vectorStore.add(chunks);
+        }
+        // 清理已被删除或变短的文档留下的旧切片
+        previousCounts.forEach((id, previous) -> deleteChunks(id, counts.getOrDefault(id, 0), previous));
+        chunkCounts.clear();
+        chunkCounts.putAll(counts);
+        return chunks.size();
+    }
+
+    /**
+     * 启动完成后建立索引，向量化失败不影响应用启动，AI 客服此时只是检索不到知识
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void indexOnStartup() {
+        try {
+            int count = reindexAll();
+            log.info("知识库索引完成，共 {} 个片段", count);
+        } catch (Exception e) {
+            log.warn("知识库索引失败: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * 按切片元数据统计向量库中每篇文档已有的切片数
+     * 只有持久化的 HNSW 向量库需要统计，进程内向量库重启后本身就是空的
+     */
+    private Map<String, Integer> storedChunkCounts() {
+        Map<String, Integer> counts = new HashMap<>();
+        if (vectorStore instanceof HnswVectorStore hnswVectorStore) {
+            for (Map<String, Object> metadata : hnswVectorStore.listMetadata().values()) {
+                if (metadata.get(METADATA_KNOWLEDGE_ID) instanceof String id
+                        && metadata.get(METADATA_CHUNK_INDEX) instanceof Number index) {
+                    counts.merge(id, index.intValue() + 1, Math::max);
+                }
+            }
+        }
+        return counts;
+    }
+
+    private List<Document> split(KnowledgeDocument doc) {
+        if (!StringUtils.hasText(doc.getContent())) {
+            return List.of();
+        }
+        // 标题一并写入切片，检索结果单独看也知道属于哪部分知识
+        String text = StringUtils.hasText(doc.getTitle())
+                ? doc.getTitle() + "\n" + doc.getContent()
+                : doc.getContent();
+        TokenTextSplitter splitter = new TokenTextSplitter(aiProperties.getRag().getChunkSize(), 100, 5, 10000, true);
+        List<Document> pieces = splitter.apply(List.of(new Document(text)));
+
+        List<Document> chunks = new ArrayList<>(pieces.size());
+        for (int i = 0; i < pieces.size(); i++) {
+            Map<String, Object> metadata = Map.of(
+                    METADATA_KNOWLEDGE_ID, doc.getId(),
+                    METADATA_TITLE, doc.getTitle() == null ? "" : doc.getTitle(),
+                    METADATA_CHUNK_INDEX, i);
+            chunks.add(new Document(chunkId(doc.getId(), i), pieces.get(i).getContent(), new HashMap<>(metadata)));
+        }
+        return chunks;
+    }
+
+    /**
+     * 删除序号在 [from, to) 范围内的切片
+     */
+    private void deleteChunks(String documentId, int from, int to) {
+        if (from >= to) {
+            return;
+        }
+        List<String> ids = new ArrayList<>(to - from);
+        for (int i = from; i < to; i++) {
+            ids.add(chunkId(documentId, i));
+        }
+        vectorStore.delete(ids);
+    }
+
+    private static String chunkId(String documentId, int index) {
+        return UUID.nameUUIDFromBytes((documentId + "#" + index).getBytes(StandardCharsets.UTF_8)).toString();
+    }
+}
@@ -1,9 +1,12 @@
 package com.backend.service.impl;
 
+import com.backend.ai.KnowledgeChangedEvent;
 import com.backend.dao.mongo.KnowledgeDocumentRepository;
 import com.backend.entity.KnowledgeDocument;
+import com.backend.service.KnowledgeIndexService;
 import com.backend.service.KnowledgeService;
 import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 
 import java.util.Date;
@@ -14,6 +17,8 @@ import java.util.List;
 public class KnowledgeServiceImpl implements KnowledgeService {
 
     private final KnowledgeDocumentRepository knowledgeDao;
+    private final KnowledgeIndexService knowledgeIndexService;
+    private final ApplicationEventPublisher eventPublisher;
 
     @Override
     public KnowledgeDocument addKnowledge(String title, String content, List<String> tags) {
@@ -22,7 +27,10 @@ public class KnowledgeServiceImpl implements KnowledgeService {
         doc.setContent(content);
         doc.setTags(tags);
         doc.setLastUpdated(new Date());
-        return knowledgeDao.save(doc);
+        KnowledgeDocument saved = knowledgeDao.save(doc);
+        knowledgeIndexService.index(saved);
+        eventPublisher.publishEvent(new KnowledgeChangedEvent(saved.getId()));
+        return saved;
     }
 
     @Override
@@ -38,12 +46,15 @@ public class KnowledgeServiceImpl implements KnowledgeService {
         doc.setContent(newDoc.getContent());
         doc.setTags(newDoc.getTags());
         doc.setLastUpdated(new Date());
-        knowledgeDao.save(doc);
+        knowledgeIndexService.index(knowledgeDao.save(doc));
+        eventPublisher.publishEvent(new KnowledgeChangedEvent(id));
     }
 
     @Override
     public void deleteById(String id) {
         knowledgeDao.deleteById(id);
+        knowledgeIndexService.remove(id);
+        eventPublisher.publishEvent(new KnowledgeChangedEvent(id));
     }
 
     @Override
@@ -3,11 +3,18 @@ package com.backend.service.impl;
 import com.backend.entity.SystemLog;
 import com.backend.dao.mapper.SystemLogMapper;
 import com.backend.service.SystemLogService;
+import com.backend.util.CursorPageHelper;
+import com.backend.util.NdjsonExporter;
+import com.backend.vo.CursorPage;
 import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
 import com.baomidou.mybatisplus.extension.service.impl.ServiceImpl;
+import org.apache.ibatis.cursor.Cursor;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.io.IOException;
+import java.io.OutputStream;
 import java.time.LocalDateTime;
 import java.util.List;
 
@@ -17,6 +24,9 @@ import java.util.List;
 @Service
 public class SystemLogServiceImpl extends ServiceImpl<SystemLogMapper, SystemLog> implements SystemLogService {
 
+    @Autowired
+    private NdjsonExporter ndjsonExporter;
+
     @Override
     @Transactional(rollbackFor = Exception.class)
     public boolean addLog(String message) {
@@ -48,4 +58,17 @@ public class SystemLogServiceImpl extends ServiceImpl<SystemLogMapper, SystemLog
         
         return count;
     }
-}
\ No newline at end of file
+
+    @Override
+    public CursorPage<SystemLog> pageByCursor(Long cursor, int size) {
+        return CursorPageHelper.page(baseMapper, new LambdaQueryWrapper<>(), SystemLog::getId, cursor, size);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public void exportAll(OutputStream out) throws IOException {
+        try (Cursor<SystemLog> cursor = baseMapper.streamAll()) {
+            ndjsonExporter.write(cursor, out);
+        }
+    }
+}
@@ -3,11 +3,31 @@ package com.backend.service.impl;
 import com.backend.entity.User;
 import com.backend.dao.mapper.UserMapper;
 import com.backend.service.UserService;
+import com.backend.util.CursorPageHelper;
+import com.backend.util.NdjsonExporter;
+import com.backend.vo.CursorPage;
 import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
 import com.baomidou.mybatisplus.extension.service.impl.ServiceImpl;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.apache.ibatis.cursor.Cursor;
+import org.springframework.beans.BeanUtils;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.Serializable;
+import java.time.Duration;
+import java.util.Collection;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 /**
  * 用户服务实现类
@@ -15,6 +35,17 @@ import java.util.List;
 @Service
 public class UserServiceImpl extends ServiceImpl<UserMapper, User> implements UserService {
 
+    @Autowired
+    private NdjsonExporter ndjsonExporter;
+
+    /**
+     * 列表填充用的用户短时缓存，本实例修改用户时主动失效
+     */
+    private final Cache<Long, User> userCache = Caffeine.newBuilder()
+            .maximumSize(10_000)
+            .expireAfterWrite(Duration.ofSeconds(30))
+            .build();
+
     @Override
     public User getByUsername(String username) {
         LambdaQueryWrapper<User> queryWrapper = new LambdaQueryWrapper<>();
@@ -45,4 +76,98 @@ public class UserServiceImpl extends ServiceImpl<UserMapper, User> implements Us
         queryWrapper.eq(User::getRealName, realName);
         return getOne(queryWrapper);
     }
-}
\ No newline at end of file
+
+    @Override
+    public Map<Long, User> mapByIds(Collection<Long> ids) {
+        Set<Long> distinctIds = ids.stream().filter(Objects::nonNull).collect(Collectors.toCollection(HashSet::new));
+        if (distinctIds.isEmpty()) {
+            return Map.of();
+        }
+        // 缓存未命中的ID合并为一次 IN 查询
+        Map<Long, User> cached = userCache.getAll(distinctIds, missing -> listByIds(missing).stream()
+                .collect(Collectors.toMap(User::getId, Function.identity())));
+        // 缓存中的实例在调用方之间共享，返回副本，调用方修改后不会污染缓存
+        return cached.values().stream()
+                .collect(Collectors.toMap(User::getId, UserServiceImpl::copy));
+    }
+
+    @Override
+    public boolean updateById(User entity) {
+        boolean success = super.updateById(entity);
+        evict(entity.getId());
+        return success;
+    }
+
+    @Override
+    public boolean updateBatchById(Collection<User> entityList, int batchSize) {
+        boolean success = super.updateBatchById(entityList, batchSize);
+        entityList.forEach(entity -> evict(entity.getId()));
+        return success;
+    }
+
+    @Override
+    public boolean removeById(Serializable id) {
+        boolean success = super.removeById(id);
+        evict(id);
+        return success;
+    }
+
+    @Override
+    public boolean removeById(User entity) {
+        boolean success = super.removeById(entity);
+        evict(entity.getId());
+        return success;
+    }
+
+    @Override
+    public boolean removeByIds(Collection<?> list) {
+        boolean success = super.removeByIds(list);
+        if (list != null) {
+            list.forEach(this::evict);
+        }
+        return success;
+    }
+
+    @Override
+    public boolean removeByIds(Collection<?> list, boolean useFill) {
+        boolean success = super.removeByIds(list, useFill);
+        if (list != null) {
+            list.forEach(this::evict);
+        }
+        return success;
+    }
+
+    /**
+     * 使缓存失效，ID 也可能以实体或其他数字类型传入
+     */
+    private void evict(Object id) {
+        if (id instanceof User user) {
+            id = user.getId();
+        }
+        if (id instanceof Number number) {
+            userCache.invalidate(number.longValue());
+        }
+    }
+
+    private static User copy(User user) {
+        User copy = new User();
+        BeanUtils.copyProperties(user, copy);
+        return copy;
+    }
+
+    @Override
+    public CursorPage<User> pageByCursor(Long cursor, int size) {
+        // 列表不返回密码
+        LambdaQueryWrapper<User> wrapper = new LambdaQueryWrapper<User>()
+                .select(User.class, column -> !"password".equals(column.getColumn()));
+        return CursorPageHelper.page(baseMapper, wrapper, User::getId, cursor, size);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public void exportAll(OutputStream out) throws IOException {
+        try (Cursor<User> cursor = baseMapper.streamAll()) {
+            ndjsonExporter.write(cursor, out);
+        }
+    }
+}
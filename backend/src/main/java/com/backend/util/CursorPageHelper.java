@@ -0,0 +1,53 @@
+package com.backend.util;
+
+import com.backend.vo.CursorPage;
+import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
+import com.baomidou.mybatisplus.core.mapper.BaseMapper;
+import com.baomidou.mybatisplus.core.toolkit.support.SFunction;
+
+import java.util.List;
+
+/**
+ * 基于主键的游标（keyset）分页工具
+ * 使用 id &lt; cursor ORDER BY id DESC LIMIT n 定位下一页，不使用 OFFSET，翻到任意深度都只扫描一页数据
+ */
+public final class CursorPageHelper {
+
+    /**
+     * 每页最大条数
+     */
+    public static final int MAX_PAGE_SIZE = 100;
+
+    private CursorPageHelper() {
+    }
+
+    /**
+     * 按主键倒序查询一页数据
+     *
+     * @param mapper Mapper
+     * @param wrapper 额外的查询条件，可为空条件
+     * @param idColumn 主键列
+     * @param cursor 上一页返回的 nextCursor，首页传 null
+     * @param size 每页条数
+     * @return 分页结果
+     */
+    public static <T> CursorPage<T> page(BaseMapper<T> mapper, LambdaQueryWrapper<T> wrapper,
+                                         SFunction<T, Long> idColumn, Long cursor, int size) {
+        wrapper.lt(cursor != null, idColumn, cursor)
+                .orderByDesc(idColumn)
+                // 多查一条用于判断是否还有下一页
+                .last("LIMIT " + (size + 1));
+        List<T> rows = mapper.selectList(wrapper);
+        return CursorPage.of(rows, size, idColumn);
+    }
+
+    /**
+     * 校验每页条数是否合法
+     *
+     * @param size 每页条数
+     * @return 是否合法
+     */
+    public static boolean isValidSize(Integer size) {
+        return size != null && size >= 1 && size <= MAX_PAGE_SIZE;
+    }
+}
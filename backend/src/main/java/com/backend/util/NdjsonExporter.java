@@ -0,0 +1,70 @@
+package com.backend.util;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import lombok.RequiredArgsConstructor;
+import org.apache.ibatis.cursor.Cursor;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * NDJSON 流式导出工具
+ * 逐行把 MyBatis Cursor 中的记录写到响应流，内存占用与表大小无关
+ */
+@Component
+@RequiredArgsConstructor
+public class NdjsonExporter {
+
+    public static final MediaType APPLICATION_NDJSON = MediaType.parseMediaType("application/x-ndjson");
+
+    /**
+     * 每写出多少行刷新一次响应流
+     */
+    private static final int FLUSH_EVERY = 500;
+
+    private final ObjectMapper objectMapper;
+
+    /**
+     * 把游标中的记录逐行写出，每行一个 JSON 对象
+     * 调用方需保证游标所在的数据库会话在写出期间保持打开（例如在只读事务中调用）
+     *
+     * @param cursor MyBatis 游标
+     * @param out 输出流
+     * @return 写出的行数
+     */
+    public <T> long write(Cursor<T> cursor, OutputStream out) throws IOException {
+        ObjectWriter writer = objectMapper.writer();
+        BufferedOutputStream buffered = new BufferedOutputStream(out, 64 * 1024);
+        long count = 0;
+        for (T item : cursor) {
+            buffered.write(writer.writeValueAsBytes(item));
+            buffered.write('\n');
+            if (++count % FLUSH_EVERY == 0) {
+                buffered.flush();
+            }
+        }
+        buffered.flush();
+        return count;
+    }
+
+    /**
+     * 构造 NDJSON 下载响应
+     *
+     * @param filename 下载文件名
+     * @param body 写出响应体的回调
+     * @return 响应
+     */
+    public static ResponseEntity<StreamingResponseBody> response(String filename, StreamingResponseBody body) {
+        return ResponseEntity.ok()
+                .contentType(APPLICATION_NDJSON)
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + filename + "\"")
+                .body(body);
+    }
+}
@@ -0,0 +1,80 @@
+package com.backend.vectorstore;
+
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * 只追加的文档内容日志
+ * 每条记录为 [长度][JSON]，索引只在堆上保存记录的偏移量，检索命中时再按偏移量读取正文
+ */
+final class DocumentLog implements Closeable {
+
+    private final FileChannel channel;
+    private long size;
+
+    /**
+     * @param validLength 上次快照时的日志长度，之后写入但未进入快照的内容会被截掉
+     */
+    DocumentLog(Path path, long validLength) throws IOException {
+        this.channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        if (channel.size() > validLength) {
+            channel.truncate(validLength);
+        }
+        this.size = validLength;
+    }
+
+    /**
+     * 追加一条记录，只能在索引写锁内调用
+     * @return 记录的偏移量
+     */
+    long append(byte[] content) throws IOException {
+        long offset = size;
+        ByteBuffer buffer = ByteBuffer.allocate(Integer.BYTES + content.length);
+        buffer.putInt(content.length).put(content).flip();
+        long position = offset;
+        while (buffer.hasRemaining()) {
+            position += channel.write(buffer, position);
+        }
+        size = position;
+        return offset;
+    }
+
+    /**
+     * 按偏移量读取记录，使用定位读，可并发调用
+     */
+    byte[] read(long offset) throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(Integer.BYTES);
+        readFully(header, offset);
+        ByteBuffer body = ByteBuffer.allocate(header.flip().getInt());
+        readFully(body, offset + Integer.BYTES);
+        return body.array();
+    }
+
+    long size() {
+        return size;
+    }
+
+    void force() throws IOException {
+        channel.force(false);
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    private void readFully(ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            int read = channel.read(buffer, position);
+            if (read < 0) {
+                throw new EOFException("文档日志已损坏，偏移量: " + position);
+            }
+            position += read;
+        }
+    }
+}
@@ -0,0 +1,752 @@
+package com.backend.vectorstore;
+
+import com.backend.config.AiProperties;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.ai.document.Document;
+import org.springframework.ai.embedding.EmbeddingModel;
+import org.springframework.ai.vectorstore.SearchRequest;
+import org.springframework.ai.vectorstore.VectorStore;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.PriorityQueue;
+import java.util.TreeMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * 基于 HNSW 图的向量库
+ * <p>
+ * 向量归一化后写入内存映射文件（vectors.bin），第 0 层邻接表同样存放在映射文件（layer0.bin）中，
+ * 堆上只保留节点ID、层数、上层邻接表等少量信息；文档正文追加写入 documents.log，命中后再读取。
+ * 每次写入只把变化的节点追加到节点日志（index.journal），日志累积到与节点数相当的规模后合并为节点表快照（index.meta），
+ * 重启时加载快照并重放日志，不需要重新向量化。
+ * <p>
+ * 第 0 层邻接表在映射文件中原地修改，崩溃时可能已经写入了指向未提交节点的边；
+ * 加载时会过滤掉编号不小于已提交节点数的邻居，这些节点编号之后会被新插入的节点复用。
+ * <p>
+ * 删除采用墓碑标记：被删除的节点仍参与图的遍历，只是不出现在检索结果中。
+ * 同一ID的文档内容未变化时不会重新向量化，内容变化时旧节点标记删除后插入新节点。
+ * 不支持元数据过滤表达式。
+ */
+@Slf4j
+public class HnswVectorStore implements VectorStore, Closeable {
+
+    private static final int MAGIC = 0x484E5357;
+    private static final int FORMAT_VERSION = 1;
+    private static final int MAX_LEVEL = 16;
+
+    /**
+     * 单次向量化请求的文本条数上限（DashScope 批量接口限制）
+     */
+    private static final int EMBED_BATCH_SIZE = 25;
+
+    /**
+     * 节点日志至少累积这么多条节点记录才合并为快照
+     */
+    private static final int COMPACT_MIN_ENTRIES = 1024;
+
+    private static final String SNAPSHOT_FILE = "index.meta";
+    private static final String JOURNAL_FILE = "index.journal";
+    private static final String VECTORS_FILE = "vectors.bin";
+    private static final String LAYER0_FILE = "layer0.bin";
+    private static final String DOCUMENTS_FILE = "documents.log";
+
+    private static final Comparator<Candidate> NEAREST_FIRST = Comparator.comparingDouble(Candidate::distance);
+
+    private final EmbeddingModel embeddingModel;
+    private final AiProperties.VectorIndex properties;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Path directory;
+
+    private int m;
+    private int dimension;
+    private MappedRecordFile vectors;
+    private MappedRecordFile layer0;
+    private DocumentLog documents;
+    private IndexJournal journal;
+    private int journalEntries;
+
+    private int count;
+    private int entryPoint = -1;
+    private int maxLevel = -1;
+    private String[] ids = new String[0];
+    private byte[] levels = new byte[0];
+    private long[] recordOffsets = new long[0];
+    private long[] contentHashes = new long[0];
+    private int[][][] upperNeighbors = new int[0][][];
+    private final BitSet deleted = new BitSet();
+    /**
+     * 上次提交之后新增或变化（删除标记、上层邻接表）的节点
+     */
+    private final BitSet dirty = new BitSet();
+    private final Map<String, Integer> idToNode = new HashMap<>();
+
+    public HnswVectorStore(EmbeddingModel embeddingModel, AiProperties.VectorIndex properties) {
+        this.embeddingModel = embeddingModel;
+        this.properties = properties;
+        this.directory = Paths.get(properties.getPath());
+        this.m = properties.getM();
+        try {
+            Files.createDirectories(directory);
+            load();
+        } catch (IOException e) {
+            throw new UncheckedIOException("加载向量索引失败: " + directory.toAbsolutePath(), e);
+        }
+        log.info("HNSW 向量索引已加载，目录: {}，节点数: {}，有效文档数: {}", directory.toAbsolutePath(), count, idToNode.size());
+    }
+
+    @Override
+    public void add(List<Document> docs) {
+        // 先在读锁内找出内容有变化的文档，向量化放在锁外进行
+        List<PendingDocument> pending = new ArrayList<>();
+        lock.readLock().lock();
+        try {
+            for (Document doc : docs) {
+                byte[] record = serialize(doc);
+                long hash = hash(record);
+                Integer existing = idToNode.get(doc.getId());
+                if (existing == null || contentHashes[existing] != hash) {
+                    pending.add(new PendingDocument(doc.getId(), doc, record, hash));
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        if (pending.isEmpty()) {
+            return;
+        }
+
+        List<float[]> embeddings = embed(pending);
+        lock.writeLock().lock();
+        try {
+            for (int i = 0; i < pending.size(); i++) {
+                PendingDocument doc = pending.get(i);
+                Integer existing = idToNode.remove(doc.id());
+                if (existing != null) {
+                    deleted.set(existing);
+                    dirty.set(existing);
+                }
+                insert(doc, normalize(embeddings.get(i)));
+            }
+            commit();
+        } catch (IOException e) {
+            throw new UncheckedIOException("写入向量索引失败", e);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public Optional<Boolean> delete(List<String> idList) {
+        lock.writeLock().lock();
+        try {
+            boolean removed = false;
+            for (String id : idList) {
+                Integer node = idToNode.remove(id);
+                if (node != null) {
+                    deleted.set(node);
+                    dirty.set(node);
+                    removed = true;
+                }
+            }
+            if (removed) {
+                commit();
+            }
+            return Optional.of(removed);
+        } catch (IOException e) {
+            throw new UncheckedIOException("写入向量索引失败", e);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public List<Document> similaritySearch(SearchRequest request) {
+        if (request.hasFilterExpression()) {
+            log.debug("HNSW 向量库不支持过滤表达式，已忽略");
+        }
+        float[] query = normalize(embeddingModel.embed(request.getQuery()));
+
+        lock.readLock().lock();
+        try {
+            if (entryPoint < 0) {
+                return List.of();
+            }
+            checkDimension(query);
+            int nearest = entryPoint;
+            for (int level = maxLevel; level > 0; level--) {
+                nearest = searchLayer(query, List.of(new Candidate(nearest, distance(query, nearest))), 1, level).get(0).node();
+            }
+            int ef = Math.max(properties.getEfSearch(), request.getTopK());
+            List<Candidate> found = searchLayer(query, List.of(new Candidate(nearest, distance(query, nearest))), ef, 0);
+
+            List<Document> results = new ArrayList<>(request.getTopK());
+            for (Candidate candidate : found) {
+                if (results.size() >= request.getTopK()) {
+                    break;
+                }
+                if (deleted.get(candidate.node())) {
+                    continue;
+                }
+                // 按距离升序遍历，相似度低于阈值后其余结果也不会满足
+                if (1 - candidate.distance() < request.getSimilarityThreshold()) {
+                    break;
+                }
+                results.add(toDocument(candidate));
+            }
+            return results;
+        } catch (IOException e) {
+            throw new UncheckedIOException("读取向量索引失败", e);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * 读取全部有效文档的元数据，本向量库不支持过滤表达式，上层按元数据查找文档时使用
+     * 需要逐条读取文档文件，只适合启动、重建索引等低频场景
+     * @return 文档ID到元数据的映射
+     */
+    public Map<String, Map<String, Object>> listMetadata() {
+        lock.readLock().lock();
+        try {
+            Map<String, Map<String, Object>> result = new HashMap<>(idToNode.size());
+            for (Map.Entry<String, Integer> entry : idToNode.entrySet()) {
+                StoredDocument stored = objectMapper.readValue(documents.read(recordOffsets[entry.getValue()]), StoredDocument.class);
+                result.put(entry.getKey(), stored.metadata() == null ? Map.of() : stored.metadata());
+            }
+            return result;
+        } catch (IOException e) {
+            throw new UncheckedIOException("读取向量索引失败", e);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        lock.writeLock().lock();
+        try {
+            if (vectors != null) {
+                vectors.close();
+                layer0.close();
+            }
+            documents.close();
+            journal.close();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // ---------------------------------------------------------------- 图操作
+
+    private void insert(PendingDocument doc, float[] vector) throws IOException {
+        if (vectors == null) {
+            openGraphFiles(vector.length);
+        }
+        checkDimension(vector);
+
+        int node = count;
+        ensureCapacity(node + 1);
+        for (int i = 0; i < dimension; i++) {
+            vectors.putFloat(node, i * Float.BYTES, vector[i]);
+        }
+        int level = randomLevel();
+        ids[node] = doc.id();
+        levels[node] = (byte) level;
+        recordOffsets[node] = documents.append(doc.record());
+        contentHashes[node] = doc.hash();
+        upperNeighbors[node] = new int[level][];
+        for (int l = 0; l < level; l++) {
+            upperNeighbors[node][l] = new int[0];
+        }
+        layer0.putInt(node, 0, 0);
+        count = node + 1;
+        idToNode.put(doc.id(), node);
+        dirty.set(node);
+
+        if (entryPoint < 0) {
+            entryPoint = node;
+            maxLevel = level;
+            return;
+        }
+
+        int nearest = entryPoint;
+        for (int l = maxLevel; l > level; l--) {
+            nearest = searchLayer(vector, List.of(new Candidate(nearest, distance(vector, nearest))), 1, l).get(0).node();
+        }
+        List<Candidate> entryPoints = List.of(new Candidate(nearest, distance(vector, nearest)));
+        for (int l = Math.min(level, maxLevel); l >= 0; l--) {
+            List<Candidate> found = searchLayer(vector, entryPoints, properties.getEfConstruction(), l);
+            int[] selected = selectNeighbors(found, m);
+            setNeighbors(node, l, selected);
+            for (int neighbor : selected) {
+                link(neighbor, node, l);
+            }
+            entryPoints = found;
+        }
+        if (level > maxLevel) {
+            entryPoint = node;
+            maxLevel = level;
+        }
+    }
+
+    /**
+     * 在一层图中做贪心的最佳优先搜索
+     * @return 按距离升序排列的最多 ef 个候选
+     */
+    private List<Candidate> searchLayer(float[] query, List<Candidate> entryPoints, int ef, int level) {
+        BitSet visited = new BitSet(count);
+        PriorityQueue<Candidate> candidates = new PriorityQueue<>(NEAREST_FIRST);
+        PriorityQueue<Candidate> results = new PriorityQueue<>(NEAREST_FIRST.reversed());
+        for (Candidate entry : entryPoints) {
+            if (!visited.get(entry.node())) {
+                visited.set(entry.node());
+                candidates.add(entry);
+                results.add(entry);
+            }
+        }
+        while (results.size() > ef) {
+            results.poll();
+        }
+
+        while (!candidates.isEmpty()) {
+            Candidate current = candidates.poll();
+            if (results.size() >= ef && current.distance() > results.peek().distance()) {
+                break;
+            }
+            for (int neighbor : neighbors(current.node(), level)) {
+                if (visited.get(neighbor)) {
+                    continue;
+                }
+                visited.set(neighbor);
+                float distance = distance(query, neighbor);
+                if (results.size() < ef || distance < results.peek().distance()) {
+                    Candidate candidate = new Candidate(neighbor, distance);
+                    candidates.add(candidate);
+                    results.add(candidate);
+                    if (results.size() > ef) {
+                        results.poll();
+                    }
+                }
+            }
+        }
+
+        List<Candidate> sorted = new ArrayList<>(results);
+        sorted.sort(NEAREST_FIRST);
+        return sorted;
+    }
+
+    /**
+     * 启发式挑选邻居：优先保留彼此分散的候选，名额不足时再用被筛掉的最近候选补齐
+     * @param candidates 按距离升序排列的候选
+     */
+    private int[] selectNeighbors(List<Candidate> candidates, int max) {
+        List<Candidate> selected = new ArrayList<>(max);
+        List<Candidate> pruned = new ArrayList<>();
+        for (Candidate candidate : candidates) {
+            if (selected.size() >= max) {
+                break;
+            }
+            boolean diverse = true;
+            for (Candidate chosen : selected) {
+                if (distance(candidate.node(), chosen.node()) < candidate.distance()) {
+                    diverse = false;
+                    break;
+                }
+            }
+            (diverse ? selected : pruned).add(candidate);
+        }
+        for (int i = 0; i < pruned.size() && selected.size() < max; i++) {
+            selected.add(pruned.get(i));
+        }
+        return selected.stream().mapToInt(Candidate::node).toArray();
+    }
+
+    /**
+     * 为已有节点添加一条反向边，超过邻居上限时重新挑选
+     */
+    private void link(int node, int neighbor, int level) {
+        int[] current = neighbors(node, level);
+        int max = level == 0 ? m * 2 : m;
+        if (current.length < max) {
+            int[] grown = Arrays.copyOf(current, current.length + 1);
+            grown[current.length] = neighbor;
+            setNeighbors(node, level, grown);
+            return;
+        }
+        List<Candidate> candidates = new ArrayList<>(current.length + 1);
+        for (int existing : current) {
+            candidates.add(new Candidate(existing, distance(node, existing)));
+        }
+        candidates.add(new Candidate(neighbor, distance(node, neighbor)));
+        candidates.sort(NEAREST_FIRST);
+        setNeighbors(node, level, selectNeighbors(candidates, max));
+    }
+
+    private int[] neighbors(int node, int level) {
+        if (level > 0) {
+            return upperNeighbors[node][level - 1];
+        }
+        int size = layer0.getInt(node, 0);
+        int[] result = new int[size];
+        for (int i = 0; i < size; i++) {
+            result[i] = layer0.getInt(node, (i + 1) * Integer.BYTES);
+        }
+        return result;
+    }
+
+    private void setNeighbors(int node, int level, int[] neighbors) {
+        if (level > 0) {
+            upperNeighbors[node][level - 1] = neighbors;
+            dirty.set(node);
+            return;
+        }
+        layer0.putInt(node, 0, neighbors.length);
+        for (int i = 0; i < neighbors.length; i++) {
+            layer0.putInt(node, (i + 1) * Integer.BYTES, neighbors[i]);
+        }
+    }
+
+    /**
+     * 余弦距离，向量写入前已归一化，直接取 1 - 点积
+     */
+    private float distance(float[] query, int node) {
+        MappedByteBuffer segment = vectors.segment(node);
+        int base = vectors.offset(node);
+        float dot = 0;
+        for (int i = 0; i < dimension; i++) {
+            dot += query[i] * segment.getFloat(base + i * Float.BYTES);
+        }
+        return 1 - dot;
+    }
+
+    private float distance(int a, int b) {
+        MappedByteBuffer segmentA = vectors.segment(a);
+        MappedByteBuffer segmentB = vectors.segment(b);
+        int baseA = vectors.offset(a);
+        int baseB = vectors.offset(b);
+        float dot = 0;
+        for (int i = 0; i < dimension; i++) {
+            dot += segmentA.getFloat(baseA + i * Float.BYTES) * segmentB.getFloat(baseB + i * Float.BYTES);
+        }
+        return 1 - dot;
+    }
+
+    private int randomLevel() {
+        double random = ThreadLocalRandom.current().nextDouble();
+        int level = (int) Math.floor(-Math.log(1 - random) / Math.log(m));
+        return Math.min(level, MAX_LEVEL);
+    }
+
+    // ---------------------------------------------------------------- 持久化
+
+    private void load() throws IOException {
+        long documentsLength = 0;
+        Path snapshot = directory.resolve(SNAPSHOT_FILE);
+        if (Files.exists(snapshot)) {
+            try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(snapshot)))) {
+                if (in.readInt() != MAGIC || in.readInt() != FORMAT_VERSION) {
+                    throw new IllegalStateException("向量索引文件格式不正确: " + snapshot.toAbsolutePath());
+                }
+                documentsLength = readHeader(in);
+                for (int node = 0; node < count; node++) {
+                    readNode(in, node);
+                }
+            }
+        }
+
+        journal = new IndexJournal(directory.resolve(JOURNAL_FILE));
+        for (byte[] batch : journal.readBatches()) {
+            try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(batch))) {
+                documentsLength = readHeader(in);
+                int entries = in.readInt();
+                for (int i = 0; i < entries; i++) {
+                    readNode(in, in.readInt());
+                }
+                journalEntries += entries;
+            }
+        }
+        for (int node = 0; node < count; node++) {
+            if (!deleted.get(node)) {
+                idToNode.put(ids[node], node);
+            }
+        }
+
+        documents = new DocumentLog(directory.resolve(DOCUMENTS_FILE), documentsLength);
+        if (dimension > 0) {
+            openGraphFiles(dimension);
+            dropUncommittedEdges();
+        }
+    }
+
+    /**
+     * 过滤第 0 层中指向未提交节点的边：这些边在崩溃前已写入映射文件，但对应的节点没有进入快照或日志
+     */
+    private void dropUncommittedEdges() {
+        int repaired = 0;
+        for (int node = 0; node < count; node++) {
+            int size = Math.min(layer0.getInt(node, 0), m * 2);
+            int[] kept = new int[size];
+            int keptSize = 0;
+            for (int i = 0; i < size; i++) {
+                int neighbor = layer0.getInt(node, (i + 1) * Integer.BYTES);
+                if (neighbor >= 0 && neighbor < count) {
+                    kept[keptSize++] = neighbor;
+                }
+            }
+            if (keptSize != layer0.getInt(node, 0)) {
+                setNeighbors(node, 0, Arrays.copyOf(kept, keptSize));
+                repaired++;
+            }
+        }
+        if (repaired > 0) {
+            layer0.force();
+            log.warn("向量索引上次未正常提交，已清理 {} 个节点第 0 层中指向未提交节点的边", repaired);
+        }
+    }
+
+    /**
+     * 提交本次写入：先把映射文件和文档日志刷盘，再把变化的节点追加到节点日志；
+     * 日志累积足够多后合并为快照
+     */
+    private void commit() throws IOException {
+        if (vectors != null) {
+            vectors.force();
+            layer0.force();
+        }
+        documents.force();
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            writeHeader(out);
+            out.writeInt(dirty.cardinality());
+            for (int node = dirty.nextSetBit(0); node >= 0; node = dirty.nextSetBit(node + 1)) {
+                out.writeInt(node);
+                writeNode(out, node);
+            }
+        }
+        journal.append(bytes.toByteArray());
+        journalEntries += dirty.cardinality();
+        dirty.clear();
+
+        if (journalEntries >= Math.max(COMPACT_MIN_ENTRIES, count)) {
+            writeSnapshot();
+            journal.reset();
+            journalEntries = 0;
+        }
+    }
+
+    /**
+     * 原子替换节点表快照；替换后、清空日志前崩溃时，重放日志得到的状态与快照相同
+     */
+    private void writeSnapshot() throws IOException {
+        Path snapshot = directory.resolve(SNAPSHOT_FILE);
+        Path temp = directory.resolve(SNAPSHOT_FILE + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temp)))) {
+            out.writeInt(MAGIC);
+            out.writeInt(FORMAT_VERSION);
+            writeHeader(out);
+            for (int node = 0; node < count; node++) {
+                writeNode(out, node);
+            }
+        }
+        Files.move(temp, snapshot, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private void writeHeader(DataOutputStream out) throws IOException {
+        out.writeInt(dimension);
+        out.writeInt(m);
+        out.writeInt(count);
+        out.writeInt(entryPoint);
+        out.writeInt(maxLevel);
+        out.writeLong(documents.size());
+    }
+
+    /**
+     * @return 文档日志的有效长度
+     */
+    private long readHeader(DataInputStream in) throws IOException {
+        dimension = in.readInt();
+        int storedM = in.readInt();
+        if (storedM != m) {
+            log.warn("向量索引建立时 m={}，与当前配置 m={} 不一致，沿用建立时的值", storedM, m);
+            m = storedM;
+        }
+        count = in.readInt();
+        entryPoint = in.readInt();
+        maxLevel = in.readInt();
+        long documentsLength = in.readLong();
+        ensureCapacity(count);
+        return documentsLength;
+    }
+
+    private void writeNode(DataOutputStream out, int node) throws IOException {
+        out.writeUTF(ids[node]);
+        out.writeByte(levels[node]);
+        out.writeBoolean(deleted.get(node));
+        out.writeLong(recordOffsets[node]);
+        out.writeLong(contentHashes[node]);
+        for (int[] neighbors : upperNeighbors[node]) {
+            out.writeInt(neighbors.length);
+            for (int neighbor : neighbors) {
+                out.writeInt(neighbor);
+            }
+        }
+    }
+
+    private void readNode(DataInputStream in, int node) throws IOException {
+        ensureCapacity(node + 1);
+        ids[node] = in.readUTF();
+        levels[node] = in.readByte();
+        deleted.set(node, in.readBoolean());
+        recordOffsets[node] = in.readLong();
+        contentHashes[node] = in.readLong();
+        upperNeighbors[node] = new int[levels[node]][];
+        for (int l = 0; l < levels[node]; l++) {
+            int[] neighbors = new int[in.readInt()];
+            for (int i = 0; i < neighbors.length; i++) {
+                neighbors[i] = in.readInt();
+            }
+            upperNeighbors[node][l] = neighbors;
+        }
+    }
+
+    private void openGraphFiles(int vectorDimension) throws IOException {
+        dimension = vectorDimension;
+        vectors = new MappedRecordFile(directory.resolve(VECTORS_FILE), dimension * Float.BYTES);
+        layer0 = new MappedRecordFile(directory.resolve(LAYER0_FILE), (m * 2 + 1) * Integer.BYTES);
+    }
+
+    private void ensureCapacity(int required) {
+        if (required <= ids.length) {
+            return;
+        }
+        int capacity = Math.max(required, ids.length + (ids.length >> 1) + 16);
+        ids = Arrays.copyOf(ids, capacity);
+        levels = Arrays.copyOf(levels, capacity);
+        recordOffsets = Arrays.copyOf(recordOffsets, capacity);
+        contentHashes = Arrays.copyOf(contentHashes, capacity);
+        upperNeighbors = Arrays.copyOf(upperNeighbors, capacity);
+    }
+
+    // ---------------------------------------------------------------- 文档与向量
+
+    private List<float[]> embed(List<PendingDocument> pending) {
+        List<float[]> embeddings = new ArrayList<>(pending.size());
+        List<String> batch = new ArrayList<>(EMBED_BATCH_SIZE);
+        for (PendingDocument doc : pending) {
+            float[] provided = doc.document().getEmbedding();
+            if (provided != null && provided.length > 0) {
+                embeddings.addAll(embedBatch(batch));
+                embeddings.add(provided);
+                continue;
+            }
+            batch.add(doc.document().getContent());
+            if (batch.size() == EMBED_BATCH_SIZE) {
+                embeddings.addAll(embedBatch(batch));
+            }
+        }
+        embeddings.addAll(embedBatch(batch));
+        return embeddings;
+    }
+
+    private List<float[]> embedBatch(List<String> batch) {
+        if (batch.isEmpty()) {
+            return List.of();
+        }
+        List<float[]> result = embeddingModel.embed(new ArrayList<>(batch));
+        batch.clear();
+        return result;
+    }
+
+    private void checkDimension(float[] vector) {
+        if (vector.length != dimension) {
+            throw new IllegalStateException("向量维度 " + vector.length + " 与已有索引的维度 " + dimension
+                    + " 不一致，更换向量模型后请删除 " + directory.toAbsolutePath() + " 重新建立索引");
+        }
+    }
+
+    private static float[] normalize(float[] vector) {
+        double norm = 0;
+        for (float value : vector) {
+            norm += value * value;
+        }
+        norm = Math.sqrt(norm);
+        float[] normalized = new float[vector.length];
+        if (norm == 0) {
+            return normalized;
+        }
+        for (int i = 0; i < vector.length; i++) {
+            normalized[i] = (float) (vector[i] / norm);
+        }
+        return normalized;
+    }
+
+    private Document toDocument(Candidate candidate) throws IOException {
+        StoredDocument stored = objectMapper.readValue(documents.read(recordOffsets[candidate.node()]), StoredDocument.class);
+        Map<String, Object> metadata = new HashMap<>(stored.metadata() == null ? Map.of() : stored.metadata());
+        metadata.put("distance", candidate.distance());
+        return new Document(stored.id(), stored.content(), metadata);
+    }
+
+    private byte[] serialize(Document doc) {
+        try {
+            Map<String, Object> metadata = new TreeMap<>();
+            if (doc.getMetadata() != null) {
+                metadata.putAll(doc.getMetadata());
+                metadata.remove("distance");
+            }
+            return objectMapper.writeValueAsBytes(new StoredDocument(doc.getId(), doc.getContent(), metadata));
+        } catch (IOException e) {
+            throw new UncheckedIOException("序列化文档失败: " + doc.getId(), e);
+        }
+    }
+
+    /**
+     * 文档内容摘要，用于判断同一ID的文档是否需要重新向量化
+     */
+    private static long hash(byte[] record) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(record);
+            return ByteBuffer.wrap(digest).getLong();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private record Candidate(int node, float distance) {
+    }
+
+    private record PendingDocument(String id, Document document, byte[] record, long hash) {
+    }
+
+    private record StoredDocument(String id, String content, Map<String, Object> metadata) {
+    }
+}
@@ -0,0 +1,107 @@
+package com.backend.vectorstore;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.CRC32;
+
+/**
+ * 只追加的节点日志
+ * 每次写入提交一批记录 [长度][CRC32][内容]，重启时按顺序读取，遇到不完整或校验失败的批次即截断，
+ * 之后的内容视为未提交
+ */
+final class IndexJournal implements Closeable {
+
+    private static final int HEADER_BYTES = Integer.BYTES + Long.BYTES;
+
+    private final FileChannel channel;
+    private long size;
+
+    IndexJournal(Path path) throws IOException {
+        this.channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+    }
+
+    /**
+     * 读取全部已提交的批次，并截掉末尾未完整写入的部分
+     */
+    List<byte[]> readBatches() throws IOException {
+        List<byte[]> batches = new ArrayList<>();
+        long position = 0;
+        long fileSize = channel.size();
+        while (position + HEADER_BYTES <= fileSize) {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+            readFully(header, position);
+            header.flip();
+            int length = header.getInt();
+            long checksum = header.getLong();
+            if (length < 0 || position + HEADER_BYTES + length > fileSize) {
+                break;
+            }
+            ByteBuffer body = ByteBuffer.allocate(length);
+            readFully(body, position + HEADER_BYTES);
+            if (crc(body.array()) != checksum) {
+                break;
+            }
+            batches.add(body.array());
+            position += HEADER_BYTES + length;
+        }
+        if (position < fileSize) {
+            channel.truncate(position);
+        }
+        size = position;
+        return batches;
+    }
+
+    /**
+     * 追加一个批次并刷盘，只能在索引写锁内调用
+     */
+    void append(byte[] batch) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(HEADER_BYTES + batch.length);
+        buffer.putInt(batch.length).putLong(crc(batch)).put(batch).flip();
+        long position = size;
+        while (buffer.hasRemaining()) {
+            position += channel.write(buffer, position);
+        }
+        channel.force(false);
+        size = position;
+    }
+
+    /**
+     * 日志内容已合并进快照后清空
+     */
+    void reset() throws IOException {
+        channel.truncate(0);
+        channel.force(false);
+        size = 0;
+    }
+
+    long size() {
+        return size;
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    private void readFully(ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            int read = channel.read(buffer, position);
+            if (read < 0) {
+                break;
+            }
+            position += read;
+        }
+    }
+
+    private static long crc(byte[] content) {
+        CRC32 crc = new CRC32();
+        crc.update(content);
+        return crc.getValue();
+    }
+}
@@ -0,0 +1,97 @@
+package com.backend.vectorstore;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * 定长记录的内存映射文件
+ * 文件按段映射，每段固定记录数，只在首次访问某段时才建立映射；数据位于堆外，由操作系统按页加载和回写
+ */
+final class MappedRecordFile implements Closeable {
+
+    private static final int SEGMENT_SHIFT = 14;
+    private static final int RECORDS_PER_SEGMENT = 1 << SEGMENT_SHIFT;
+
+    private final FileChannel channel;
+    private final int recordBytes;
+    private volatile MappedByteBuffer[] segments = new MappedByteBuffer[0];
+
+    MappedRecordFile(Path path, int recordBytes) throws IOException {
+        this.channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        this.recordBytes = recordBytes;
+    }
+
+    /**
+     * 记录所在段的缓冲区，配合 {@link #offset(int)} 使用绝对位置读写，不改变缓冲区的 position，可并发读取
+     */
+    MappedByteBuffer segment(int index) {
+        int segmentIndex = index >>> SEGMENT_SHIFT;
+        MappedByteBuffer[] current = segments;
+        if (segmentIndex < current.length && current[segmentIndex] != null) {
+            return current[segmentIndex];
+        }
+        return mapSegment(segmentIndex);
+    }
+
+    /**
+     * 记录在所在段内的起始字节位置
+     */
+    int offset(int index) {
+        return (index & (RECORDS_PER_SEGMENT - 1)) * recordBytes;
+    }
+
+    int getInt(int index, int position) {
+        return segment(index).getInt(offset(index) + position);
+    }
+
+    void putInt(int index, int position, int value) {
+        segment(index).putInt(offset(index) + position, value);
+    }
+
+    void putFloat(int index, int position, float value) {
+        segment(index).putFloat(offset(index) + position, value);
+    }
+
+    /**
+     * 把已修改的页写回磁盘
+     */
+    void force() {
+        for (MappedByteBuffer segment : segments) {
+            if (segment != null) {
+                segment.force();
+            }
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        force();
+        channel.close();
+    }
+
+    private synchronized MappedByteBuffer mapSegment(int segmentIndex) {
+        MappedByteBuffer[] current = segments;
+        if (segmentIndex < current.length && current[segmentIndex] != null) {
+            return current[segmentIndex];
+        }
+        try {
+            long segmentBytes = (long) RECORDS_PER_SEGMENT * recordBytes;
+            MappedByteBuffer segment = channel.map(FileChannel.MapMode.READ_WRITE, segmentIndex * segmentBytes, segmentBytes);
+            // 固定小端序，读写时不需要字节翻转，文件在常见平台间也能直接复用
+            segment.order(ByteOrder.LITTLE_ENDIAN);
+            MappedByteBuffer[] grown = segmentIndex < current.length ? current.clone() : Arrays.copyOf(current, segmentIndex + 1);
+            grown[segmentIndex] = segment;
+            segments = grown;
+            return segment;
+        } catch (IOException e) {
+            throw new UncheckedIOException("映射向量索引文件失败", e);
+        }
+    }
+}
@@ -0,0 +1,36 @@
+package com.backend.vo;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * 游标（keyset）分页结果
+ * 下一页以 nextCursor 作为 cursor 参数请求，hasMore 为 false 时表示已到末尾
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CursorPage<T> {
+    private List<T> records;
+    private Long nextCursor;
+    private boolean hasMore;
+
+    /**
+     * 根据多查一条的结果构造分页
+     *
+     * @param rows 按ID倒序、最多 size + 1 条的查询结果
+     * @param size 每页条数
+     * @param idGetter 取记录ID的方法
+     * @return 分页结果
+     */
+    public static <T> CursorPage<T> of(List<T> rows, int size, Function<T, Long> idGetter) {
+        boolean hasMore = rows.size() > size;
+        List<T> records = hasMore ? rows.subList(0, size) : rows;
+        Long nextCursor = hasMore ? idGetter.apply(records.get(records.size() - 1)) : null;
+        return new CursorPage<>(records, nextCursor, hasMore);
+    }
+}
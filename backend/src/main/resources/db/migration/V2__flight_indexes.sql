@@ -0,0 +1,10 @@
+-- 航班查询索引
+
+-- 航线搜索：departure_city = ? AND arrival_city = ? AND scheduled_departure_time BETWEEN ? AND ? ORDER BY scheduled_departure_time
+ALTER TABLE `flight` ADD INDEX `idx_flight_route_departure` (`departure_city`, `arrival_city`, `scheduled_departure_time`);
+
+-- 按航班号查询
+ALTER TABLE `flight` ADD INDEX `idx_flight_no` (`flight_no`);
+
+-- 按航空公司查询：airline = ? ORDER BY scheduled_departure_time
+ALTER TABLE `flight` ADD INDEX `idx_flight_airline_departure` (`airline`, `scheduled_departure_time`);
@@ -0,0 +1,10 @@
+-- 仪表盘统计索引
+
+-- 按日统计航班：scheduled_departure_time >= ? AND scheduled_departure_time < ?
+ALTER TABLE `flight` ADD INDEX `idx_flight_departure_time` (`scheduled_departure_time`);
+
+-- 按日统计订单与活跃用户：created_at >= ? AND created_at < ?
+ALTER TABLE `flight_order` ADD INDEX `idx_order_created_user` (`created_at`, `user_id`);
+
+-- 统计转人工会话：status = 2
+ALTER TABLE `conversation_index` ADD INDEX `idx_conversation_status` (`status`);
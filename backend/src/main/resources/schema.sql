@@ -19,7 +19,7 @@ CREATE TABLE IF NOT EXISTS `user` (
   `updated_at` DATETIME DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP
 ) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COMMENT='用户基础信息表';
 
--- 航班信息表：flight
+-- 航班信息表：flight（查询索引由 db/migration/V2__flight_indexes.sql 创建）
 CREATE TABLE IF NOT EXISTS `flight` (
   `id` BIGINT AUTO_INCREMENT PRIMARY KEY,
   `flight_no` VARCHAR(20) NOT NULL COMMENT '航班号',
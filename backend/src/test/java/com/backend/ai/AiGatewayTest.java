@@ -0,0 +1,228 @@
+package com.backend.ai;
+
+import com.backend.config.AiProperties;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Sinks;
+import reactor.core.scheduler.Schedulers;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class AiGatewayTest {
+
+    private SimpleMeterRegistry meterRegistry;
+    private AiProperties aiProperties;
+    private final List<String> started = new CopyOnWriteArrayList<>();
+    private final Map<String, Thread> callThreads = new ConcurrentHashMap<>();
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        aiProperties = new AiProperties();
+        aiProperties.getGateway().setMaxConcurrent(2);
+        aiProperties.getGateway().setMaxPerUser(1);
+        aiProperties.getGateway().setMaxQueue(10);
+        aiProperties.getGateway().setMaxWait(Duration.ofSeconds(10));
+        aiProperties.getGateway().setLevelBoost(Duration.ofSeconds(2));
+    }
+
+    @Test
+    void grantsUpToLimitAndDispatchesQueuedOnRelease() {
+        AiGateway gateway = gateway();
+        Call a = call(gateway, "a", 0);
+        Call b = call(gateway, "b", 0);
+        Call c = call(gateway, "c", 0);
+
+        assertThat(started).containsExactly("a", "b");
+        assertThat(queue()).isEqualTo(1);
+
+        a.finish();
+        assertThat(started).containsExactly("a", "b", "c");
+        assertThat(active()).isEqualTo(2);
+
+        b.finish();
+        c.finish();
+        assertThat(active()).isZero();
+        assertThat(queue()).isZero();
+    }
+
+    @Test
+    void waiterBlockedByOwnUserLimitDoesNotBlockOtherUsers() {
+        aiProperties.getGateway().setMaxConcurrent(3);
+        AiGateway gateway = gateway();
+        Call first = call(gateway, "a", 0);
+        call(gateway, "a", 0);
+        call(gateway, "b", 0);
+
+        // a 的第二个请求只受单用户上限限制，b 仍应立即获得许可
+        assertThat(started).containsExactly("a", "b");
+        assertThat(queue()).isEqualTo(1);
+
+        first.finish();
+        assertThat(started).containsExactly("a", "b", "a");
+        assertThat(queue()).isZero();
+    }
+
+    @Test
+    void higherMemberLevelIsServedFirst() {
+        aiProperties.getGateway().setMaxConcurrent(1);
+        AiGateway gateway = gateway();
+        Call holder = call(gateway, "holder", 0);
+        call(gateway, "basic", 0);
+        call(gateway, "gold", 3);
+
+        holder.finish();
+        assertThat(started).containsExactly("holder", "gold");
+    }
+
+    @Test
+    void cancelledWaiterLeavesQueueAndIsNotGranted() {
+        aiProperties.getGateway().setMaxConcurrent(1);
+        AiGateway gateway = gateway();
+        Call holder = call(gateway, "holder", 0);
+        Call waiting = call(gateway, "waiting", 0);
+
+        waiting.subscription.dispose();
+        assertThat(queue()).isZero();
+
+        holder.finish();
+        assertThat(started).containsExactly("holder");
+        assertThat(active()).isZero();
+    }
+
+    @Test
+    void cancellingGrantedStreamReturnsPermit() {
+        aiProperties.getGateway().setMaxConcurrent(1);
+        AiGateway gateway = gateway();
+        Call holder = call(gateway, "holder", 0);
+        call(gateway, "next", 0);
+
+        holder.subscription.dispose();
+        assertThat(started).containsExactly("holder", "next");
+        assertThat(active()).isEqualTo(1);
+    }
+
+    @Test
+    void waiterExpiresAfterMaxWait() throws InterruptedException {
+        aiProperties.getGateway().setMaxConcurrent(1);
+        aiProperties.getGateway().setMaxWait(Duration.ofMillis(50));
+        AiGateway gateway = gateway();
+        call(gateway, "holder", 0);
+        Call waiting = call(gateway, "waiting", 0);
+
+        Thread.sleep(300);
+        assertThat(waiting.error.get()).isInstanceOf(AiGatewayRejectedException.class);
+        assertThat(((AiGatewayRejectedException) waiting.error.get()).getReason()).isEqualTo("deadline");
+        assertThat(queue()).isZero();
+        assertThat(active()).isEqualTo(1);
+    }
+
+    @Test
+    void rejectsWhenUserQueuesTooMany() {
+        aiProperties.getGateway().setMaxConcurrent(1);
+        AiGateway gateway = gateway();
+        call(gateway, "a", 0);
+        call(gateway, "a", 0);
+        Call rejected = call(gateway, "a", 0);
+
+        assertThat(rejected.error.get()).isInstanceOf(AiGatewayRejectedException.class);
+        assertThat(((AiGatewayRejectedException) rejected.error.get()).getReason()).isEqualTo("user_limit");
+    }
+
+    @Test
+    void concurrentCancelsAndCompletionsDoNotLeakPermits() throws InterruptedException {
+        aiProperties.getGateway().setMaxConcurrent(4);
+        aiProperties.getGateway().setMaxPerUser(2);
+        aiProperties.getGateway().setMaxQueue(1000);
+        AiGateway gateway = gateway();
+        List<Thread> threads = new ArrayList<>();
+        for (int t = 0; t < 8; t++) {
+            int thread = t;
+            Thread worker = new Thread(() -> {
+                for (int i = 0; i < 2000; i++) {
+                    Call call = call(gateway, "user-" + (i + thread) % 5, i % 3);
+                    if (i % 2 == 0) {
+                        call.subscription.dispose();
+                    } else {
+                        call.finish();
+                        call.subscription.dispose();
+                    }
+                }
+            });
+            worker.start();
+            threads.add(worker);
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        assertThat(active()).isZero();
+        assertThat(queue()).isZero();
+    }
+
+    @Test
+    void queuedCallDoesNotRunOnReleasingThread() throws InterruptedException {
+        aiProperties.getGateway().setMaxConcurrent(1);
+        AiGateway gateway = new AiGateway(aiProperties, meterRegistry);
+        Call holder = call(gateway, "holder", 0);
+        call(gateway, "waiting", 0);
+        awaitStarted("holder");
+
+        // 归还许可的线程相当于上一个模型流的 I/O 线程，排队请求的调用不能在这里同步执行
+        holder.finish();
+        awaitStarted("waiting");
+        assertThat(callThreads.get("waiting")).isNotSameAs(Thread.currentThread());
+        assertThat(callThreads.get("waiting").getName()).startsWith("boundedElastic");
+    }
+
+    /**
+     * 测试排队逻辑时在当前线程发起调用，断言不必等待线程切换
+     */
+    private AiGateway gateway() {
+        return new AiGateway(aiProperties, meterRegistry, Schedulers.immediate());
+    }
+
+    private void awaitStarted(String user) throws InterruptedException {
+        long deadline = System.nanoTime() + Duration.ofSeconds(5).toNanos();
+        while (!started.contains(user) && System.nanoTime() < deadline) {
+            Thread.sleep(5);
+        }
+        assertThat(started).contains(user);
+    }
+
+    private Call call(AiGateway gateway, String user, int level) {
+        Sinks.Many<String> upstream = Sinks.many().unicast().onBackpressureBuffer();
+        AtomicReference<Throwable> error = new AtomicReference<>();
+        Flux<String> flux = gateway.stream(user, level, () -> {
+            callThreads.put(user, Thread.currentThread());
+            started.add(user);
+            return upstream.asFlux();
+        });
+        Disposable subscription = flux.subscribe(value -> { }, error::set);
+        return new Call(upstream, subscription, error);
+    }
+
+    private double active() {
+        return meterRegistry.get("smartair.ai.gateway.active").gauge().value();
+    }
+
+    private double queue() {
+        return meterRegistry.get("smartair.ai.gateway.queue").gauge().value();
+    }
+
+    private record Call(Sinks.Many<String> upstream, Disposable subscription, AtomicReference<Throwable> error) {
+        void finish() {
+            upstream.tryEmitComplete();
+        }
+    }
+}
@@ -0,0 +1,71 @@
+package com.backend.embedding;
+
+import com.backend.ai.stub.StubEmbeddingModel;
+import com.backend.config.AiProperties;
+import com.backend.dao.redis.RedisDao;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.ai.embedding.EmbeddingRequest;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyMap;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+class CachingEmbeddingModelTest {
+
+    private final Map<String, String> redis = new HashMap<>();
+    private final AiProperties.EmbeddingCache properties = new AiProperties.EmbeddingCache();
+    private RedisDao redisDao;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        redisDao = mock(RedisDao.class);
+        doAnswer(invocation -> {
+            redis.putAll(invocation.getArgument(0, Map.class));
+            return null;
+        }).when(redisDao).setAll(anyMap(), anyLong(), any());
+        doAnswer(invocation -> ((List<String>) invocation.getArgument(0)).stream().map(redis::get).toList())
+                .when(redisDao).multiGet(anyList());
+    }
+
+    @Test
+    void coldLocalCacheReadsBackWhatAnEarlierCallWrote() {
+        StubEmbeddingModel first = spy(new StubEmbeddingModel(16));
+        List<float[]> written = new CachingEmbeddingModel(first, redisDao, properties).embed(List.of("行李额度", "退票规则"));
+        verify(first, times(1)).call(any(EmbeddingRequest.class));
+        assertThat(redis).isNotEmpty().allSatisfy((key, value) -> assertThat(key).startsWith("embedding:"));
+
+        // 模拟重启或其他节点：本地缓存为空，只能从 Redis 读取
+        StubEmbeddingModel second = spy(new StubEmbeddingModel(16));
+        List<float[]> read = new CachingEmbeddingModel(second, redisDao, properties).embed(List.of("行李额度", "退票规则"));
+
+        verify(second, never()).call(any(EmbeddingRequest.class));
+        assertThat(read).hasSize(2);
+        assertThat(read.get(0)).containsExactly(written.get(0));
+        assertThat(read.get(1)).containsExactly(written.get(1));
+    }
+
+    @Test
+    void onlyTextsMissingFromRedisAreEmbedded() {
+        new CachingEmbeddingModel(new StubEmbeddingModel(16), redisDao, properties).embed(List.of("行李额度"));
+
+        StubEmbeddingModel delegate = spy(new StubEmbeddingModel(16));
+        new CachingEmbeddingModel(delegate, redisDao, properties).embed(List.of("行李额度", "值机时间"));
+
+        verify(delegate, times(1)).call(argThat((EmbeddingRequest request) -> request.getInstructions().equals(List.of("值机时间"))));
+    }
+}
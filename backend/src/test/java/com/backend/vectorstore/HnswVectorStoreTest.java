@@ -0,0 +1,150 @@
+package com.backend.vectorstore;
+
+import com.backend.ai.stub.StubEmbeddingModel;
+import com.backend.config.AiProperties;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.ai.document.Document;
+import org.springframework.ai.vectorstore.SearchRequest;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class HnswVectorStoreTest {
+
+    private final StubEmbeddingModel embeddingModel = new StubEmbeddingModel(64);
+    private Path directory;
+    private AiProperties.VectorIndex properties;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        directory = Files.createTempDirectory("hnsw-test");
+        properties = new AiProperties.VectorIndex();
+        properties.setType("hnsw");
+        properties.setPath(directory.toString());
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        try (Stream<Path> paths = Files.walk(directory)) {
+            for (Path path : paths.sorted(Comparator.reverseOrder()).toList()) {
+                Files.delete(path);
+            }
+        }
+    }
+
+    @Test
+    void reopenRestoresDocumentsDeletesAndReplacements() throws IOException {
+        try (HnswVectorStore store = open()) {
+            store.add(documents("doc", 0, 30));
+            store.delete(List.of("doc-3"));
+            store.add(List.of(new Document("doc-5", "行李托运的全新说明", Map.of())));
+        }
+
+        try (HnswVectorStore store = open()) {
+            assertThat(nearest(store, content("doc", 7)).getId()).isEqualTo("doc-7");
+            assertThat(nearest(store, content("doc", 3)).getId()).isNotEqualTo("doc-3");
+            Document replaced = nearest(store, "行李托运的全新说明");
+            assertThat(replaced.getId()).isEqualTo("doc-5");
+            assertThat(replaced.getContent()).isEqualTo("行李托运的全新说明");
+        }
+    }
+
+    @Test
+    void edgesToUncommittedNodesAreDroppedAfterCrash() throws IOException {
+        try (HnswVectorStore store = open()) {
+            store.add(documents("doc", 0, 30));
+        }
+        Path journal = directory.resolve("index.journal");
+        long committed = Files.size(journal);
+
+        // 第二批写入后截掉其日志记录，模拟提交前崩溃：第 0 层映射文件里已有指向这些节点的边
+        try (HnswVectorStore store = open()) {
+            store.add(documents("lost", 0, 30));
+        }
+        try (FileChannel channel = FileChannel.open(journal, StandardOpenOption.WRITE)) {
+            channel.truncate(committed);
+        }
+
+        try (HnswVectorStore store = open()) {
+            List<Document> beforeInsert = store.similaritySearch(SearchRequest.query(content("lost", 1)).withTopK(60));
+            assertThat(beforeInsert).hasSize(30).extracting(Document::getId)
+                    .doesNotHaveDuplicates().allMatch(id -> id.startsWith("doc-"));
+
+            // 新节点会复用未提交节点的编号，旧的边不能把它们错误地连进图里
+            store.add(documents("fresh", 0, 30));
+            for (int i = 0; i < 30; i++) {
+                assertThat(nearest(store, content("doc", i)).getId()).isEqualTo("doc-" + i);
+                Document fresh = nearest(store, content("fresh", i));
+                assertThat(fresh.getId()).isEqualTo("fresh-" + i);
+                assertThat(fresh.getContent()).isEqualTo(content("fresh", i));
+            }
+            List<Document> all = store.similaritySearch(SearchRequest.query(content("lost", 1)).withTopK(60));
+            assertThat(all).extracting(Document::getId).doesNotHaveDuplicates().noneMatch(id -> id.startsWith("lost-"));
+        }
+    }
+
+    @Test
+    void listMetadataReturnsLiveDocumentsAfterReopen() throws IOException {
+        try (HnswVectorStore store = open()) {
+            store.add(List.of(
+                    new Document("a", "行李额度说明", Map.of("knowledge_id", "k1", "chunk_index", 0)),
+                    new Document("b", "行李超重收费", Map.of("knowledge_id", "k1", "chunk_index", 1)),
+                    new Document("c", "退改签规则", Map.of("knowledge_id", "k2", "chunk_index", 0))));
+            store.delete(List.of("c"));
+        }
+
+        try (HnswVectorStore store = open()) {
+            Map<String, Map<String, Object>> metadata = store.listMetadata();
+            assertThat(metadata).containsOnlyKeys("a", "b");
+            assertThat(metadata.get("b")).containsEntry("knowledge_id", "k1").containsEntry("chunk_index", 1);
+        }
+    }
+
+    @Test
+    void journalIsCompactedIntoSnapshot() throws IOException {
+        try (HnswVectorStore store = open()) {
+            for (int batch = 0; batch < 12; batch++) {
+                store.add(documents("doc", batch * 100, 100));
+            }
+        }
+        assertThat(directory.resolve("index.meta")).exists();
+        assertThat(Files.size(directory.resolve("index.journal"))).isLessThan(Files.size(directory.resolve("index.meta")));
+
+        try (HnswVectorStore store = open()) {
+            assertThat(nearest(store, content("doc", 42)).getId()).isEqualTo("doc-42");
+            assertThat(nearest(store, content("doc", 1150)).getId()).isEqualTo("doc-1150");
+        }
+    }
+
+    private HnswVectorStore open() {
+        return new HnswVectorStore(embeddingModel, properties);
+    }
+
+    private static Document nearest(HnswVectorStore store, String query) {
+        return store.similaritySearch(SearchRequest.query(query).withTopK(1)).get(0);
+    }
+
+    private static List<Document> documents(String prefix, int from, int size) {
+        List<Document> documents = new ArrayList<>(size);
+        for (int i = from; i < from + size; i++) {
+            documents.add(new Document(prefix + "-" + i, content(prefix, i), Map.of()));
+        }
+        return documents;
+    }
+
+    private static String content(String prefix, int i) {
+        return prefix + " 知识片段 " + i + " " + Integer.toHexString(i * 7919 + prefix.hashCode());
+    }
+}
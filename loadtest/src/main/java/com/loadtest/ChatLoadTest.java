@@ -0,0 +1,207 @@
+package com.loadtest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+
+import java.net.http.HttpClient;
+import java.nio.file.Files;
+import java.time.Duration;
+import java.time.OffsetDateTime;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * AI 对话流式接口压测
+ * 启动 N 个虚拟用户，每个用户循环“提问 - 读完整条回复 - 思考”，统计首字延迟、每 token 耗时、吞吐量，
+ * 同时采集服务端堆内存和线程数，结果输出到控制台并保存为 JSON，便于对比不同版本。
+ * 后端应以 stub profile 启动，避免压测访问真实模型。
+ *
+ * 用法：java -jar target/loadtest.jar --users=200 --duration=5m --think-time=2s
+ */
+public class ChatLoadTest {
+
+    private final LoadTestConfig config;
+    private final HttpClient client;
+    private final SseSession session;
+    private final ObjectMapper objectMapper = new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT);
+    private final String runId = UUID.randomUUID().toString().substring(0, 8);
+
+    private final LatencyRecorder timeToFirstToken = new LatencyRecorder();
+    private final LatencyRecorder timePerOutputToken = new LatencyRecorder();
+    private final LatencyRecorder interFrame = new LatencyRecorder();
+    private final LatencyRecorder turnDuration = new LatencyRecorder();
+    private final Map<SseSession.Outcome, AtomicInteger> outcomes = new EnumMap<>(SseSession.Outcome.class);
+    private final AtomicInteger warmupTurns = new AtomicInteger();
+    private final AtomicInteger activeUsers = new AtomicInteger();
+    private final AtomicLong outputTokens = new AtomicLong();
+    private final AtomicLong lastMeasuredEnd = new AtomicLong();
+
+    private long startNanos;
+    private long measureFrom;
+    private long stopAt;
+
+    public ChatLoadTest(LoadTestConfig config) {
+        this.config = config;
+        // SSE 长连接各占一个 HTTP/1.1 连接，与浏览器 EventSource 的行为一致
+        this.client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(10))
+                .build();
+        this.session = new SseSession(client, config);
+        for (SseSession.Outcome outcome : SseSession.Outcome.values()) {
+            outcomes.put(outcome, new AtomicInteger());
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        LoadTestConfig config = LoadTestConfig.parse(args);
+        new ChatLoadTest(config).run();
+    }
+
+    public void run() throws Exception {
+        ServerSampler sampler = new ServerSampler(client, config.getBaseUrl(), objectMapper);
+        OffsetDateTime startedAt = OffsetDateTime.now();
+        startNanos = System.nanoTime();
+        measureFrom = startNanos + config.getWarmup().toNanos();
+        stopAt = startNanos + config.getDuration().toNanos();
+        sampler.start(config.getSampleInterval());
+
+        ExecutorService users = Executors.newFixedThreadPool(config.getUsers(), runnable -> {
+            Thread thread = new Thread(runnable);
+            thread.setDaemon(true);
+            return thread;
+        });
+        long rampStep = config.getUsers() > 1 ? config.getRampUp().toNanos() / (config.getUsers() - 1) : 0;
+        for (int i = 0; i < config.getUsers(); i++) {
+            int user = i;
+            users.execute(() -> virtualUser(user, startNanos + rampStep * user));
+        }
+        System.out.printf("压测开始：%d 个用户，%s 内启动，总时长 %s（预热 %s），目标 %s%n",
+                config.getUsers(), config.getRampUp(), config.getDuration(), config.getWarmup(), config.getBaseUrl());
+
+        users.shutdown();
+        // 到时后不再发起新对话，进行中的对话最多再等一个请求超时
+        long waitNanos = stopAt - System.nanoTime() + config.getRequestTimeout().toNanos();
+        while (!users.awaitTermination(Math.min(10_000_000_000L, Math.max(1, waitNanos)), TimeUnit.NANOSECONDS)) {
+            waitNanos = stopAt - System.nanoTime() + config.getRequestTimeout().toNanos();
+            if (waitNanos <= 0) {
+                users.shutdownNow();
+                break;
+            }
+            printProgress();
+        }
+        sampler.stop();
+
+        Map<String, Object> report = report(startedAt, sampler);
+        Files.createDirectories(config.getOutput().toAbsolutePath().getParent());
+        objectMapper.writeValue(config.getOutput().toFile(), report);
+        System.out.println(objectMapper.writerWithDefaultPrettyPrinter().writeValueAsString(report.get("summary")));
+        System.out.println("报告已保存：" + config.getOutput().toAbsolutePath());
+    }
+
+    private void virtualUser(int user, long startAt) {
+        sleepUntil(startAt);
+        activeUsers.incrementAndGet();
+        try {
+            String conversationId = config.isMultiTurn() ? "loadtest-" + runId + "-" + user : null;
+            List<String> messages = config.getMessages();
+            int turn = user;
+            while (System.nanoTime() < stopAt && !Thread.currentThread().isInterrupted()) {
+                SseSession.Result result = session.run(messages.get(turn++ % messages.size()), conversationId);
+                record(result);
+                long think = config.getThinkTime().toNanos();
+                if (think > 0) {
+                    sleepUntil(System.nanoTime() + ThreadLocalRandom.current().nextLong(think / 2, think * 3 / 2 + 1));
+                }
+            }
+        } finally {
+            activeUsers.decrementAndGet();
+        }
+    }
+
+    private void record(SseSession.Result result) {
+        if (result.start() < measureFrom) {
+            warmupTurns.incrementAndGet();
+            return;
+        }
+        outcomes.get(result.outcome()).incrementAndGet();
+        lastMeasuredEnd.accumulateAndGet(result.end(), Math::max);
+        if (result.outcome() != SseSession.Outcome.COMPLETED) {
+            return;
+        }
+        timeToFirstToken.record(result.timeToFirstToken());
+        timePerOutputToken.record(result.timePerOutputToken(config.getCharsPerToken()));
+        turnDuration.record(Duration.ofNanos(result.end() - result.start()));
+        List<Long> frames = result.frames();
+        for (int i = 1; i < frames.size(); i++) {
+            interFrame.record(Duration.ofNanos(frames.get(i) - frames.get(i - 1)));
+        }
+        outputTokens.addAndGet(result.tokens(config.getCharsPerToken()));
+    }
+
+    private void printProgress() {
+        System.out.printf("[%ds] 在线用户 %d，完成 %d，拒绝 %d，超时 %d，失败 %d%n",
+                TimeUnit.NANOSECONDS.toSeconds(System.nanoTime() - startNanos), activeUsers.get(),
+                outcomes.get(SseSession.Outcome.COMPLETED).get(), outcomes.get(SseSession.Outcome.REJECTED).get(),
+                outcomes.get(SseSession.Outcome.TIMEOUT).get(), outcomes.get(SseSession.Outcome.ERROR).get());
+    }
+
+    private Map<String, Object> report(OffsetDateTime startedAt, ServerSampler sampler) {
+        // 统计窗口：预热结束到最后一轮计入统计的对话结束
+        long windowEnd = Math.max(lastMeasuredEnd.get(), measureFrom);
+        double windowSeconds = Math.max(1e-9, (windowEnd - measureFrom) / 1e9);
+        int completed = outcomes.get(SseSession.Outcome.COMPLETED).get();
+
+        Map<String, Object> turns = new LinkedHashMap<>();
+        turns.put("warmup", warmupTurns.get());
+        outcomes.forEach((outcome, count) -> turns.put(outcome.name().toLowerCase(), count.get()));
+
+        Map<String, Object> throughput = new LinkedHashMap<>();
+        throughput.put("windowSeconds", Math.round(windowSeconds * 100) / 100.0);
+        throughput.put("turnsPerSecond", Math.round(completed / windowSeconds * 100) / 100.0);
+        throughput.put("outputTokensPerSecond", Math.round(outputTokens.get() / windowSeconds * 100) / 100.0);
+
+        Map<String, Object> latency = new LinkedHashMap<>();
+        latency.put("timeToFirstToken", timeToFirstToken.summary());
+        latency.put("timePerOutputToken", timePerOutputToken.summary());
+        latency.put("interFrame", interFrame.summary());
+        latency.put("turnDuration", turnDuration.summary());
+
+        Map<String, Object> summary = new LinkedHashMap<>();
+        summary.put("turns", turns);
+        summary.put("throughput", throughput);
+        summary.put("latency", latency);
+        Map<String, Object> answerCache = sampler.answerCache();
+        if (answerCache != null) {
+            summary.put("answerCache", answerCache);
+        }
+
+        Map<String, Object> report = new LinkedHashMap<>();
+        report.put("startedAt", startedAt.toString());
+        report.put("config", config.describe());
+        report.put("summary", summary);
+        report.put("server", sampler.summary());
+        return report;
+    }
+
+    private static void sleepUntil(long deadlineNanos) {
+        long remaining = deadlineNanos - System.nanoTime();
+        if (remaining <= 0) {
+            return;
+        }
+        try {
+            TimeUnit.NANOSECONDS.sleep(remaining);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
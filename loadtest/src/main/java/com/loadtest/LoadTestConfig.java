@@ -0,0 +1,207 @@
+package com.loadtest;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 压测参数，命令行以 --名称=值 传入，时长支持 500ms、10s、2m 的写法
+ */
+public class LoadTestConfig {
+
+    /**
+     * 默认问题：政策类问题走知识库检索，带订单号和姓名的问题在 stub profile 下会触发工具函数
+     */
+    private static final List<String> DEFAULT_MESSAGES = List.of(
+            "国内航班托运行李的免费额度是多少？",
+            "机票退改签有哪些规则？",
+            "会员有哪些权益？",
+            "帮我查一下订单 1 的详情",
+            "张三的航班有哪些？",
+            "起飞前多久停止办理值机？"
+    );
+
+    /**
+     * 后端地址
+     */
+    private String baseUrl = "http://localhost:8080";
+
+    /**
+     * 并发虚拟用户数，每个用户串行发起对话
+     */
+    private int users = 50;
+
+    /**
+     * 所有用户在这段时间内均匀启动
+     */
+    private Duration rampUp = Duration.ofSeconds(10);
+
+    /**
+     * 压测总时长（含预热），到时后不再发起新对话，等待进行中的对话结束
+     */
+    private Duration duration = Duration.ofSeconds(60);
+
+    /**
+     * 预热时长，这段时间内发起的对话不计入统计
+     */
+    private Duration warmup = Duration.ofSeconds(10);
+
+    /**
+     * 两轮对话之间的平均思考时间，实际取其 50%~150% 的随机值，避免所有用户同步发起请求
+     */
+    private Duration thinkTime = Duration.ofSeconds(1);
+
+    /**
+     * 单轮对话的超时时间
+     */
+    private Duration requestTimeout = Duration.ofSeconds(120);
+
+    /**
+     * 估算 token 数时每个 token 的字符数，与 app.ai.stub.chars-per-token 保持一致
+     */
+    private int charsPerToken = 2;
+
+    /**
+     * 每个用户是否使用固定的会话ID，多轮对话会经过对话记忆和回复持久化
+     */
+    private boolean multiTurn = true;
+
+    /**
+     * 服务端指标（堆内存、线程数、网关队列）的采样间隔
+     */
+    private Duration sampleInterval = Duration.ofSeconds(1);
+
+    /**
+     * 问题文件，每行一个问题；未指定时使用内置问题
+     */
+    private List<String> messages = DEFAULT_MESSAGES;
+
+    /**
+     * 报告输出路径
+     */
+    private Path output = Path.of("target",
+            "loadtest-" + LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss")) + ".json");
+
+    public static LoadTestConfig parse(String[] args) throws IOException {
+        LoadTestConfig config = new LoadTestConfig();
+        for (String arg : args) {
+            if (!arg.startsWith("--") || !arg.contains("=")) {
+                throw new IllegalArgumentException("参数格式应为 --名称=值：" + arg);
+            }
+            String name = arg.substring(2, arg.indexOf('='));
+            String value = arg.substring(arg.indexOf('=') + 1);
+            switch (name) {
+                case "base-url" -> config.baseUrl = value.endsWith("/") ? value.substring(0, value.length() - 1) : value;
+                case "users" -> config.users = Integer.parseInt(value);
+                case "ramp-up" -> config.rampUp = parseDuration(value);
+                case "duration" -> config.duration = parseDuration(value);
+                case "warmup" -> config.warmup = parseDuration(value);
+                case "think-time" -> config.thinkTime = parseDuration(value);
+                case "request-timeout" -> config.requestTimeout = parseDuration(value);
+                case "chars-per-token" -> config.charsPerToken = Integer.parseInt(value);
+                case "multi-turn" -> config.multiTurn = Boolean.parseBoolean(value);
+                case "sample-interval" -> config.sampleInterval = parseDuration(value);
+                case "messages" -> config.messages = Files.readAllLines(Path.of(value), StandardCharsets.UTF_8).stream()
+                        .map(String::trim)
+                        .filter(line -> !line.isEmpty())
+                        .toList();
+                case "output" -> config.output = Path.of(value);
+                default -> throw new IllegalArgumentException("未知参数：" + name);
+            }
+        }
+        if (config.users <= 0 || config.messages.isEmpty()) {
+            throw new IllegalArgumentException("用户数和问题列表不能为空");
+        }
+        if (!config.warmup.minus(config.duration).isNegative()) {
+            throw new IllegalArgumentException("预热时长必须小于压测总时长");
+        }
+        return config;
+    }
+
+    static Duration parseDuration(String value) {
+        String text = value.trim().toLowerCase();
+        if (text.endsWith("ms")) {
+            return Duration.ofMillis(Long.parseLong(text.substring(0, text.length() - 2)));
+        }
+        long amount = Long.parseLong(text.substring(0, text.length() - 1));
+        return switch (text.charAt(text.length() - 1)) {
+            case 's' -> Duration.ofSeconds(amount);
+            case 'm' -> Duration.ofMinutes(amount);
+            case 'h' -> Duration.ofHours(amount);
+            default -> throw new IllegalArgumentException("无法识别的时长：" + value);
+        };
+    }
+
+    /**
+     * 写入报告的参数快照
+     */
+    public Map<String, Object> describe() {
+        Map<String, Object> description = new LinkedHashMap<>();
+        description.put("baseUrl", baseUrl);
+        description.put("users", users);
+        description.put("rampUp", rampUp.toString());
+        description.put("duration", duration.toString());
+        description.put("warmup", warmup.toString());
+        description.put("thinkTime", thinkTime.toString());
+        description.put("requestTimeout", requestTimeout.toString());
+        description.put("charsPerToken", charsPerToken);
+        description.put("multiTurn", multiTurn);
+        description.put("messages", messages.size());
+        return description;
+    }
+
+    public String getBaseUrl() {
+        return baseUrl;
+    }
+
+    public int getUsers() {
+        return users;
+    }
+
+    public Duration getRampUp() {
+        return rampUp;
+    }
+
+    public Duration getDuration() {
+        return duration;
+    }
+
+    public Duration getWarmup() {
+        return warmup;
+    }
+
+    public Duration getThinkTime() {
+        return thinkTime;
+    }
+
+    public Duration getRequestTimeout() {
+        return requestTimeout;
+    }
+
+    public int getCharsPerToken() {
+        return charsPerToken;
+    }
+
+    public boolean isMultiTurn() {
+        return multiTurn;
+    }
+
+    public Duration getSampleInterval() {
+        return sampleInterval;
+    }
+
+    public List<String> getMessages() {
+        return messages;
+    }
+
+    public Path getOutput() {
+        return output;
+    }
+}
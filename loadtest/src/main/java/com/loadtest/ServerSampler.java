@@ -0,0 +1,165 @@
+package com.loadtest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 通过 Actuator 的 metrics 端点定时采集服务端的堆内存、线程数、模型网关排队情况和语义缓存命中次数
+ * 后端需要暴露 metrics 端点（stub profile 默认已暴露），不可用时报告中只缺少这部分数据
+ */
+public class ServerSampler {
+
+    /**
+     * 报告字段名与 Actuator 指标查询路径
+     */
+    private static final Map<String, String> METRICS = new LinkedHashMap<>();
+
+    static {
+        METRICS.put("heapUsedMb", "jvm.memory.used?tag=area:heap");
+        METRICS.put("threadsLive", "jvm.threads.live");
+        METRICS.put("gatewayActive", "smartair.ai.gateway.active");
+        METRICS.put("gatewayQueue", "smartair.ai.gateway.queue");
+        METRICS.put("answerCacheHits", "smartair.ai.answer-cache?tag=result:hit");
+        METRICS.put("answerCacheMisses", "smartair.ai.answer-cache?tag=result:miss");
+    }
+
+    private final HttpClient client;
+    private final String baseUrl;
+    private final ObjectMapper objectMapper;
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "server-sampler");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final List<Map<String, Object>> samples = new ArrayList<>();
+    private long startNanos;
+
+    public ServerSampler(HttpClient client, String baseUrl, ObjectMapper objectMapper) {
+        this.client = client;
+        this.baseUrl = baseUrl;
+        this.objectMapper = objectMapper;
+    }
+
+    public void start(Duration interval) {
+        startNanos = System.nanoTime();
+        scheduler.scheduleAtFixedRate(this::sample, 0, interval.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    public void stop() {
+        scheduler.shutdownNow();
+    }
+
+    private void sample() {
+        Map<String, Object> sample = new LinkedHashMap<>();
+        sample.put("elapsedSeconds", Math.round((System.nanoTime() - startNanos) / 1e7) / 100.0);
+        METRICS.forEach((name, path) -> {
+            Double value = fetch(path);
+            if (value != null) {
+                sample.put(name, "heapUsedMb".equals(name) ? Math.round(value / 1024 / 1024 * 10) / 10.0 : value);
+            }
+        });
+        synchronized (samples) {
+            samples.add(sample);
+        }
+    }
+
+    private Double fetch(String path) {
+        HttpRequest request = HttpRequest.newBuilder(URI.create(baseUrl + "/actuator/metrics/" + path))
+                .timeout(Duration.ofSeconds(5))
+                .GET()
+                .build();
+        try {
+            HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+            if (response.statusCode() != 200) {
+                return null;
+            }
+            JsonNode measurements = objectMapper.readTree(response.body()).path("measurements");
+            return measurements.isArray() && !measurements.isEmpty() ? measurements.get(0).path("value").asDouble() : null;
+        } catch (IOException e) {
+            return null;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return null;
+        }
+    }
+
+    /**
+     * 压测期间（含预热）语义缓存的命中情况，命中的回答直接回放缓存，不经过模型网关
+     * 命中率高时压测结果主要反映缓存回放，而不是模型调用链路
+     * @return 命中次数、未命中次数和命中率，没有采集到缓存指标时返回 null
+     */
+    public Map<String, Object> answerCache() {
+        List<Map<String, Object>> snapshot;
+        synchronized (samples) {
+            snapshot = List.copyOf(samples);
+        }
+        Double hits = increase(snapshot, "answerCacheHits");
+        Double misses = increase(snapshot, "answerCacheMisses");
+        if (hits == null || misses == null) {
+            return null;
+        }
+        Map<String, Object> answerCache = new LinkedHashMap<>();
+        answerCache.put("hits", hits);
+        answerCache.put("misses", misses);
+        answerCache.put("hitRatio", hits + misses > 0 ? Math.round(hits / (hits + misses) * 1000) / 1000.0 : 0.0);
+        return answerCache;
+    }
+
+    /**
+     * 累计计数器在第一次和最后一次采样之间的增量
+     */
+    private static Double increase(List<Map<String, Object>> snapshot, String name) {
+        Double first = null;
+        Double last = null;
+        for (Map<String, Object> sample : snapshot) {
+            if (sample.get(name) instanceof Double value) {
+                first = first == null ? value : first;
+                last = value;
+            }
+        }
+        return first == null ? null : last - first;
+    }
+
+    /**
+     * @return 各指标的最大值、最后一次的值，以及完整的采样序列
+     */
+    public Map<String, Object> summary() {
+        List<Map<String, Object>> snapshot;
+        synchronized (samples) {
+            snapshot = List.copyOf(samples);
+        }
+        Map<String, Object> summary = new LinkedHashMap<>();
+        for (String name : METRICS.keySet()) {
+            double max = Double.NaN;
+            Object last = null;
+            for (Map<String, Object> sample : snapshot) {
+                if (sample.get(name) instanceof Double value) {
+                    max = Double.isNaN(max) ? value : Math.max(max, value);
+                    last = value;
+                }
+            }
+            if (last != null) {
+                Map<String, Object> values = new LinkedHashMap<>();
+                values.put("max", max);
+                values.put("last", last);
+                summary.put(name, values);
+            }
+        }
+        summary.put("samples", snapshot);
+        return summary;
+    }
+}
@@ -0,0 +1,146 @@
+package com.loadtest;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.net.http.HttpTimeoutException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.Stream;
+
+/**
+ * 单轮对话：请求流式接口并解析 SSE 事件，记录首字时间和各帧到达时间
+ */
+public class SseSession {
+
+    /**
+     * 回复结束标记
+     */
+    private static final String COMPLETE = "[complete]";
+
+    /**
+     * 网关拒绝时返回的提示，与 AiController.BUSY_REPLY 一致
+     */
+    private static final String BUSY_REPLY = "当前咨询人数较多，请稍后再试。";
+
+    private final HttpClient client;
+    private final LoadTestConfig config;
+
+    public SseSession(HttpClient client, LoadTestConfig config) {
+        this.client = client;
+        this.config = config;
+    }
+
+    /**
+     * @param message        问题
+     * @param conversationId 会话ID，为 null 时每轮使用一次性记忆
+     */
+    public Result run(String message, String conversationId) {
+        StringBuilder url = new StringBuilder(config.getBaseUrl())
+                .append("/api/ai/generateStreamAsString?message=").append(encode(message))
+                .append("&turnId=").append(UUID.randomUUID());
+        if (conversationId != null) {
+            url.append("&conversationId=").append(encode(conversationId));
+        }
+        HttpRequest request = HttpRequest.newBuilder(URI.create(url.toString()))
+                .header("Accept", "text/event-stream")
+                .timeout(config.getRequestTimeout())
+                .GET()
+                .build();
+
+        long start = System.nanoTime();
+        long deadline = start + config.getRequestTimeout().toNanos();
+        List<Long> frames = new ArrayList<>();
+        int chars = 0;
+        try {
+            HttpResponse<Stream<String>> response = client.send(request, HttpResponse.BodyHandlers.ofLines());
+            if (response.statusCode() != 200) {
+                response.body().close();
+                return new Result(Outcome.ERROR, start, System.nanoTime(), frames, chars);
+            }
+            try (Stream<String> lines = response.body()) {
+                Iterator<String> iterator = lines.iterator();
+                StringBuilder data = null;
+                // 服务端每个心跳间隔至少写一行注释，读取不会无限阻塞
+                while (iterator.hasNext()) {
+                    if (System.nanoTime() > deadline) {
+                        return new Result(Outcome.TIMEOUT, start, System.nanoTime(), frames, chars);
+                    }
+                    String line = iterator.next();
+                    if (line.isEmpty()) {
+                        if (data != null) {
+                            String text = data.toString();
+                            data = null;
+                            if (COMPLETE.equals(text)) {
+                                return new Result(Outcome.COMPLETED, start, System.nanoTime(), frames, chars);
+                            }
+                            if (frames.isEmpty() && BUSY_REPLY.equals(text)) {
+                                return new Result(Outcome.REJECTED, start, System.nanoTime(), frames, chars);
+                            }
+                            frames.add(System.nanoTime());
+                            chars += text.length();
+                        }
+                    } else if (line.startsWith("data:")) {
+                        String value = line.substring(5);
+                        data = data == null ? new StringBuilder(value) : data.append('\n').append(value);
+                    }
+                    // 注释（心跳）、id、retry 行不影响统计
+                }
+            }
+            // 连接在结束标记之前关闭
+            return new Result(Outcome.ERROR, start, System.nanoTime(), frames, chars);
+        } catch (HttpTimeoutException e) {
+            return new Result(Outcome.TIMEOUT, start, System.nanoTime(), frames, chars);
+        } catch (IOException | UncheckedIOException e) {
+            return new Result(Outcome.ERROR, start, System.nanoTime(), frames, chars);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return new Result(Outcome.ERROR, start, System.nanoTime(), frames, chars);
+        }
+    }
+
+    private static String encode(String value) {
+        return URLEncoder.encode(value, StandardCharsets.UTF_8);
+    }
+
+    public enum Outcome {
+        COMPLETED, REJECTED, TIMEOUT, ERROR
+    }
+
+    /**
+     * @param start  发出请求的时间（System.nanoTime）
+     * @param end    收到结束标记或失败的时间
+     * @param frames 各数据帧到达的时间
+     * @param chars  回复的字符数
+     */
+    public record Result(Outcome outcome, long start, long end, List<Long> frames, int chars) {
+
+        public Duration timeToFirstToken() {
+            return frames.isEmpty() ? null : Duration.ofNanos(frames.get(0) - start);
+        }
+
+        /**
+         * 首字之后平均每个 token 的耗时，token 数按字符数估算；不足两个 token 时为 null
+         */
+        public Duration timePerOutputToken(int charsPerToken) {
+            long tokens = tokens(charsPerToken);
+            if (frames.size() < 2 || tokens < 2) {
+                return null;
+            }
+            return Duration.ofNanos((frames.get(frames.size() - 1) - frames.get(0)) / (tokens - 1));
+        }
+
+        public long tokens(int charsPerToken) {
+            int size = Math.max(1, charsPerToken);
+            return (chars + size - 1) / size;
+        }
+    }
+}